@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.codec;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramMessage;
+
+/**
+ * 全てのコーデックについて, メッセージを変換して復元すると元のメッセージに戻ることを確認するプログラム.
+ *
+ * <p>変換後のデータサイズも出力する.
+ * また, {@link BinaryMessageCodec} が不正なバイト列を {@link IOException} で拒否することを確認する.
+ * 確認に失敗した場合は終了コード 1 で終了する.
+ *
+ * @author K.Koike
+ */
+public class CodecRoundTripCheck {
+
+  /** 1 回に変換するメッセージの数. */
+  private static final int NUM_MSGS = 64;
+
+  private static int numFailures = 0;
+
+  /** メインメソッド. */
+  public static void main(String[] args) throws Exception {
+    for (CodecSamples.Kind kind : CodecSamples.Kind.values()) {
+      List<BhProgramMessage> msgs = CodecSamples.create(kind, NUM_MSGS);
+      for (String name : BhMessageCodecs.names()) {
+        checkRoundTrip(BhMessageCodecs.of(name), kind, msgs);
+      }
+    }
+    checkTruncatedData();
+    checkTooManyFrames();
+    System.out.println((numFailures == 0) ? "OK" : "FAILED (%s)".formatted(numFailures));
+    System.exit((numFailures == 0) ? 0 : 1);
+  }
+
+  /** {@code msgs} を {@code codec} で変換して復元し, 元のメッセージと比較する. */
+  private static void checkRoundTrip(
+      BhMessageCodec codec, CodecSamples.Kind kind, List<BhProgramMessage> msgs)
+      throws IOException {
+    byte[] data = codec.encode(msgs);
+    List<BhProgramMessage> decoded = codec.decode(data);
+    check(decoded.size() == msgs.size(),
+        "%s / %s : The number of messages differs.".formatted(codec.name(), kind));
+    for (int i = 0; i < Math.min(msgs.size(), decoded.size()); ++i) {
+      String expected = CodecSamples.describe(msgs.get(i));
+      String actual = CodecSamples.describe(decoded.get(i));
+      check(expected.equals(actual),
+          "%s / %s : %s != %s".formatted(codec.name(), kind, expected, actual));
+    }
+    check(Arrays.equals(data, codec.encode(decoded)),
+        "%s / %s : The re-encoded data differs.".formatted(codec.name(), kind));
+    System.out.printf("%-20s %-16s %8d bytes%n", codec.name(), kind, data.length);
+  }
+
+  /** 途中で切れたバイト列を復元しようとすると {@link IOException} が発生することを確認する. */
+  private static void checkTruncatedData() throws IOException {
+    var codec = new BinaryMessageCodec();
+    byte[] data = codec.encode(CodecSamples.create(CodecSamples.Kind.MIXED, 9));
+    for (int len = 0; len < data.length; ++len) {
+      expectIoException(codec, Arrays.copyOf(data, len), "truncated to %s bytes".formatted(len));
+    }
+  }
+
+  /** 残りのデータに収まらないフレーム数を持つスレッドコンテキストを拒否することを確認する. */
+  private static void checkTooManyFrames() {
+    byte[] data = {
+      2,  // フォーマットバージョン
+      1,  // メッセージ数
+      8,  // スレッドコンテキストのタグ
+      0, 0, 0, 0, 0, 0,  // メッセージ ID, スレッド ID, 状態, バージョン, ベースバージョン, 引き継ぐフレーム数
+      (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07  // フレーム数 (Integer.MAX_VALUE)
+    };
+    expectIoException(new BinaryMessageCodec(), data, "too many frames");
+  }
+
+  private static void expectIoException(BhMessageCodec codec, byte[] data, String desc) {
+    try {
+      codec.decode(data);
+      check(false, "%s : Decoding succeeded unexpectedly.".formatted(desc));
+    } catch (IOException e) {
+      // 期待通り.
+    } catch (Throwable e) {
+      check(false, "%s : %s".formatted(desc, e));
+    }
+  }
+
+  private static void check(boolean condition, String msg) {
+    if (!condition) {
+      ++numFailures;
+      System.out.println("NG : " + msg);
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.codec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import net.seapanda.bunnyhop.bhprogram.common.BhSymbolId;
+import net.seapanda.bunnyhop.bhprogram.common.BhThreadState;
+import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramEvent;
+import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramMessage;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.SuspendThreadCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.exception.BhProgramException;
+import net.seapanda.bunnyhop.bhprogram.common.message.io.BhTextIoResp;
+import net.seapanda.bunnyhop.bhprogram.common.message.io.InputTextCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.io.InputTextResp;
+import net.seapanda.bunnyhop.bhprogram.common.message.io.OutputTextCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.io.OutputTextResp;
+import net.seapanda.bunnyhop.bhprogram.common.message.simulator.StringBhSimulatorCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.simulator.StringBhSimulatorResp;
+import net.seapanda.bunnyhop.bhprogram.common.message.thread.BhCallStackItem;
+import net.seapanda.bunnyhop.bhprogram.common.message.thread.BhThreadContext;
+
+/**
+ * コーデックのベンチマークと往復変換の確認に使うメッセージを作成するクラス.
+ *
+ * @author K.Koike
+ */
+public class CodecSamples {
+
+  /** 作成するメッセージの種類. */
+  public enum Kind {
+    /** テキスト出力コマンドのみ. */
+    TEXT,
+    /** コールスタックを持つスレッドコンテキストのみ. */
+    THREAD_CONTEXT,
+    /** 全ての種類のメッセージを混ぜたもの. */
+    MIXED
+  }
+
+  /**
+   * {@code kind} の種類のメッセージを {@code numMsgs} 個作成する.
+   *
+   * @param kind 作成するメッセージの種類
+   * @param numMsgs 作成するメッセージの数
+   * @return 作成したメッセージのリスト
+   */
+  static List<BhProgramMessage> create(Kind kind, int numMsgs) {
+    var msgs = new ArrayList<BhProgramMessage>(numMsgs);
+    for (int i = 0; i < numMsgs; ++i) {
+      msgs.add(switch (kind) {
+        case TEXT -> new OutputTextCmd("output text " + i);
+        case THREAD_CONTEXT -> createThreadContext(i);
+        case MIXED -> createMixed(i);
+      });
+    }
+    return msgs;
+  }
+
+  private static BhThreadContext createThreadContext(int i) {
+    var callStack = new ArrayList<BhCallStackItem>();
+    for (int frameIdx = 0; frameIdx < 8; ++frameIdx) {
+      callStack.add(new BhCallStackItem(frameIdx, BhSymbolId.of("symbol-" + (frameIdx % 4))));
+    }
+    BhProgramException exception =
+        (i % 8 == 7) ? new BhProgramException("error in thread " + i) : null;
+    return new BhThreadContext(
+        i, i % 4, BhThreadState.SUSPENDED, callStack, BhSymbolId.of("next-" + (i % 4)),
+        (exception == null) ? BhSymbolId.NONE : BhSymbolId.of("error-" + i), exception,
+        i, i - 1, i % 8);
+  }
+
+  private static BhProgramMessage createMixed(int i) {
+    return switch (i % 9) {
+      case 0 -> new OutputTextCmd("output text " + i);
+      case 1 -> new OutputTextResp(i, true, "output text " + i);
+      case 2 -> new InputTextCmd("");
+      case 3 -> new InputTextResp(i, false, null);
+      case 4 -> new BhProgramEvent(BhProgramEvent.Name.values()[i % 3], "getEventHandlerNames");
+      case 5 -> new StringBhSimulatorCmd(new String[] {"moveForward", "1.0", Integer.toString(i)});
+      case 6 -> new StringBhSimulatorResp(i, true, new String[] {"distance", "12.5"});
+      case 7 -> createThreadContext(i);
+      default -> new SuspendThreadCmd(i);
+    };
+  }
+
+  /**
+   * {@code msg} の型と全てのフィールドの値を表す文字列を返す.
+   * 往復変換の前後のメッセージを比較するのに使う.
+   */
+  static String describe(BhProgramMessage msg) {
+    String fields = switch (msg) {
+      case OutputTextCmd cmd -> cmd.text;
+      case InputTextCmd cmd -> cmd.text;
+      case OutputTextResp resp -> describe(resp, resp.text);
+      case InputTextResp resp -> describe(resp, resp.text);
+      case BhProgramEvent event -> event.name + ", " + event.eventHandlerResolver;
+      case StringBhSimulatorCmd cmd -> Arrays.toString(cmd.getComponents());
+      case StringBhSimulatorResp resp ->
+          resp.isSuccessful() + ", " + Arrays.toString(resp.getComponents());
+      case BhThreadContext context -> describe(context);
+      case SuspendThreadCmd cmd -> Long.toString(cmd.threadId);
+      default -> "";
+    };
+    return "%s(%s: %s)".formatted(msg.getClass().getSimpleName(), msg.getId(), fields);
+  }
+
+  private static String describe(BhTextIoResp resp, String text) {
+    return resp.success + ", " + text;
+  }
+
+  private static String describe(BhThreadContext context) {
+    String callStack = context.getCallStack().stream()
+        .map(item -> item.frameIdx() + ":" + item.symbolId())
+        .collect(Collectors.joining(" "));
+    BhProgramException exception = context.getException();
+    return String.join(", ",
+        Long.toString(context.getThreadId()),
+        context.getState().toString(),
+        "[" + callStack + "]",
+        context.getNextStep().toString(),
+        context.getErrorStep().toString(),
+        (exception == null) ? "null" : exception.getMessage(),
+        Long.toString(context.getVersion()),
+        Long.toString(context.getBaseVersion()),
+        Integer.toString(context.getNumKeptFrames()));
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.codec;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link BhMessageCodec} で {@link #NUM_MSGS} 個のメッセージを変換, 復元する時間を計測する.
+ *
+ * <p>変換後のデータサイズは {@link CodecRoundTripCheck} で確認する.
+ *
+ * @author K.Koike
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageCodecBenchmark {
+
+  /** 1 回に変換するメッセージの数. */
+  private static final int NUM_MSGS = 64;
+
+  /** 計測するコーデックの名前. */
+  @Param({BinaryMessageCodec.NAME, JavaSerializationCodec.NAME})
+  public String codecName;
+
+  /** 変換するメッセージの種類. */
+  @Param({"TEXT", "THREAD_CONTEXT", "MIXED"})
+  public CodecSamples.Kind kind;
+
+  private BhMessageCodec codec;
+  private List<BhProgramMessage> msgs;
+  private byte[] data;
+
+  /** 計測の準備をする. */
+  @Setup
+  public void setup() throws Exception {
+    codec = BhMessageCodecs.of(codecName);
+    msgs = CodecSamples.create(kind, NUM_MSGS);
+    data = codec.encode(msgs);
+  }
+
+  /** メッセージのリストをバイト列に変換する. */
+  @Benchmark
+  public byte[] encode() throws Exception {
+    return codec.encode(msgs);
+  }
+
+  /** バイト列からメッセージのリストを復元する. */
+  @Benchmark
+  public List<BhProgramMessage> decode() throws Exception {
+    return codec.decode(data);
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.executor;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import net.seapanda.bunnyhop.bhprogram.common.BhScriptEngineSettings;
+import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramEvent;
+import net.seapanda.bunnyhop.runtime.script.ScriptHelper;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.Script;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * {@link JsBhProgramExecutor} のスクリプトのコンパイル時間とイベントの発行にかかる時間を計測する.
+ *
+ * @author K.Koike
+ */
+@State(Scope.Benchmark)
+public class JsBhProgramExecutorBenchmark {
+
+  /** 最適化レベル.  -1 はインタプリタモード. */
+  @Param({"-1", "9"})
+  public int optLevel;
+
+  /** イベントハンドラの数. */
+  private static final int NUM_HANDLERS = 200;
+
+  private String source;
+  private Path scriptFile;
+  private JsBhProgramExecutor executor;
+  private BhProgramEvent event;
+
+  /** 計測の準備をする. */
+  @Setup
+  public void setup() throws Exception {
+    var settings = BhScriptEngineSettings.DEFAULT.withOptimizationLevel(optLevel);
+    if (ContextFactory.hasExplicitGlobal()) {
+      ((BhContextFactory) ContextFactory.getGlobal()).setSettings(settings);
+    } else {
+      BhContextFactory.install(settings);
+    }
+    source = createSource();
+    scriptFile = Files.createTempFile("bh-bench", ".js");
+    Files.writeString(scriptFile, source, StandardCharsets.UTF_8);
+    executor = new JsBhProgramExecutor(
+        new ScriptHelper(null, null, null, null, null, null, null),
+        new ArrayBlockingQueue<>(16),
+        new CompiledScriptCache(null),
+        new InlineExecutorService(),
+        ((BhContextFactory) ContextFactory.getGlobal()).getSharedScope());
+    executor.runScript(scriptFile.toString());
+    event = new BhProgramEvent(BhProgramEvent.Name.KEY_A_PRESSED, "_getEventHandlerNames");
+  }
+
+  /** 計測の後始末をする. */
+  @TearDown
+  public void tearDown() throws Exception {
+    Files.deleteIfExists(scriptFile);
+  }
+
+  /** キャッシュを使わずにスクリプトをコンパイルする. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public Script compile() {
+    Context cx = ContextFactory.getGlobal().enterContext();
+    try {
+      return new CompiledScriptCache(null).getOrCompile(cx, source, "bench.js");
+    } finally {
+      Context.exit();
+    }
+  }
+
+  /** イベントを発行して, そのイベントハンドラを呼び出し元のスレッドで実行する. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void fireEvent() {
+    executor.fireEvent(event);
+  }
+
+  /** {@link #NUM_HANDLERS} 個の関数を持つスクリプトを作成する. */
+  private static String createSource() {
+    var builder = new StringBuilder();
+    builder.append("var counter = 0;\n");
+    for (int i = 0; i < NUM_HANDLERS; ++i) {
+      builder.append("""
+          function handler%d(a, b) {
+            let sum = 0;
+            for (let i = 0; i < a; ++i) {
+              sum += (i %% 2 == 0) ? i * b : -i;
+            }
+            counter += sum;
+            return sum;
+          }
+          """.formatted(i));
+    }
+    builder.append("""
+        function onKey() { ++counter; }
+        function _getEventHandlerNames(name) {
+          return (name == 'KEY_A_PRESSED') ? ['onKey'] : [];
+        }
+        """);
+    return builder.toString();
+  }
+
+  /** タスクを呼び出し元のスレッドで実行する {@link java.util.concurrent.ExecutorService}. */
+  private static class InlineExecutorService extends AbstractExecutorService {
+
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+
+    @Override
+    public void shutdown() {}
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return List.of();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return false;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * 複数のスレッドから {@link PerItemLock} のロックを取得, 解放する際のスループットを計測する.
+ *
+ * @author K.Koike
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class PerItemLockBenchmark {
+
+  /** 全てのスレッドで共有するロック. */
+  @State(Scope.Benchmark)
+  public static class SharedState {
+
+    /** true の場合, 全てのスレッドが同じアイテムのロックを取得する. */
+    @Param({"true", "false"})
+    public boolean sameItem;
+
+    final PerItemLock<String> lock = new PerItemLock<>();
+    final AtomicInteger threadCount = new AtomicInteger();
+  }
+
+  /** スレッドごとにロックするアイテム. */
+  @State(Scope.Thread)
+  public static class ThreadState {
+
+    String item;
+
+    /** 計測の準備をする. */
+    @Setup
+    public void setup(SharedState shared) {
+      item = shared.sameItem ? "item" : "item-" + shared.threadCount.getAndIncrement();
+    }
+  }
+
+  /** 書き込みロックを取得して解放する. */
+  @Benchmark
+  public void writeLock(SharedState shared, ThreadState thread) {
+    shared.lock.acquireWriteLockFor(thread.item);
+    shared.lock.releaseWriteLockFor(thread.item);
+  }
+
+  /** 読み出しロックを取得して解放する. */
+  @Benchmark
+  public void readLock(SharedState shared, ThreadState thread) {
+    shared.lock.acquireReadLockFor(thread.item);
+    shared.lock.releaseReadLockFor(thread.item);
+  }
+}
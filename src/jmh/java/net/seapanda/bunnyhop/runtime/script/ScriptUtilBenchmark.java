@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link ScriptUtil#substringByBytes} の処理時間を計測する.
+ *
+ * @author K.Koike
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ScriptUtilBenchmark {
+
+  /** 切り詰める文字列の種類. */
+  @Param({"ascii", "japanese"})
+  public String textType;
+
+  /** 切り詰めた後の最大バイト数. */
+  @Param({"32", "1024"})
+  public int numBytes;
+
+  private final ScriptUtil util = new ScriptUtil();
+  private String text;
+
+  /** 計測の準備をする. */
+  @Setup
+  public void setup() {
+    // 全ての文字が, 切り詰めた後の最大バイト数の 2 倍程度のバイト数になるようにする.
+    text = textType.equals("ascii")
+        ? "a".repeat(numBytes * 2)
+        : "あ".repeat(numBytes * 2 / 3);
+  }
+
+  /** 文字列を UTF-8 で {@link #numBytes} バイト以下に切り詰める. */
+  @Benchmark
+  public String substringByBytes() {
+    return util.substringByBytes(text, numBytes, "UTF-8");
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.debug;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import net.seapanda.bunnyhop.bhprogram.common.BhSymbolId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * BhProgram の処理 1 ステップごとに呼ばれる {@link BhProgramDebugger#conditionalWait} のオーバーヘッドを計測する.
+ *
+ * <p>ブレークポイントには一致しないステップ ID を使うので, スレッドは停止しない.
+ *
+ * @author K.Koike
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConditionalWaitBenchmark {
+
+  /** 設定するブレークポイントの数. */
+  @Param({"0", "100"})
+  public int numBreakpoints;
+
+  private BhProgramDebugger debugger;
+  /** {@link BhProgramDebugger#internSymbol} で整数に変換したステップ ID. */
+  private int stepIdx;
+
+  /** 計測の準備をする.  計測するスレッドを BhProgram のスレッドとして登録する. */
+  @Setup
+  public void setup() {
+    debugger = new BhProgramDebugger(new ArrayBlockingQueue<>(1024), null);
+    debugger.addBreakpoints(IntStream.range(0, numBreakpoints)
+        .mapToObj(i -> BhSymbolId.of("bp-" + i))
+        .toList());
+    debugger.notifyThreadStart(ThreadContexts.ofCurrentThread(List.of("main")));
+    stepIdx = debugger.internSymbol("step-0");
+  }
+
+  /** 計測の後始末をする. */
+  @TearDown
+  public void tearDown() {
+    debugger.notifyThreadEnd();
+  }
+
+  /** 停止条件を満たさないステップで {@link BhProgramDebugger#conditionalWait} を呼ぶ. */
+  @Benchmark
+  public void conditionalWait() {
+    debugger.conditionalWait("step-0");
+  }
+
+  /** 整数に変換したステップ ID で {@link BhProgramDebugger#conditionalWait} を呼ぶ. */
+  @Benchmark
+  public void conditionalWaitInterned() {
+    debugger.conditionalWait(stepIdx);
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.debug;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import net.seapanda.bunnyhop.bhprogram.common.BhThreadState;
+import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramNotification;
+import net.seapanda.bunnyhop.bhprogram.common.message.thread.BhThreadContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * {@link BhProgramDebugger} によるスレッドの一時停止と再開, スレッドの開始と終了の通知にかかる時間を計測する.
+ *
+ * @author K.Koike
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DebuggerHandoffBenchmark {
+
+  /** 1 ステップずつ実行されるスレッドを保持する. */
+  @State(Scope.Benchmark)
+  public static class Stepping {
+    private final BlockingQueue<BhProgramNotification> notifs = new LinkedBlockingQueue<>();
+    private BhProgramDebugger debugger;
+    private Thread thread;
+    private volatile boolean running = true;
+
+    /** ステップ実行するスレッドを開始し, 最初のステップで一時停止させる. */
+    @Setup
+    public void setup() throws Exception {
+      debugger = new BhProgramDebugger(notifs, null);
+      thread = new Thread(() -> {
+        debugger.notifyThreadStart(ThreadContexts.ofCurrentThread(List.of("main")));
+        int stepIdx = debugger.internSymbol("step");
+        while (running) {
+          debugger.conditionalWait(stepIdx);
+        }
+        debugger.notifyThreadEnd();
+      });
+      thread.start();
+      while (true) {
+        try {
+          debugger.suspend(thread.threadId());
+          break;
+        } catch (Exception e) {
+          Thread.onSpinWait();
+        }
+      }
+      awaitSuspended();
+    }
+
+    /** ステップ実行するスレッドを終了させる. */
+    @TearDown
+    public void tearDown() throws Exception {
+      running = false;
+      debugger.resumeAll();
+      thread.join();
+    }
+
+    /** スレッドが一時停止したことを表す通知を待つ. */
+    void awaitSuspended() throws InterruptedException {
+      while (!(notifs.take() instanceof BhThreadContext context
+          && context.getState() == BhThreadState.SUSPENDED)) {
+        // 一時停止以外の通知は読み捨てる.
+      }
+    }
+  }
+
+  /** スレッドの開始と終了を通知されるデバッガを保持する. */
+  @State(Scope.Benchmark)
+  public static class Lifecycle {
+    private BhProgramDebugger debugger;
+
+    /** 通知を読み捨てるデバッガを作成する. */
+    @Setup
+    public void setup() {
+      debugger = new BhProgramDebugger(new LinkedBlockingQueue<>() {
+        @Override
+        public void put(BhProgramNotification notif) {}
+      }, null);
+    }
+  }
+
+  /** 一時停止中のスレッドをステップオーバーさせ, 次のステップで再び一時停止するまでの時間を計測する. */
+  @Benchmark
+  public void stepOver(Stepping state) throws Exception {
+    state.debugger.stepOver(state.thread.threadId());
+    state.awaitSuspended();
+  }
+
+  /** 4 つのスレッドが同時にスレッドの開始と終了をデバッガに通知する. */
+  @Benchmark
+  @Threads(4)
+  public void threadStartEnd(Lifecycle state) {
+    state.debugger.notifyThreadStart(ThreadContexts.ofCurrentThread(List.of()));
+    state.debugger.notifyThreadEnd();
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.debug;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.BhProfileClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * プロファイラの計測中に {@link BhProgramDebugger#conditionalWait} にかかる時間を計測する.
+ *
+ * @author K.Koike
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProfilerBenchmark {
+
+  /** 実行時間の計測に使う時計.  NONE の場合は計測しない. */
+  @Param({"NONE", "WALL", "CPU"})
+  public String clock;
+
+  private BhProgramDebugger debugger;
+  /** 交互に実行する処理のステップ ID. */
+  private int[] stepIdxs;
+  private int count = 0;
+
+  /** 計測の準備をする.  深さ 4 のコールスタックを持つスレッドとして登録する. */
+  @Setup
+  public void setup() {
+    debugger = new BhProgramDebugger(new LinkedBlockingQueue<>(), null);
+    debugger.notifyThreadStart(ThreadContexts.ofCurrentThread(List.of("main", "f", "g", "h")));
+    stepIdxs = new int[] {
+      debugger.internSymbol("step-0"),
+      debugger.internSymbol("step-1"),
+      debugger.internSymbol("step-2"),
+      debugger.internSymbol("step-3")
+    };
+    if (!clock.equals("NONE")) {
+      debugger.startProfiling(BhProfileClock.valueOf(clock));
+    }
+  }
+
+  /** 計測の後始末をする. */
+  @TearDown
+  public void tearDown() {
+    debugger.notifyThreadEnd();
+    debugger.stopProfiling();
+  }
+
+  /** 4 つの処理を順に実行する. */
+  @Benchmark
+  public void conditionalWait() {
+    debugger.conditionalWait(stepIdxs[count++ & 3]);
+  }
+}
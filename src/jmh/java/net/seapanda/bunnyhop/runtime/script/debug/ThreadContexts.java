@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.debug;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.seapanda.bunnyhop.runtime.script.ScriptThreadContext;
+
+/**
+ * ベンチマークで {@link BhProgramDebugger} に登録するスレッドコンテキストを作成するクラス.
+ *
+ * @author K.Koike
+ */
+final class ThreadContexts {
+
+  private ThreadContexts() {}
+
+  /**
+   * 現在のスレッドと紐づくスレッドコンテキストを作成する.
+   *
+   * @param callStack コールスタックに格納するシンボルの ID
+   * @param errMsgs エラーメッセージ
+   * @return 変数スタックが空のスレッドコンテキスト
+   */
+  static ScriptThreadContext ofCurrentThread(List<String> callStack, List<String> errMsgs) {
+    List<Object> context = new ArrayList<>(Arrays.asList(
+        new ArrayList<>(callStack), null, new ArrayList<>(errMsgs), new ArrayList<>()));
+    return new ScriptThreadContext(Thread.currentThread().threadId(), context, 0, 1, 2, 3);
+  }
+
+  /**
+   * 現在のスレッドと紐づく, エラーメッセージを持たないスレッドコンテキストを作成する.
+   *
+   * @param callStack コールスタックに格納するシンボルの ID
+   * @return 変数スタックが空のスレッドコンテキスト
+   */
+  static ScriptThreadContext ofCurrentThread(List<String> callStack) {
+    return ofCurrentThread(callStack, List.of());
+  }
+}
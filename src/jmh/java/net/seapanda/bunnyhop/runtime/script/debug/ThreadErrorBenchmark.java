@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.debug;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramNotification;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.RhinoException;
+import org.mozilla.javascript.Scriptable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 例外で終了したスレッドが {@link BhProgramDebugger#notifyThreadEnd(Throwable)} を呼んでから戻るまでの時間を計測する.
+ *
+ * @author K.Koike
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ThreadErrorBenchmark {
+
+  /** 例外が発生するまでの再帰呼び出しの深さ. */
+  @Param({"10", "500"})
+  public int depth;
+
+  private BhProgramDebugger debugger;
+  /** 再帰呼び出しの末端で発生した例外. */
+  private RhinoException error;
+  /** 例外発生時の BhProgram のコールスタック. */
+  private List<String> callStack;
+
+  /** 計測の準備をする.  通知を読み捨てるデバッガと, 深い Java のスタックを持つ例外を作成する. */
+  @Setup
+  public void setup() {
+    debugger = new BhProgramDebugger(new LinkedBlockingQueue<>() {
+      @Override
+      public void put(BhProgramNotification notif) {}
+    }, null);
+    Context cx = Context.enter();
+    try {
+      cx.setInterpretedMode(false);
+      Scriptable scope = cx.initStandardObjects();
+      cx.evaluateString(
+          scope,
+          "function f(n) { if (n == 0) { return null.x; } return f(n - 1); } f(%d);"
+              .formatted(depth),
+          "bench",
+          1,
+          null);
+      throw new IllegalStateException("no error");
+    } catch (RhinoException e) {
+      error = e;
+    } finally {
+      Context.exit();
+    }
+    callStack = IntStream.range(0, depth).mapToObj(i -> "frame-" + i).toList();
+  }
+
+  /** 例外で終了したことを通知する. */
+  @Benchmark
+  public void notifyThreadEnd() {
+    debugger.notifyThreadStart(ThreadContexts.ofCurrentThread(callStack, List.of("error")));
+    debugger.notifyThreadEnd(error);
+  }
+}
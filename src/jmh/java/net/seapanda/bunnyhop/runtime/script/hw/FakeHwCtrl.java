@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.hw;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HW を制御するプログラムの代わりに, 受け取ったコマンドに即座に応答するプログラム.
+ *
+ * <p>{@code <コマンド ID>,<フィールド>,...} 形式のコマンドに対して {@code <コマンド ID>,OK} を返す.
+ * {@code terminate} を受け取ると終了する.
+ *
+ * @author K.Koike
+ */
+public class FakeHwCtrl {
+
+  /** メインメソッド. */
+  public static void main(String[] args) throws IOException {
+    var reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+    var writer = new PrintStream(System.out, false, StandardCharsets.UTF_8);
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.equals("terminate")) {
+        break;
+      }
+      int end = line.indexOf(',');
+      writer.print((end < 0) ? line : line.substring(0, end));
+      writer.print(",OK\n");
+      writer.flush();
+    }
+  }
+}
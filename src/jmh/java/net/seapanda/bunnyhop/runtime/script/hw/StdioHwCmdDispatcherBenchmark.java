@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.hw;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * {@link StdioHwCmdDispatcher} を使って, HW を制御するプログラムとコマンドを往復させる時間を計測する.
+ *
+ * <p>HW を制御するプログラムの代わりに {@link FakeHwCtrl} を別プロセスで起動する.
+ *
+ * @author K.Koike
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StdioHwCmdDispatcherBenchmark {
+
+  /** {@link FakeHwCtrl} とコマンドをやり取りする {@link StdioHwCmdDispatcher} を保持する. */
+  @State(Scope.Benchmark)
+  public static class Dispatcher {
+    private StdioHwCmdDispatcher dispatcher;
+
+    /** {@link FakeHwCtrl} を起動する. */
+    @Setup
+    public void setup() throws Exception {
+      String java = ProcessHandle.current().info().command().orElse("java");
+      dispatcher = new StdioHwCmdDispatcher(
+          java, "-cp", System.getProperty("java.class.path"), FakeHwCtrl.class.getName());
+    }
+
+    /** {@link FakeHwCtrl} を終了させる. */
+    @TearDown
+    public void tearDown() {
+      dispatcher.end();
+    }
+  }
+
+  /** {@link #sequential} と {@link #pipelined} で送信するコマンドを保持する. */
+  @State(Scope.Benchmark)
+  public static class Batch {
+    /** 送信するコマンドの数. */
+    @Param({"4", "16"})
+    public int numCmds;
+
+    private String[][] cmds;
+
+    /** 送信するコマンドを作成する. */
+    @Setup
+    public void setup() {
+      cmds = new String[numCmds][];
+      for (int i = 0; i < numCmds; ++i) {
+        cmds[i] = new String[] {"getTemperature", Integer.toString(i)};
+      }
+    }
+  }
+
+  /** コマンドを送ってレスポンスを待つ. */
+  @Benchmark
+  public List<String> roundTrip(Dispatcher state) throws Exception {
+    return state.dispatcher.sendCmd("getTemperature", "0");
+  }
+
+  /** {@link Batch#numCmds} 個のコマンドを 1 つずつ送ってレスポンスを待つ. */
+  @Benchmark
+  public List<String> sequential(Dispatcher state, Batch batch) throws Exception {
+    List<String> resp = null;
+    for (String[] cmd : batch.cmds) {
+      resp = state.dispatcher.sendCmd(cmd);
+    }
+    return resp;
+  }
+
+  /** {@link Batch#numCmds} 個のコマンドをまとめて送ってから, 全てのレスポンスを待つ. */
+  @Benchmark
+  public List<List<String>> pipelined(Dispatcher state, Batch batch) throws Exception {
+    return state.dispatcher.awaitAll(state.dispatcher.sendCmdsAsync(batch.cmds));
+  }
+}
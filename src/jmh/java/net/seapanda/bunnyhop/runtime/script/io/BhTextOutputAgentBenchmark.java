@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.io;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramNotification;
+import net.seapanda.bunnyhop.bhprogram.common.message.io.OutputTextCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.io.OutputTextResp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * {@link BhTextOutputAgent#print} のスループットを計測する.
+ *
+ * <p>BunnyHop の代わりに, 送信されたコマンドに即座に応答するスレッドを使う.
+ *
+ * @author K.Koike
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BhTextOutputAgentBenchmark {
+
+  /** 1 回の出力で送る文字列の長さ. */
+  @Param({"16", "1024"})
+  public int textLen;
+
+  /** テキストデータの送信方法. */
+  @Param({"SYNCHRONOUS", "BUFFERED", "WINDOWED"})
+  public TextOutputMode mode;
+
+  private BlockingQueue<BhProgramNotification> sendNotifList;
+  private BhTextOutputAgent agent;
+  private Thread consumer;
+  private String text;
+
+  /** 計測の準備をする. */
+  @Setup
+  public void setup() {
+    sendNotifList = new ArrayBlockingQueue<>(1024);
+    agent = new BhTextOutputAgent(sendNotifList, true, mode);
+    text = "a".repeat(textLen);
+    consumer = Thread.ofPlatform().daemon().start(this::respond);
+  }
+
+  /** 計測の後始末をする. */
+  @TearDown
+  public void tearDown() throws InterruptedException {
+    agent.disableTextOutput();
+    consumer.interrupt();
+    consumer.join();
+  }
+
+  /** 文字列を出力する. */
+  @Benchmark
+  public void print() throws Exception {
+    agent.print(text);
+  }
+
+  /** BunnyHop の代わりに, テキスト出力コマンドに応答し続ける. */
+  private void respond() {
+    try {
+      while (true) {
+        if (sendNotifList.take() instanceof OutputTextCmd cmd) {
+          agent.process(new OutputTextResp(cmd.getId(), true, cmd.text));
+        }
+      }
+    } catch (InterruptedException e) { /* Do nothing. */ }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.simulator;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramNotification;
+import net.seapanda.bunnyhop.bhprogram.common.message.simulator.StringBhSimulatorCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.simulator.StringBhSimulatorResp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * {@link BhSimulatorAgent#sendCmd} でコマンドを往復させる時間を計測する.
+ *
+ * <p>BhSimulator の代わりに, 送信されたコマンドに即座に応答するスレッドを使う.
+ *
+ * @author K.Koike
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BhSimulatorAgentBenchmark {
+
+  private static final String[] RESP = {"OK"};
+
+  private BlockingQueue<BhProgramNotification> sendNotifList;
+  private BhSimulatorAgent agent;
+  private Thread consumer;
+
+  /** 計測の準備をする. */
+  @Setup
+  public void setup() {
+    sendNotifList = new ArrayBlockingQueue<>(1024);
+    agent = new BhSimulatorAgent(sendNotifList);
+    consumer = Thread.ofPlatform().daemon().start(this::respond);
+  }
+
+  /** 計測の後始末をする. */
+  @TearDown
+  public void tearDown() throws InterruptedException {
+    consumer.interrupt();
+    consumer.join();
+  }
+
+  /** コマンドを送ってレスポンスを待つ. */
+  @Benchmark
+  public String[] sendCmd() throws Exception {
+    return agent.sendCmd("getDistance");
+  }
+
+  /** BhSimulator の代わりに, コマンドに応答し続ける. */
+  private void respond() {
+    try {
+      while (true) {
+        if (sendNotifList.take() instanceof StringBhSimulatorCmd cmd) {
+          agent.process(new StringBhSimulatorResp(cmd.getId(), true, RESP));
+        }
+      }
+    } catch (InterruptedException e) { /* Do nothing. */ }
+  }
+}
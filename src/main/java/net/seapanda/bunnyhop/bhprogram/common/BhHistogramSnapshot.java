@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common;
+
+import java.io.Serializable;
+
+/**
+ * BhRuntime が記録した時間の分布の, ある時点での値を格納するレコード.
+ *
+ * <p>パーセンタイル値は, 値を 16 分割した対数目盛のバケットから求めた近似値で, 誤差は最大 1/16 程度である.
+ *
+ * @param count 記録した値の数
+ * @param sum 記録した値の合計 (ns)
+ * @param max 記録した値の最大値 (ns)
+ * @param p50 50 パーセンタイル値 (ns)
+ * @param p90 90 パーセンタイル値 (ns)
+ * @param p99 99 パーセンタイル値 (ns)
+ * @param p999 99.9 パーセンタイル値 (ns)
+ */
+public record BhHistogramSnapshot(
+    long count,
+    long sum,
+    long max,
+    long p50,
+    long p90,
+    long p99,
+    long p999) implements Serializable {
+
+  /** 記録した値の平均値 (ns) を返す.  値を記録していない場合は 0. */
+  public double mean() {
+    return (count == 0) ? 0 : (double) sum / count;
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * BhRuntime の動作状況を表す計測値の, ある時点での値を格納するレコード.
+ *
+ * <p>各マップは計測値の名前の順に並ぶ.
+ *
+ * @param timestamp 計測値を取得した時刻 (エポックからのミリ秒)
+ * @param counters 計測値の名前と, 起動してからの累計値のマップ (read-only)
+ * @param gauges 計測値の名前と, 取得した時点での値のマップ (read-only)
+ * @param histograms 計測値の名前と, 起動してから記録した時間の分布のマップ (read-only)
+ */
+public record BhMetricsSnapshot(
+    long timestamp,
+    Map<String, Long> counters,
+    Map<String, Long> gauges,
+    Map<String, BhHistogramSnapshot> histograms) implements Serializable {
+
+  public BhMetricsSnapshot(
+      long timestamp,
+      Map<String, Long> counters,
+      Map<String, Long> gauges,
+      Map<String, BhHistogramSnapshot> histograms) {
+    this.timestamp = timestamp;
+    this.counters = Collections.unmodifiableMap(new TreeMap<>(counters));
+    this.gauges = Collections.unmodifiableMap(new TreeMap<>(gauges));
+    this.histograms = Collections.unmodifiableMap(new TreeMap<>(histograms));
+  }
+}
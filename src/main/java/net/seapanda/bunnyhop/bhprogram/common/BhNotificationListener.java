@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramNotification;
+
+/**
+ * BhRuntime が発行した通知を受け取るリモートオブジェクトが実装するインタフェース.
+ *
+ * <p>BunnyHop 側でこのインタフェースを実装したオブジェクトをエクスポートし,
+ * {@link BhRuntimeFacade#subscribeNotifs} で登録すると, BhRuntime から通知がプッシュされる.
+ *
+ * @author K.Koike
+ */
+public interface BhNotificationListener extends Remote {
+
+  /**
+   * BhRuntime が発行した通知を受け取る.
+   *
+   * @param notifs BhRuntime が発行した順に並んだ通知のリスト
+   */
+  void onNotifsReceived(List<BhProgramNotification> notifs) throws RemoteException;
+}
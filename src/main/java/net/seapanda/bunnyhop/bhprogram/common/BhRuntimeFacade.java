@@ -18,6 +18,7 @@ package net.seapanda.bunnyhop.bhprogram.common;
 
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.util.List;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramNotification;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramResponse;
 
@@ -42,6 +43,15 @@ public interface BhRuntimeFacade extends Remote {
   /** BhRuntime との通信を有効化する. */
   void connect() throws RemoteException;
 
+  /**
+   * BhRuntime との通信を有効化し, バイト列で送受信するメッセージの変換に使うコーデックを決める.
+   *
+   * @param codecNames BunnyHop が対応するコーデックの名前のリスト.  優先度の高い順に並べること.
+   * @return BhRuntime が選んだコーデックの名前.
+   *         {@link #recvEncodedNotifsFromRuntime} などのバイト列を扱うメソッドは, このコーデックを使う.
+   */
+  String connect(List<String> codecNames) throws RemoteException;
+
   /** BunnyHopとの通信状態を取得する. */
   boolean isConnected() throws RemoteException;
 
@@ -74,4 +84,128 @@ public interface BhRuntimeFacade extends Remote {
    * @return 送信に成功した場合 true
    */
   boolean sendRespToRuntime(BhProgramResponse resp) throws RemoteException;
+
+  /**
+   * BhRuntime に複数のメッセージをまとめて送信する.
+   *
+   * @param notifs 送信する通知のリスト. null 不可.
+   * @return 送信に成功した通知の数.  {@code notifs} の先頭からこの数だけ送信された.
+   */
+  int sendNotifsToRuntime(List<BhProgramNotification> notifs) throws RemoteException;
+
+  /**
+   * BhRuntime から複数のメッセージをまとめて受信する.
+   *
+   * <p>受信可能なメッセージが 1 つも無い場合, 最大 {@code waitMs} ミリ秒待つ.
+   * 1 つでもメッセージを受信できた場合は, その時点で受信可能なメッセージを最大 {@code max} 個まで返す.
+   *
+   * @param max 受信するメッセージの最大数
+   * @param waitMs 受信可能なメッセージが無い場合に待つ最大時間 (ms)
+   * @return 受信したメッセージのリスト. 受信可能なメッセージがなかった場合は空のリスト.
+   */
+  List<BhProgramNotification> recvNotifsFromRuntime(int max, long waitMs) throws RemoteException;
+
+  /**
+   * BhRuntime に複数のレスポンスをまとめて送信する.
+   *
+   * @param resps 送信するレスポンスのリスト. null 不可.
+   * @return 送信に成功したレスポンスの数.  {@code resps} の先頭からこの数だけ送信された.
+   */
+  int sendRespsToRuntime(List<BhProgramResponse> resps) throws RemoteException;
+
+  /**
+   * BhRuntime から複数のレスポンスをまとめて受信する.
+   *
+   * <p>受信可能なレスポンスが 1 つも無い場合, 最大 {@code waitMs} ミリ秒待つ.
+   * 1 つでもレスポンスを受信できた場合は, その時点で受信可能なレスポンスを最大 {@code max} 個まで返す.
+   *
+   * @param max 受信するレスポンスの最大数
+   * @param waitMs 受信可能なレスポンスが無い場合に待つ最大時間 (ms)
+   * @return 受信したレスポンスのリスト. 受信可能なレスポンスがなかった場合は空のリスト.
+   */
+  List<BhProgramResponse> recvRespsFromRuntime(int max, long waitMs) throws RemoteException;
+
+  /**
+   * {@link #connect(List)} で決めたコーデックで変換した複数のメッセージを BhRuntime に送信する.
+   *
+   * @param data 送信するメッセージのリストを変換したバイト列
+   * @return 送信に成功したメッセージの数.  変換前のリストの先頭からこの数だけ送信された.
+   *         {@code data} からメッセージを復元できなかった場合は -1 を返し, どのメッセージも送信しない.
+   */
+  int sendEncodedNotifsToRuntime(byte[] data) throws RemoteException;
+
+  /**
+   * BhRuntime から複数のメッセージをまとめて受信し, {@link #connect(List)} で決めたコーデックで変換して返す.
+   *
+   * @param max 受信するメッセージの最大数
+   * @param waitMs 受信可能なメッセージが無い場合に待つ最大時間 (ms)
+   * @return 受信したメッセージのリストを変換したバイト列.  変換に失敗した場合 null.
+   *         変換できないメッセージがあった場合は, それを除いたメッセージを変換して返す.
+   */
+  byte[] recvEncodedNotifsFromRuntime(int max, long waitMs) throws RemoteException;
+
+  /**
+   * {@link #connect(List)} で決めたコーデックで変換した複数のレスポンスを BhRuntime に送信する.
+   *
+   * @param data 送信するレスポンスのリストを変換したバイト列
+   * @return 送信に成功したレスポンスの数.  変換前のリストの先頭からこの数だけ送信された.
+   *         {@code data} からレスポンスを復元できなかった場合は -1 を返し, どのレスポンスも送信しない.
+   */
+  int sendEncodedRespsToRuntime(byte[] data) throws RemoteException;
+
+  /**
+   * BhRuntime から複数のレスポンスをまとめて受信し, {@link #connect(List)} で決めたコーデックで変換して返す.
+   *
+   * @param max 受信するレスポンスの最大数
+   * @param waitMs 受信可能なレスポンスが無い場合に待つ最大時間 (ms)
+   * @return 受信したレスポンスのリストを変換したバイト列.  変換に失敗した場合 null.
+   *         変換できないレスポンスがあった場合は, それを除いたレスポンスを変換して返す.
+   */
+  byte[] recvEncodedRespsFromRuntime(int max, long waitMs) throws RemoteException;
+
+  /**
+   * BhRuntime が発行した通知を {@code listener} にプッシュさせる.
+   *
+   * <p>プッシュされる通知は {@link #recvNotifFromRuntime} 等で受信できなくなるので,
+   * このメソッドの呼び出し後は通知を受信するメソッドを呼ばないこと.
+   * 既に登録済みのリスナがある場合, そのリスナは登録解除される.
+   *
+   * @param listener 通知を受け取るリスナ. null 不可.
+   * @param credit BunnyHop からの補充無しでプッシュ可能な通知の数
+   * @return 登録に成功した場合 true
+   */
+  boolean subscribeNotifs(BhNotificationListener listener, int credit) throws RemoteException;
+
+  /** {@link #subscribeNotifs} で登録したリスナの登録を解除する. */
+  void unsubscribeNotifs() throws RemoteException;
+
+  /**
+   * {@link #subscribeNotifs} で登録したリスナにプッシュ可能な通知の数を増やす.
+   *
+   * @param numNotifs 追加でプッシュを許可する通知の数
+   */
+  void grantNotifCredit(int numNotifs) throws RemoteException;
+
+  /** BhProgram を実行するスクリプトエンジンの現在の設定を取得する. */
+  BhScriptEngineSettings getScriptEngineSettings() throws RemoteException;
+
+  /**
+   * BhProgram を実行するスクリプトエンジンの設定を変更する.
+   *
+   * <p>変更後の設定は, 次に {@link #runScript} で実行する BhProgram から適用される.
+   *
+   * @param settings 新しい設定. null 不可.
+   * @return 設定を変更した場合 true.  {@code settings} が不正な値であった場合 false.
+   */
+  boolean setScriptEngineSettings(BhScriptEngineSettings settings) throws RemoteException;
+
+  /**
+   * BhRuntime の動作状況を表す計測値を取得する.
+   *
+   * <p>メッセージキューの要素数, BunnyHop とのメッセージの送受信にかかった時間, HW 制御プログラムと
+   * シミュレータへのコマンドの応答時間, イベントハンドラの実行開始までの遅延, BhProgram のスレッド数などを含む.
+   *
+   * @return 取得した時点での計測値
+   */
+  BhMetricsSnapshot getMetrics() throws RemoteException;
 }
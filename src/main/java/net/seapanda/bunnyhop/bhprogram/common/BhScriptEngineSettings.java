@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common;
+
+import java.io.Serializable;
+
+/**
+ * BhProgram を実行するスクリプトエンジンの設定.
+ *
+ * @param optimizationLevel 最適化レベル.  -1 の場合はインタプリタモードで実行する.
+ *                          0 以上の場合はスクリプトを JVM のクラスにコンパイルして実行する.
+ * @param languageVersion スクリプトの言語バージョン (例: 200 = ES6)
+ * @param instructionObserverThreshold スクリプトを実行するスレッドが CPU を明け渡す間隔 (命令数).
+ *                                     0 の場合, 明け渡さない.
+ * @author K.Koike
+ */
+public record BhScriptEngineSettings(
+    int optimizationLevel,
+    int languageVersion,
+    int instructionObserverThreshold) implements Serializable {
+
+  /** インタプリタモードを表す最適化レベル. */
+  public static final int INTERPRETED = -1;
+  /** 言語バージョン ES6. */
+  public static final int VERSION_ES6 = 200;
+  /** デフォルトの設定. */
+  public static final BhScriptEngineSettings DEFAULT =
+      new BhScriptEngineSettings(9, VERSION_ES6, 0);
+
+  /** インタプリタモードで実行する場合 true を返す. */
+  public boolean isInterpretedMode() {
+    return optimizationLevel == INTERPRETED;
+  }
+
+  /** 最適化レベルを {@code level} に変更した設定を返す. */
+  public BhScriptEngineSettings withOptimizationLevel(int level) {
+    return new BhScriptEngineSettings(level, languageVersion, instructionObserverThreshold);
+  }
+
+  /** 言語バージョンを {@code version} に変更した設定を返す. */
+  public BhScriptEngineSettings withLanguageVersion(int version) {
+    return new BhScriptEngineSettings(optimizationLevel, version, instructionObserverThreshold);
+  }
+
+  /** 命令数の監視間隔を {@code threshold} に変更した設定を返す. */
+  public BhScriptEngineSettings withInstructionObserverThreshold(int threshold) {
+    return new BhScriptEngineSettings(optimizationLevel, languageVersion, threshold);
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.codec;
+
+import java.io.IOException;
+import java.util.List;
+import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramMessage;
+
+/**
+ * BunnyHop と BhRuntime 間で送受信されるメッセージをバイト列に変換する機能を規定したインタフェース.
+ *
+ * @author K.Koike
+ */
+public interface BhMessageCodec {
+
+  /** このコーデックを識別するための名前を返す. */
+  String name();
+
+  /**
+   * メッセージのリストをバイト列に変換する.
+   *
+   * @param msgs 変換するメッセージのリスト
+   * @return {@code msgs} を変換したバイト列
+   * @throws IOException 変換に失敗した場合
+   */
+  byte[] encode(List<? extends BhProgramMessage> msgs) throws IOException;
+
+  /**
+   * {@link #encode} で作成したバイト列からメッセージのリストを復元する.
+   *
+   * @param data 復元するバイト列
+   * @return {@code data} から復元したメッセージのリスト
+   * @throws IOException 復元に失敗した場合
+   */
+  List<BhProgramMessage> decode(byte[] data) throws IOException;
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.codec;
+
+import java.util.List;
+
+/**
+ * BhRuntime が対応する {@link BhMessageCodec} の一覧を提供するクラス.
+ *
+ * @author K.Koike
+ */
+public class BhMessageCodecs {
+
+  /** 対応するコーデックの一覧.  優先度の高い順に並ぶ. */
+  private static final List<BhMessageCodec> codecs =
+      List.of(new BinaryMessageCodec(), new JavaSerializationCodec());
+
+  /** どのコーデックにも合意できなかった場合に使うコーデック. */
+  public static final BhMessageCodec DEFAULT = codecs.getLast();
+
+  /** 対応するコーデックの名前を優先度の高い順に返す. */
+  public static List<String> names() {
+    return codecs.stream().map(BhMessageCodec::name).toList();
+  }
+
+  /**
+   * 名前が {@code name} のコーデックを返す.
+   *
+   * @return 名前が {@code name} のコーデック.  見つからない場合は null.
+   */
+  public static BhMessageCodec of(String name) {
+    return codecs.stream()
+        .filter(codec -> codec.name().equals(name))
+        .findFirst()
+        .orElse(null);
+  }
+
+  /**
+   * 通信相手が対応するコーデックの中から使用するコーデックを選ぶ.
+   *
+   * @param candidates 通信相手が対応するコーデックの名前のリスト.  優先度の高い順に並べること.
+   * @return {@code candidates} の中で最初に見つかった対応可能なコーデック.
+   *         見つからない場合は {@link #DEFAULT}.
+   */
+  public static BhMessageCodec select(List<String> candidates) {
+    if (candidates == null) {
+      return DEFAULT;
+    }
+    for (String name : candidates) {
+      BhMessageCodec codec = of(name);
+      if (codec != null) {
+        return codec;
+      }
+    }
+    return DEFAULT;
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import net.seapanda.bunnyhop.bhprogram.common.BhSymbolId;
+import net.seapanda.bunnyhop.bhprogram.common.BhThreadState;
+import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramEvent;
+import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramMessage;
+import net.seapanda.bunnyhop.bhprogram.common.message.exception.BhProgramException;
+import net.seapanda.bunnyhop.bhprogram.common.message.io.InputTextCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.io.InputTextResp;
+import net.seapanda.bunnyhop.bhprogram.common.message.io.OutputTextCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.io.OutputTextResp;
+import net.seapanda.bunnyhop.bhprogram.common.message.simulator.StringBhSimulatorCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.simulator.StringBhSimulatorResp;
+import net.seapanda.bunnyhop.bhprogram.common.message.thread.BhCallStackItem;
+import net.seapanda.bunnyhop.bhprogram.common.message.thread.BhThreadContext;
+
+/**
+ * メッセージの種類ごとに定めたバイナリ形式でメッセージを変換するコーデック.
+ *
+ * <p>データ形式
+ * <pre>
+ *   [フォーマットバージョン (1 byte)] [メッセージ数 (varint)] [メッセージ]...
+ *   メッセージ : [タグ (1 byte)] [タグごとに定められたフィールド]...
+ * </pre>
+ * {@link BhSymbolId} やイベント名のように繰り返し現れる文字列は, データ全体で共有する文字列テーブルを使って書き込む.
+ * 専用の形式が定められていないメッセージは, Java 標準のシリアライズ機能で変換したバイト列として埋め込む.
+ *
+ * @author K.Koike
+ */
+public class BinaryMessageCodec implements BhMessageCodec {
+
+  /** このコーデックの名前. */
+  public static final String NAME = "bh-binary-v2";
+  /** データ形式のバージョン. */
+  private static final int FORMAT_VERSION = 2;
+
+  /** メッセージの種類を表すタグ. */
+  private static class Tag {
+    static final int SERIALIZED = 0;
+    static final int OUTPUT_TEXT_CMD = 1;
+    static final int OUTPUT_TEXT_RESP = 2;
+    static final int INPUT_TEXT_CMD = 3;
+    static final int INPUT_TEXT_RESP = 4;
+    static final int PROGRAM_EVENT = 5;
+    static final int STRING_SIMULATOR_CMD = 6;
+    static final int STRING_SIMULATOR_RESP = 7;
+    static final int THREAD_CONTEXT = 8;
+  }
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public byte[] encode(List<? extends BhProgramMessage> msgs) throws IOException {
+    var writer = new BinaryWriter();
+    writer.writeByte(FORMAT_VERSION);
+    writer.writeVarUint(msgs.size());
+    for (BhProgramMessage msg : msgs) {
+      write(writer, msg);
+    }
+    return writer.toByteArray();
+  }
+
+  @Override
+  public List<BhProgramMessage> decode(byte[] data) throws IOException {
+    var reader = new BinaryReader(data);
+    int version = reader.readByte();
+    if (version != FORMAT_VERSION) {
+      throw new IOException("Unsupported format version.  (%s)".formatted(version));
+    }
+    int numMsgs = reader.readCount(1);
+    var msgs = new ArrayList<BhProgramMessage>();
+    for (int i = 0; i < numMsgs; ++i) {
+      msgs.add(read(reader));
+    }
+    if (!reader.isEnd()) {
+      throw new IOException("Extra data found after the last message.");
+    }
+    return msgs;
+  }
+
+  /** {@code msg} を {@code writer} に書き込む. */
+  private static void write(BinaryWriter writer, BhProgramMessage msg) throws IOException {
+    switch (msg) {
+      case OutputTextCmd cmd -> {
+        writer.writeByte(Tag.OUTPUT_TEXT_CMD);
+        writer.writeVarLong(cmd.getId());
+        writer.writeStr(cmd.text);
+      }
+      case OutputTextResp resp -> {
+        writer.writeByte(Tag.OUTPUT_TEXT_RESP);
+        writer.writeVarLong(resp.getId());
+        writer.writeBool(resp.success);
+        writer.writeStr(resp.text);
+      }
+      case InputTextCmd cmd -> {
+        writer.writeByte(Tag.INPUT_TEXT_CMD);
+        writer.writeVarLong(cmd.getId());
+        writer.writeStr(cmd.text);
+      }
+      case InputTextResp resp -> {
+        writer.writeByte(Tag.INPUT_TEXT_RESP);
+        writer.writeVarLong(resp.getId());
+        writer.writeBool(resp.success);
+        writer.writeStr(resp.text);
+      }
+      case BhProgramEvent event -> {
+        writer.writeByte(Tag.PROGRAM_EVENT);
+        writer.writeVarLong(event.getId());
+        writer.writeTableStr(event.name.name());
+        writer.writeTableStr(event.eventHandlerResolver);
+      }
+      case StringBhSimulatorCmd cmd -> {
+        writer.writeByte(Tag.STRING_SIMULATOR_CMD);
+        writer.writeVarLong(cmd.getId());
+        writeStrArray(writer, cmd.getComponents());
+      }
+      case StringBhSimulatorResp resp -> {
+        writer.writeByte(Tag.STRING_SIMULATOR_RESP);
+        writer.writeVarLong(resp.getId());
+        writer.writeBool(resp.isSuccessful());
+        writeStrArray(writer, resp.getComponents());
+      }
+      case BhThreadContext context -> {
+        writer.writeByte(Tag.THREAD_CONTEXT);
+        writeThreadContext(writer, context);
+      }
+      default -> {
+        writer.writeByte(Tag.SERIALIZED);
+        writer.writeBytes(serialize(msg));
+      }
+    }
+  }
+
+  /** {@code reader} からメッセージを 1 つ読み出す. */
+  private static BhProgramMessage read(BinaryReader reader) throws IOException {
+    int tag = reader.readByte();
+    return switch (tag) {
+      case Tag.OUTPUT_TEXT_CMD -> new OutputTextCmd(reader.readVarLong(), reader.readStr());
+      case Tag.OUTPUT_TEXT_RESP ->
+          new OutputTextResp(reader.readVarLong(), reader.readBool(), reader.readStr());
+      case Tag.INPUT_TEXT_CMD -> new InputTextCmd(reader.readVarLong(), reader.readStr());
+      case Tag.INPUT_TEXT_RESP ->
+          new InputTextResp(reader.readVarLong(), reader.readBool(), reader.readStr());
+      case Tag.PROGRAM_EVENT -> readEvent(reader);
+      case Tag.STRING_SIMULATOR_CMD ->
+          new StringBhSimulatorCmd(reader.readVarLong(), readStrArray(reader));
+      case Tag.STRING_SIMULATOR_RESP ->
+          new StringBhSimulatorResp(reader.readVarLong(), reader.readBool(), readStrArray(reader));
+      case Tag.THREAD_CONTEXT -> readThreadContext(reader);
+      case Tag.SERIALIZED -> deserialize(reader.readBytes(), BhProgramMessage.class);
+      default -> throw new IOException("Unknown message tag.  (%s)".formatted(tag));
+    };
+  }
+
+  private static BhProgramEvent readEvent(BinaryReader reader) throws IOException {
+    long id = reader.readVarLong();
+    String name = reader.readTableStr();
+    String resolver = reader.readTableStr();
+    try {
+      return new BhProgramEvent(id, BhProgramEvent.Name.valueOf(name), resolver);
+    } catch (IllegalArgumentException | NullPointerException e) {
+      throw new IOException("Unknown event name.  (%s)".formatted(name));
+    }
+  }
+
+  private static void writeThreadContext(BinaryWriter writer, BhThreadContext context)
+      throws IOException {
+    writer.writeVarLong(context.getId());
+    writer.writeVarLong(context.getThreadId());
+    writer.writeVarUint(context.getState().ordinal());
+    writer.writeVarLong(context.getVersion());
+    writer.writeVarLong(context.getBaseVersion());
+    writer.writeVarUint(context.getNumKeptFrames());
+    var callStack = context.getCallStack();
+    writer.writeVarUint(callStack.size());
+    for (BhCallStackItem item : callStack) {
+      writer.writeVarUint(item.frameIdx());
+      writer.writeTableStr(item.symbolId().toString());
+    }
+    writer.writeTableStr(context.getNextStep().toString());
+    writer.writeTableStr(context.getErrorStep().toString());
+    BhProgramException exception = context.getException();
+    writer.writeBool(exception != null);
+    if (exception != null) {
+      writer.writeBytes(serialize(exception));
+    }
+  }
+
+  private static BhThreadContext readThreadContext(BinaryReader reader) throws IOException {
+    long msgId = reader.readVarLong();
+    long threadId = reader.readVarLong();
+    BhThreadState[] states = BhThreadState.values();
+    int stateIdx = reader.readVarInt();
+    if (stateIdx >= states.length) {
+      throw new IOException("Unknown thread state.  (%s)".formatted(stateIdx));
+    }
+    long version = reader.readVarLong();
+    long baseVersion = reader.readVarLong();
+    int numKeptFrames = reader.readVarInt();
+    // フレームは少なくともフレームインデックスとシンボル ID のそれぞれに 1 バイトを使う.
+    int numFrames = reader.readCount(2);
+    var callStack = new ArrayList<BhCallStackItem>(numFrames);
+    for (int i = 0; i < numFrames; ++i) {
+      int frameIdx = reader.readVarInt();
+      callStack.add(new BhCallStackItem(frameIdx, BhSymbolId.of(reader.readTableStr())));
+    }
+    BhSymbolId nextStep = BhSymbolId.of(reader.readTableStr());
+    BhSymbolId errorStep = BhSymbolId.of(reader.readTableStr());
+    BhProgramException exception = null;
+    if (reader.readBool()) {
+      exception = deserialize(reader.readBytes(), BhProgramException.class);
+    }
+    return new BhThreadContext(
+        msgId, threadId, states[stateIdx], callStack, nextStep, errorStep, exception,
+        version, baseVersion, numKeptFrames);
+  }
+
+  private static void writeStrArray(BinaryWriter writer, String[] strs) {
+    writer.writeVarUint(strs.length);
+    for (String str : strs) {
+      writer.writeStr(str);
+    }
+  }
+
+  private static String[] readStrArray(BinaryReader reader) throws IOException {
+    int len = reader.readCount(1);
+    var strs = new ArrayList<String>(len);
+    for (int i = 0; i < len; ++i) {
+      strs.add(reader.readStr());
+    }
+    return strs.toArray(new String[0]);
+  }
+
+  /** {@code obj} を Java 標準のシリアライズ機能でバイト列に変換する. */
+  private static byte[] serialize(Serializable obj) throws IOException {
+    var bos = new ByteArrayOutputStream();
+    try (var oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(obj);
+    }
+    return bos.toByteArray();
+  }
+
+  /** {@link #serialize} で変換したバイト列から {@code type} 型のオブジェクトを復元する. */
+  private static <T> T deserialize(byte[] data, Class<T> type) throws IOException {
+    try (var ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+      return type.cast(ois.readObject());
+    } catch (ClassNotFoundException | ClassCastException e) {
+      throw new IOException(e);
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.codec;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link BinaryWriter} で書き込んだバイト列を読み出すクラス.
+ *
+ * @author K.Koike
+ */
+class BinaryReader {
+
+  private final byte[] data;
+  private int pos = 0;
+  /** 文字列テーブル.  読み出した順に文字列を格納する. */
+  private final List<String> strTable = new ArrayList<>();
+
+  BinaryReader(byte[] data) {
+    this.data = data;
+  }
+
+  /** 1 バイト読み出す. */
+  int readByte() throws IOException {
+    if (pos >= data.length) {
+      throw new IOException("Unexpected end of data.");
+    }
+    return data[pos++] & 0xFF;
+  }
+
+  /** 真偽値を読み出す. */
+  boolean readBool() throws IOException {
+    return readByte() != 0;
+  }
+
+  /** 可変長の符号なし整数を読み出す. */
+  long readVarUint() throws IOException {
+    long val = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = readByte();
+      val |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return val;
+      }
+    }
+    throw new IOException("Malformed variable-length integer.");
+  }
+
+  /** 可変長の符号付き整数を読み出す. */
+  long readVarLong() throws IOException {
+    long val = readVarUint();
+    return (val >>> 1) ^ -(val & 1);
+  }
+
+  /** 可変長の符号なし整数を int の範囲で読み出す. */
+  int readVarInt() throws IOException {
+    long val = readVarUint();
+    if (val > Integer.MAX_VALUE) {
+      throw new IOException("Too large value.  (%s)".formatted(val));
+    }
+    return (int) val;
+  }
+
+  /**
+   * 後に続く要素の数を読み出す.
+   *
+   * @param minItemSize 1 つの要素が占める最小のバイト数
+   * @throws IOException 読み出した数の要素が残りのデータに収まらない場合
+   */
+  int readCount(int minItemSize) throws IOException {
+    int count = readVarInt();
+    if ((long) count * minItemSize > data.length - pos) {
+      throw new IOException("Too many items.  (%s)".formatted(count));
+    }
+    return count;
+  }
+
+  /** 長さ付きのバイト列を読み出す. */
+  byte[] readBytes() throws IOException {
+    int len = readVarInt();
+    return Arrays.copyOfRange(data, pos, advance(len));
+  }
+
+  /** 文字列を読み出す. */
+  String readStr() throws IOException {
+    long len = readVarUint();
+    if (len == 0) {
+      return null;
+    }
+    if (len - 1 > Integer.MAX_VALUE) {
+      throw new IOException("Too long string.  (%s)".formatted(len - 1));
+    }
+    int start = pos;
+    return new String(data, start, advance((int) (len - 1)) - start, StandardCharsets.UTF_8);
+  }
+
+  /** 文字列テーブルを使って書き込まれた文字列を読み出す. */
+  String readTableStr() throws IOException {
+    long idx = readVarUint();
+    if (idx == 0) {
+      String str = readStr();
+      strTable.add(str);
+      return str;
+    }
+    if (idx > strTable.size()) {
+      throw new IOException("Invalid string table index.  (%s)".formatted(idx));
+    }
+    return strTable.get((int) (idx - 1));
+  }
+
+  /** 全てのデータを読み出した場合 true を返す. */
+  boolean isEnd() {
+    return pos >= data.length;
+  }
+
+  /** 読み出し位置を {@code len} バイト進めて, 進めた後の位置を返す. */
+  private int advance(int len) throws IOException {
+    if (len < 0 || data.length - pos < len) {
+      throw new IOException("Unexpected end of data.");
+    }
+    pos += len;
+    return pos;
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link BinaryMessageCodec} のデータ形式でバイト列を書き込むクラス.
+ *
+ * <p>整数は可変長 (zigzag + LEB128) で, 文字列は UTF-8 のバイト数を前置して書き込む.
+ * 文字列テーブルに登録する文字列は, 2 回目以降の書き込みでテーブルのインデックスのみを書き込む.
+ *
+ * @author K.Koike
+ */
+class BinaryWriter {
+
+  private final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+  /** 文字列テーブル.  文字列とそのインデックスのマップ. */
+  private final Map<String, Integer> strTable = new HashMap<>();
+
+  /** 1 バイト書き込む. */
+  void writeByte(int val) {
+    bos.write(val);
+  }
+
+  /** 真偽値を書き込む. */
+  void writeBool(boolean val) {
+    bos.write(val ? 1 : 0);
+  }
+
+  /** 符号なし整数を可変長で書き込む. */
+  void writeVarUint(long val) {
+    while ((val & ~0x7FL) != 0) {
+      bos.write((int) ((val & 0x7F) | 0x80));
+      val >>>= 7;
+    }
+    bos.write((int) val);
+  }
+
+  /** 符号付き整数を可変長で書き込む. */
+  void writeVarLong(long val) {
+    writeVarUint((val << 1) ^ (val >> 63));
+  }
+
+  /** バイト列をその長さと共に書き込む. */
+  void writeBytes(byte[] bytes) {
+    writeVarUint(bytes.length);
+    bos.write(bytes, 0, bytes.length);
+  }
+
+  /** 文字列を書き込む.  null も書き込める. */
+  void writeStr(String str) {
+    if (str == null) {
+      writeVarUint(0);
+      return;
+    }
+    byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+    writeVarUint(bytes.length + 1L);
+    bos.write(bytes, 0, bytes.length);
+  }
+
+  /**
+   * 文字列テーブルを使って文字列を書き込む.
+   *
+   * <p>テーブルに登録済みの文字列は (インデックス + 1) を, 未登録の文字列は 0 と文字列本体を書き込む.
+   */
+  void writeTableStr(String str) {
+    Integer idx = strTable.get(str);
+    if (idx != null) {
+      writeVarUint(idx + 1L);
+      return;
+    }
+    strTable.put(str, strTable.size());
+    writeVarUint(0);
+    writeStr(str);
+  }
+
+  /** 書き込んだデータをバイト列として返す. */
+  byte[] toByteArray() {
+    return bos.toByteArray();
+  }
+}
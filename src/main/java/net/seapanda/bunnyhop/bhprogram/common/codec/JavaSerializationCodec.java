@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramMessage;
+
+/**
+ * Java 標準のシリアライズ機能でメッセージを変換するコーデック.
+ *
+ * @author K.Koike
+ */
+public class JavaSerializationCodec implements BhMessageCodec {
+
+  /** このコーデックの名前. */
+  public static final String NAME = "java-serialization";
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public byte[] encode(List<? extends BhProgramMessage> msgs) throws IOException {
+    var bos = new ByteArrayOutputStream();
+    try (var oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(new ArrayList<>(msgs));
+    }
+    return bos.toByteArray();
+  }
+
+  @Override
+  public List<BhProgramMessage> decode(byte[] data) throws IOException {
+    try (var ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+      var msgs = new ArrayList<BhProgramMessage>();
+      for (Object obj : (List<?>) ois.readObject()) {
+        msgs.add((BhProgramMessage) obj);
+      }
+      return msgs;
+    } catch (ClassNotFoundException | ClassCastException e) {
+      throw new IOException(e);
+    }
+  }
+}
@@ -37,6 +37,19 @@ public class BhProgramEvent implements BhProgramNotification {
     id = genId();
   }
 
+  /**
+   * コンストラクタ.
+   *
+   * @param id このイベントの ID.  受信したイベントを復元する場合に, 送信元で割り当てられた ID を指定する.
+   * @param name イベント名
+   * @param eventHandlerResolver {@code name} に指定したイベントから呼び出すべき BhProgram の関数を解決する関数の名前.
+   */
+  public BhProgramEvent(long id, Name name, String eventHandlerResolver) {
+    this.name = name;
+    this.eventHandlerResolver = eventHandlerResolver;
+    this.id = id;
+  }
+
   @Override
   public long getId() {
     return id;
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.debug;
+
+/**
+ * スレッドコンテキストの受領をデバッガに通知するコマンド.
+ *
+ * <p>受領を通知したスレッドコンテキストは, 以降に送られるスレッドコンテキストの差分のベースとなる.
+ *
+ * @author K.Koike
+ */
+public class AckThreadContextCmd extends BhDebugCmd {
+
+  /** 受領したスレッドコンテキストに対応するスレッドの ID. */
+  public final long threadId;
+  /** 受領したスレッドコンテキストのバージョン番号. */
+  public final long version;
+
+  /**
+   * コンストラクタ.
+   *
+   * @param threadId 受領したスレッドコンテキストに対応するスレッドの ID
+   * @param version 受領したスレッドコンテキストのバージョン番号
+   */
+  public AckThreadContextCmd(long threadId, long version) {
+    this.threadId = threadId;
+    this.version = version;
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.debug;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * デバッガに停止条件などを伴うブレークポイントを追加するコマンド.
+ *
+ * <p>既に同じ ID のブレークポイントが存在する場合は置き換える.
+ *
+ * @author K.Koike
+ */
+public class AddBreakpointDescriptorsCmd extends BhDebugCmd {
+
+  /** デバッガに追加するブレークポイントの一覧. (read-only) */
+  public final Collection<BhBreakpoint> breakpoints;
+
+  /**
+   * コンストラクタ.
+   *
+   * @param breakpoints デバッガに追加するブレークポイントの一覧
+   */
+  public AddBreakpointDescriptorsCmd(Collection<BhBreakpoint> breakpoints) {
+    this.breakpoints = Collections.unmodifiableCollection(new ArrayList<>(breakpoints));
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.debug;
+
+import java.io.Serializable;
+import net.seapanda.bunnyhop.bhprogram.common.BhSymbolId;
+
+/**
+ * 停止条件や出力するメッセージを伴うブレークポイントを表すレコード.
+ *
+ * <p>条件式とメッセージ中の式は JavaScript の式で, 停止位置のローカル変数とグローバル変数をシンボル ID で参照できる.
+ * シンボル ID が識別子として使えない場合は {@code $['シンボル ID']} の形式で参照する.
+ *
+ * @param id ブレークポイントを設定する処理のシンボル ID
+ * @param condition この式が真となる場合だけ停止する.  null の場合は常に真とみなす.
+ * @param hitCount 条件を満たした回数がこの値に達して以降停止する.  0 以下の場合は回数を問わない.
+ * @param logMessage null でない場合, 停止する代わりにこのメッセージを通知する (ログポイント).
+ *                   {@code {式}} の部分は式を評価した結果で置き換える.  {@code {{} は {@code {} になる.
+ */
+public record BhBreakpoint(
+    BhSymbolId id, String condition, long hitCount, String logMessage) implements Serializable {
+
+  /** 条件付きブレークポイントを作成する. */
+  public static BhBreakpoint conditional(BhSymbolId id, String condition) {
+    return new BhBreakpoint(id, condition, 0, null);
+  }
+
+  /** 条件を満たした回数が {@code hitCount} に達して以降停止するブレークポイントを作成する. */
+  public static BhBreakpoint hitCount(BhSymbolId id, long hitCount) {
+    return new BhBreakpoint(id, null, hitCount, null);
+  }
+
+  /** 停止せずにメッセージを通知するログポイントを作成する. */
+  public static BhBreakpoint logpoint(BhSymbolId id, String logMessage) {
+    return new BhBreakpoint(id, null, 0, logMessage);
+  }
+}
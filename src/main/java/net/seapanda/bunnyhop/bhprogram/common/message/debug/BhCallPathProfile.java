@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.debug;
+
+import java.io.Serializable;
+import java.util.List;
+import net.seapanda.bunnyhop.bhprogram.common.BhSymbolId;
+
+/**
+ * 1 つのコールスタックのプロファイル結果を格納するレコード.
+ *
+ * @param callStack 関数呼び出しに対応するシンボル ID のリスト (read-only).  先頭が最も外側の呼び出し.
+ * @param hits このコールスタックで処理が実行された回数
+ * @param nanos このコールスタックで実行された処理にかかった時間の合計 (ns)
+ */
+public record BhCallPathProfile(
+    List<BhSymbolId> callStack, long hits, long nanos) implements Serializable {
+
+  public BhCallPathProfile(List<BhSymbolId> callStack, long hits, long nanos) {
+    this.callStack = List.copyOf(callStack);
+    this.hits = hits;
+    this.nanos = nanos;
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.debug;
+
+import net.seapanda.bunnyhop.bhprogram.common.BhSymbolId;
+import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramNotification;
+
+/**
+ * ログポイントに到達したスレッドが出力したメッセージを BunnyHop に通知するクラス.
+ *
+ * @author K.Koike
+ */
+public final class BhLogpointMessage implements BhProgramNotification {
+
+  private final long msgId;
+  /** ログポイントに到達したスレッドの ID. */
+  public final long threadId;
+  /** ログポイントのシンボル ID. */
+  public final BhSymbolId breakpointId;
+  /** 出力されたメッセージ. */
+  public final String text;
+
+  /**
+   * コンストラクタ.
+   *
+   * @param threadId ログポイントに到達したスレッドの ID
+   * @param breakpointId ログポイントのシンボル ID
+   * @param text 出力されたメッセージ
+   */
+  public BhLogpointMessage(long threadId, BhSymbolId breakpointId, String text) {
+    this.threadId = threadId;
+    this.breakpointId = breakpointId;
+    this.text = text;
+    this.msgId = genId();
+  }
+
+  @Override
+  public long getId() {
+    return msgId;
+  }
+}
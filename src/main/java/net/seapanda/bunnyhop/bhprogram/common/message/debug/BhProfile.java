@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.debug;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.SequencedCollection;
+
+/**
+ * プロファイラが集計した結果を格納するレコード.
+ *
+ * <p>各スレッドの計測結果は一定のステップ数ごとに集計されるので, 直近の数ステップ分は含まれないことがある.
+ *
+ * @param clock 時間の計測に使った時計
+ * @param elapsedNanos プロファイルを開始してから, 停止するか結果を取得するまでの経過時間 (ns)
+ * @param running プロファイルを継続中の場合 true
+ * @param steps 処理ごとの結果 (read-only).  時間の長い順に並ぶ.
+ * @param callPaths コールスタックごとの結果 (read-only).  時間の長い順に並ぶ.
+ * @param truncated 集計するコールスタックの数や取得する結果の数の上限に達したため, 一部の結果を省いた場合 true
+ */
+public record BhProfile(
+    BhProfileClock clock,
+    long elapsedNanos,
+    boolean running,
+    SequencedCollection<BhStepProfile> steps,
+    SequencedCollection<BhCallPathProfile> callPaths,
+    boolean truncated) implements Serializable {
+
+  public BhProfile(
+      BhProfileClock clock,
+      long elapsedNanos,
+      boolean running,
+      SequencedCollection<BhStepProfile> steps,
+      SequencedCollection<BhCallPathProfile> callPaths,
+      boolean truncated) {
+    this.clock = clock;
+    this.elapsedNanos = elapsedNanos;
+    this.running = running;
+    this.steps = Collections.unmodifiableList(new ArrayList<>(steps));
+    this.callPaths = Collections.unmodifiableList(new ArrayList<>(callPaths));
+    this.truncated = truncated;
+  }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.debug;
+
+/** プロファイラが処理ごとの実行時間を計測するのに使う時計. */
+public enum BhProfileClock {
+
+  /** 経過時間.  スレッドが待機している時間を含み, デバッガによって一時停止している時間は含まない. */
+  WALL,
+  /** スレッドの CPU 時間. */
+  CPU,
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.debug;
+
+import java.io.Serializable;
+import net.seapanda.bunnyhop.bhprogram.common.BhSymbolId;
+
+/**
+ * 1 つの処理のプロファイル結果を格納するレコード.
+ *
+ * @param stepId 処理のシンボル ID
+ * @param hits 処理が実行された回数
+ * @param nanos 処理の開始から次の処理の開始までの時間の合計 (ns)
+ */
+public record BhStepProfile(BhSymbolId stepId, long hits, long nanos) implements Serializable {}
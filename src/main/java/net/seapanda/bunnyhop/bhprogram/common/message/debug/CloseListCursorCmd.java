@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.debug;
+
+/**
+ * {@link OpenListCursorCmd} で作成したカーソルを破棄するコマンド.
+ *
+ * <p>最後のページまで取得したカーソルは自動で破棄されるので, このコマンドを送る必要はない.
+ *
+ * @author K.Koike
+ */
+public class CloseListCursorCmd extends BhDebugCmd {
+
+  /** 破棄するカーソル. */
+  public final String cursor;
+
+  /** コンストラクタ. */
+  public CloseListCursorCmd(String cursor) {
+    this.cursor = cursor;
+  }
+}
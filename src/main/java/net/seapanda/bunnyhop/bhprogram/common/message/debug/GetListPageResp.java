@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.debug;
+
+import net.seapanda.bunnyhop.bhprogram.common.message.variable.BhListPage;
+
+/**
+ * {@link net.seapanda.bunnyhop.bhprogram.common.message.debug.GetListPageCmd} のレスポンス.
+ *
+ * @author K.Koike
+ */
+public class GetListPageResp extends BhDebugResp {
+
+  /** 取得したリストの値.  コマンドの実行に失敗した場合は null. */
+  public final BhListPage page;
+
+  /**
+   * コンストラクタ.  (コマンドの実行に成功したとき)
+   *
+   * @param id 実行したコマンドの ID
+   * @param page 取得したリストの値
+   */
+  public GetListPageResp(long id, BhListPage page) {
+    this(id, true, page, null);
+  }
+
+  /**
+   * コンストラクタ.  (コマンドの実行に失敗したとき)
+   *
+   * @param id 実行したコマンドの ID
+   * @param exception コマンドの実行中に発生した例外
+   */
+  public GetListPageResp(long id, Exception exception) {
+    this(id, false, null, exception);
+  }
+
+  private GetListPageResp(long id, boolean success, BhListPage page, Exception exception) {
+    super(id, success, exception);
+    this.page = page;
+  }
+}
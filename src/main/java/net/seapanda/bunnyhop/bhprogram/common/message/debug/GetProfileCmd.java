@@ -0,0 +1,33 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.debug;
+
+/**
+ * プロファイラが集計した結果を取得するコマンド.
+ *
+ * @author K.Koike
+ */
+public class GetProfileCmd extends BhDebugCmd {
+
+  /** 処理ごとの結果とコールスタックごとの結果の各々について, 取得する結果の最大数. */
+  public final int maxEntries;
+
+  /** コンストラクタ. */
+  public GetProfileCmd(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+}
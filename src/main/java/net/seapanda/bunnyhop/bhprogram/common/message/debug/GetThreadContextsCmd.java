@@ -22,6 +22,24 @@ package net.seapanda.bunnyhop.bhprogram.common.message.debug;
  * @author K.Koike
  */
 public class GetThreadContextsCmd extends BhDebugCmd {
-  
-  public GetThreadContextsCmd() {}
+
+  /**
+   * true の場合, 受領済みのスレッドコンテキストとの差分ではなく, 完全なスレッドコンテキストを送らせる.
+   * 以降の差分のベースも破棄される.
+   */
+  public final boolean fullSync;
+
+  /** コンストラクタ. */
+  public GetThreadContextsCmd() {
+    this(false);
+  }
+
+  /**
+   * コンストラクタ.
+   *
+   * @param fullSync 完全なスレッドコンテキストを送らせる場合 true
+   */
+  public GetThreadContextsCmd(boolean fullSync) {
+    this.fullSync = fullSync;
+  }
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.debug;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 一時停止中のスレッドの複数のスタックフレームとグローバル変数の情報をまとめて取得するコマンド.
+ *
+ * <p>コマンドの詳細.<br><br>
+ * {@link #threadId} で指定されたスレッドが持つ変数スタックの {@link #frameIdxs} 番目のスタックフレームに
+ * 存在する変数の情報を取得する.  {@link #frameIdxs} が空の場合は, 最も新しいスタックフレームから順に
+ * {@link #maxFrames} 個のスタックフレームを対象とする.  {@link #frameIdxs} の要素が {@link #maxFrames} 個を
+ * 超える場合は, 先頭から {@link #maxFrames} 個のスタックフレームを対象とする.
+ * {@link #includeGlobals} が true の場合はグローバル変数の情報も取得する.
+ * リスト変数は, 先頭から {@link #listPreviewLength} 個の要素の値も取得する.
+ * ただし, 1 ページで取得できる要素数を超える分は取得しない.
+ * 取得する変数の数が {@link #maxVars} に達した時点で, 残りの変数の情報は省かれる.
+ *
+ * @author K.Koike
+ */
+public class InspectThreadCmd extends BhDebugCmd {
+
+  public final long threadId;
+  /** 情報を取得するスタックフレームのインデックス一覧 (read-only). */
+  public final List<Integer> frameIdxs;
+  /** 情報を取得するスタックフレームの数の上限. */
+  public final int maxFrames;
+  /** グローバル変数の情報も取得する場合 true. */
+  public final boolean includeGlobals;
+  /** リスト変数の値を先頭から取得する要素数. */
+  public final int listPreviewLength;
+  /** 情報を取得する変数の数の上限. */
+  public final int maxVars;
+
+  /**
+   * コンストラクタ.
+   *
+   * @param threadId 情報を取得するスレッドの ID
+   * @param frameIdxs 情報を取得するスタックフレームのインデックス一覧
+   * @param maxFrames 情報を取得するスタックフレームの数の上限
+   * @param includeGlobals グローバル変数の情報も取得する場合 true
+   * @param listPreviewLength リスト変数の値を先頭から取得する要素数
+   * @param maxVars 情報を取得する変数の数の上限
+   */
+  public InspectThreadCmd(
+      long threadId,
+      Collection<Integer> frameIdxs,
+      int maxFrames,
+      boolean includeGlobals,
+      int listPreviewLength,
+      int maxVars) {
+    this.threadId = threadId;
+    this.frameIdxs = List.copyOf(frameIdxs);
+    this.maxFrames = maxFrames;
+    this.includeGlobals = includeGlobals;
+    this.listPreviewLength = listPreviewLength;
+    this.maxVars = maxVars;
+  }
+}
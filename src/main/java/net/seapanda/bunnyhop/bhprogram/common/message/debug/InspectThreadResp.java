@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.debug;
+
+import net.seapanda.bunnyhop.bhprogram.common.message.thread.BhThreadInspection;
+
+/**
+ * {@link net.seapanda.bunnyhop.bhprogram.common.message.debug.InspectThreadCmd} のレスポンス.
+ *
+ * @author K.Koike
+ */
+public class InspectThreadResp extends BhDebugResp {
+
+  /** コマンドの処理結果.  コマンドの実行に失敗した場合は null. */
+  public final BhThreadInspection result;
+
+  /**
+   * コンストラクタ.  (コマンドの実行に成功したとき)
+   *
+   * @param id 実行したコマンドの ID
+   * @param result コマンドの処理結果
+   */
+  public InspectThreadResp(long id, BhThreadInspection result) {
+    this(id, true, result, null);
+  }
+
+  /**
+   * コンストラクタ.  (コマンドの実行に失敗したとき)
+   *
+   * @param id 実行したコマンドの ID
+   * @param exception コマンドの実行中に発生した例外
+   */
+  public InspectThreadResp(long id, Exception exception) {
+    this(id, false, null, exception);
+  }
+
+  private InspectThreadResp(
+      long id, boolean success, BhThreadInspection result, Exception exception) {
+    super(id, success, exception);
+    this.result = result;
+  }
+}
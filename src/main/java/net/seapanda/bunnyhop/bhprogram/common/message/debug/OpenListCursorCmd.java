@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.debug;
+
+import net.seapanda.bunnyhop.bhprogram.common.BhSymbolId;
+
+/**
+ * リストの値をページ単位で取得するためのカーソルを作成し, 最初のページを取得するコマンド.
+ *
+ * <p>コマンドの詳細.<br><br>
+ * {@link #threadId} が {@link #GLOBAL} の場合はグローバル変数の中から, それ以外の場合は
+ * {@link #threadId} で指定されたスレッドが持つ変数スタックの {@link #frameIdx} 番目の
+ * スタックフレームの中から, シンボル ID が {@link #varId} に一致するリストを探す.
+ * {@link #snapshot} が true の場合, カーソルの作成時にリストの要素をコピーし,
+ * 以降のページはコピーから取得する.
+ *
+ * @author K.Koike
+ */
+public class OpenListCursorCmd extends BhDebugCmd {
+
+  /** {@link #threadId} がこの値である場合, グローバル変数が対象であることを表す. */
+  public static final long GLOBAL = -1;
+
+  public final long threadId;
+  public final int frameIdx;
+  public final BhSymbolId varId;
+  /** 1 ページあたりの要素数. */
+  public final int pageSize;
+  /** カーソルの作成時にリストの要素をコピーする場合 true. */
+  public final boolean snapshot;
+
+  /** コンストラクタ.  (ローカル変数のリストを対象とするとき) */
+  public OpenListCursorCmd(
+      long threadId, int frameIdx, BhSymbolId varId, int pageSize, boolean snapshot) {
+    this.threadId = threadId;
+    this.frameIdx = frameIdx;
+    this.varId = varId;
+    this.pageSize = pageSize;
+    this.snapshot = snapshot;
+  }
+
+  /** コンストラクタ.  (グローバル変数のリストを対象とするとき) */
+  public OpenListCursorCmd(BhSymbolId varId, int pageSize, boolean snapshot) {
+    this(GLOBAL, 0, varId, pageSize, snapshot);
+  }
+}
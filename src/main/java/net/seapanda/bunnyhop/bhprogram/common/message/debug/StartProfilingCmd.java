@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.debug;
+
+/**
+ * BhProgram の処理ごとの実行回数と実行時間の計測を開始するコマンド.
+ *
+ * <p>計測中にこのコマンドを送った場合, それまでの結果を破棄して計測をやり直す.
+ *
+ * @author K.Koike
+ */
+public class StartProfilingCmd extends BhDebugCmd {
+
+  /** 実行時間の計測に使う時計. */
+  public final BhProfileClock clock;
+
+  /** コンストラクタ. */
+  public StartProfilingCmd(BhProfileClock clock) {
+    this.clock = clock;
+  }
+}
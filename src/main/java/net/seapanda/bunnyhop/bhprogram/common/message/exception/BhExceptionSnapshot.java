@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.exception;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.SequencedCollection;
+import java.util.Set;
+import net.seapanda.bunnyhop.bhprogram.common.message.thread.BhCallStackItem;
+
+/**
+ * 任意の例外から必要な情報だけを取り出して保持する, 常にシリアライズ可能な例外.
+ *
+ * <p>元の例外のクラス名, メッセージ, スタックトレース, 原因となった例外の連鎖と, 例外発生時の BhProgram のコールスタックを保持する.
+ * 元の例外の大きさに関わらず作成とシリアライズにかかる時間が一定の範囲に収まるように,
+ * それぞれの情報は上限を超えた分を切り捨てる.
+ *
+ * @author K.Koike
+ */
+public class BhExceptionSnapshot extends RuntimeException {
+
+  /** スタックトレースと BhProgram のコールスタックの各々で保持するフレームの最大数. */
+  public static final int MAX_STACK_DEPTH = 64;
+  /** 保持する原因の例外の最大数. */
+  public static final int MAX_CAUSE_DEPTH = 8;
+  /** 保持する例外メッセージの最大文字数. */
+  public static final int MAX_MESSAGE_LENGTH = 4096;
+
+  /** 元の例外のクラス名. */
+  private final String className;
+  /** 元の例外のスタックトレースから切り捨てたフレームの数. */
+  private final int numOmittedFrames;
+  /** 例外発生時の BhProgram のコールスタック. */
+  private final List<BhCallStackItem> callStack;
+
+  private BhExceptionSnapshot(
+      String className,
+      String msg,
+      StackTraceElement[] stackTrace,
+      int numOmittedFrames,
+      List<BhCallStackItem> callStack,
+      BhExceptionSnapshot cause) {
+    super(msg, cause, false, true);
+    this.className = className;
+    this.numOmittedFrames = numOmittedFrames;
+    this.callStack = callStack;
+    setStackTrace(stackTrace);
+  }
+
+  /**
+   * {@code src} とその原因となった例外の連鎖から {@link BhExceptionSnapshot} を作成する.
+   *
+   * @param src この例外の情報を保持する {@link BhExceptionSnapshot} を作成する
+   * @param callStack {@code src} が発生したときの BhProgram のコールスタック
+   * @return {@code src} の情報を保持する {@link BhExceptionSnapshot}
+   */
+  public static BhExceptionSnapshot of(
+      Throwable src, SequencedCollection<BhCallStackItem> callStack) {
+    Set<Throwable> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    visited.add(src);
+    var causes = new ArrayList<Throwable>();
+    for (Throwable cause = src.getCause();
+        cause != null && causes.size() < MAX_CAUSE_DEPTH && visited.add(cause);
+        cause = cause.getCause()) {
+      causes.add(cause);
+    }
+    BhExceptionSnapshot cause = null;
+    for (Throwable throwable : causes.reversed()) {
+      cause = create(throwable, List.of(), cause);
+    }
+    return create(src, callStack, cause);
+  }
+
+  /** {@code src} 単体の情報と {@code callStack}, {@code cause} から {@link BhExceptionSnapshot} を作成する. */
+  private static BhExceptionSnapshot create(
+      Throwable src,
+      SequencedCollection<BhCallStackItem> callStack,
+      BhExceptionSnapshot cause) {
+    String className = (src instanceof BhExceptionSnapshot snapshot)
+        ? snapshot.className : src.getClass().getName();
+    StackTraceElement[] stackTrace = src.getStackTrace();
+    int depth = Math.min(stackTrace.length, MAX_STACK_DEPTH);
+    int numOmittedFrames = stackTrace.length - depth;
+    if (src instanceof BhExceptionSnapshot snapshot) {
+      numOmittedFrames += snapshot.numOmittedFrames;
+    }
+    List<BhCallStackItem> frames = (callStack instanceof List<BhCallStackItem> list)
+        ? list : new ArrayList<>(callStack);
+    List<BhCallStackItem> keptFrames = List.copyOf(
+        frames.subList(Math.max(0, frames.size() - MAX_STACK_DEPTH), frames.size()));
+    return new BhExceptionSnapshot(
+        className,
+        truncate(src.getMessage()),
+        Arrays.copyOf(stackTrace, depth),
+        numOmittedFrames,
+        keptFrames,
+        cause);
+  }
+
+  /** {@code msg} が {@link #MAX_MESSAGE_LENGTH} 文字を超える場合, 超えた部分を切り捨てる. */
+  private static String truncate(String msg) {
+    if (msg == null || msg.length() <= MAX_MESSAGE_LENGTH) {
+      return msg;
+    }
+    return msg.substring(0, MAX_MESSAGE_LENGTH) + "...";
+  }
+
+  /** 作成時にこのオブジェクトを作成したスレッドのスタックトレースを記録しない. */
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+
+  /** 元の例外のクラス名を取得する. */
+  public String getClassName() {
+    return className;
+  }
+
+  /** 元の例外のスタックトレースから切り捨てたフレームの数を取得する. */
+  public int getNumOmittedFrames() {
+    return numOmittedFrames;
+  }
+
+  /**
+   * 例外発生時の BhProgram のコールスタックを取得する.
+   * {@link #MAX_STACK_DEPTH} を超えるフレームがあった場合, 呼び出し元に近いフレームから切り捨てられている.
+   */
+  public List<BhCallStackItem> getCallStack() {
+    return callStack;
+  }
+
+  @Override
+  public String toString() {
+    String msg = getLocalizedMessage();
+    return (msg == null) ? className : className + ": " + msg;
+  }
+}
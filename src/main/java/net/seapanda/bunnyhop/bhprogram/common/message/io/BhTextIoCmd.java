@@ -31,6 +31,15 @@ public abstract class BhTextIoCmd implements BhProgramNotification {
     id = genId();
   }
 
+  /**
+   * コンストラクタ.
+   *
+   * @param id このコマンドの ID.  受信したコマンドを復元する場合に, 送信元で割り当てられた ID を指定する.
+   */
+  protected BhTextIoCmd(long id) {
+    this.id = id;
+  }
+
   @Override
   public long getId() {
     return id;
@@ -28,4 +28,15 @@ public class InputTextCmd extends BhTextIoCmd {
   public InputTextCmd(String text) {
     this.text = text;
   }
+
+  /**
+   * コンストラクタ.
+   *
+   * @param id このコマンドの ID.  受信したコマンドを復元する場合に, 送信元で割り当てられた ID を指定する.
+   * @param text BhProgram に入力する文字列
+   */
+  public InputTextCmd(long id, String text) {
+    super(id);
+    this.text = text;
+  }
 }
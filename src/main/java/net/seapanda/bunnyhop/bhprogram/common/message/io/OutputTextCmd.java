@@ -28,4 +28,15 @@ public class OutputTextCmd extends BhTextIoCmd {
   public OutputTextCmd(String text) {
     this.text = text;
   }
+
+  /**
+   * コンストラクタ.
+   *
+   * @param id このコマンドの ID.  受信したコマンドを復元する場合に, 送信元で割り当てられた ID を指定する.
+   * @param text 出力する文字列
+   */
+  public OutputTextCmd(long id, String text) {
+    super(id);
+    this.text = text;
+  }
 }
\ No newline at end of file
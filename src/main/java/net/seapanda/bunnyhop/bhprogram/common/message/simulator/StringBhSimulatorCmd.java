@@ -31,6 +31,17 @@ public class StringBhSimulatorCmd extends BhSimulatorCmd {
     this.cmd = Arrays.copyOf(cmd, cmd.length);
   }
 
+  /**
+   * コンストラクタ.
+   *
+   * @param id このコマンドの ID.  受信したコマンドを復元する場合に, 送信元で割り当てられた ID を指定する.
+   * @param cmd コマンドを構成する要素
+   */
+  public StringBhSimulatorCmd(long id, String[] cmd) {
+    super(id);
+    this.cmd = Arrays.copyOf(cmd, cmd.length);
+  }
+
   /** コマンドを構成する要素を返す. */
   public String[] getComponents() {
     return Arrays.copyOf(cmd, cmd.length);
@@ -17,6 +17,7 @@
 package net.seapanda.bunnyhop.bhprogram.common.message.thread;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.SequencedCollection;
 import net.seapanda.bunnyhop.bhprogram.common.BhSymbolId;
 import net.seapanda.bunnyhop.bhprogram.common.BhThreadState;
@@ -25,12 +26,24 @@ import net.seapanda.bunnyhop.bhprogram.common.message.exception.BhProgramExcepti
 
 /**
  * BhProgram のスレッドに関連する情報を格納するクラス.
+ *
+ * <p>バージョン番号を持つスレッドコンテキストは, 受信側が {@code AckThreadContextCmd} で受領を通知できる.
+ * 受領が通知されると, 以降のスレッドコンテキストは, 受領済みのもの (ベース) との差分になることがある.
+ * 差分のスレッドコンテキストは, ベースのコールスタックの先頭 {@link #getNumKeptFrames()} 個のフレームに
+ * {@link #getCallStack()} のフレームを積んだものが, 完全なコールスタックであることを表す.
+ * 受信側は, 受領を通知したスレッドコンテキストを, それより新しいものの受領を通知するまで保持すること.
  */
 public class BhThreadContext implements BhProgramNotification {
- 
+
+  /** バージョン番号やベースのバージョン番号を持たないことを表す値. */
+  public static final long NO_VERSION = -1;
+
   private final long msgId;
-  /** コールスタック. */
-  private final SequencedCollection<BhCallStackItem> callStack;
+  /**
+   * コールスタック.
+   * 差分のスレッドコンテキストの場合, ベースのコールスタックに積むフレームだけを持つ.
+   */
+  private final List<BhCallStackItem> callStack;
   /** スレッド ID. */
   private final long threadId;
   /* スレッドの状態. */
@@ -41,6 +54,12 @@ public class BhThreadContext implements BhProgramNotification {
   private final BhSymbolId nextStep;
   /** 例外が発生した処理に対応するシンボルの ID. */
   private final BhSymbolId errorStep;
+  /** このスレッドコンテキストのバージョン番号. */
+  private final long version;
+  /** 差分のベースとなるスレッドコンテキストのバージョン番号. */
+  private final long baseVersion;
+  /** ベースのコールスタックから引き継ぐフレームの数. */
+  private final int numKeptFrames;
 
   /**
    * コンストラクタ.
@@ -51,10 +70,13 @@ public class BhThreadContext implements BhProgramNotification {
   public BhThreadContext(long threadId, BhThreadState state) {
     this.threadId = threadId;
     this.state = state;
-    this.callStack = new ArrayList<>();
+    this.callStack = List.of();
     this.exception = null;
     this.nextStep = BhSymbolId.NONE;
     this.errorStep = BhSymbolId.NONE;
+    this.version = NO_VERSION;
+    this.baseVersion = NO_VERSION;
+    this.numKeptFrames = 0;
     this.msgId = genId();
   }
 
@@ -75,10 +97,13 @@ public class BhThreadContext implements BhProgramNotification {
       BhProgramException exception) {
     this.threadId = threadId;
     this.state = state;
-    this.callStack = new ArrayList<>(callStack);
+    this.callStack = List.copyOf(callStack);
     this.exception = exception;
     this.nextStep = BhSymbolId.NONE;
     this.errorStep = errorStep;
+    this.version = NO_VERSION;
+    this.baseVersion = NO_VERSION;
+    this.numKeptFrames = 0;
     this.msgId = genId();
   }
 
@@ -95,15 +120,105 @@ public class BhThreadContext implements BhProgramNotification {
       BhThreadState state,
       SequencedCollection<BhCallStackItem> callStack,
       BhSymbolId nextStep) {
+    this(threadId, state, callStack, nextStep, NO_VERSION, NO_VERSION, 0);
+  }
+
+  /**
+   * コンストラクタ.
+   *
+   * @param threadId スレッド ID
+   * @param state スレッドの状態
+   * @param callStack コールスタック.  差分の場合はベースのコールスタックに積むフレーム.
+   * @param nextStep 次に実行する処理に対応するシンボルの ID
+   * @param version このスレッドコンテキストのバージョン番号
+   * @param baseVersion 差分のベースとなるスレッドコンテキストのバージョン番号.
+   *                    差分でない場合は {@link #NO_VERSION}.
+   * @param numKeptFrames ベースのコールスタックから引き継ぐフレームの数
+   */
+  public BhThreadContext(
+      long threadId,
+      BhThreadState state,
+      SequencedCollection<BhCallStackItem> callStack,
+      BhSymbolId nextStep,
+      long version,
+      long baseVersion,
+      int numKeptFrames) {
     this.threadId = threadId;
     this.state = state;
-    this.callStack = new ArrayList<>(callStack);
+    this.callStack = List.copyOf(callStack);
     this.exception = null;
     this.nextStep = nextStep;
     this.errorStep = BhSymbolId.NONE;
+    this.version = version;
+    this.baseVersion = baseVersion;
+    this.numKeptFrames = numKeptFrames;
     this.msgId = genId();
   }
 
+  /**
+   * コンストラクタ.
+   *
+   * <p>受信したスレッドコンテキストを復元する場合に使用する.
+   *
+   * @param msgId このメッセージの ID
+   * @param threadId スレッド ID 
+   * @param state スレッドの状態
+   * @param callStack コールスタック.
+   * @param nextStep 次に実行する処理に対応するシンボルの ID
+   * @param errorStep 例外が発生した処理に対応するシンボルの ID
+   * @param exception スレッドで発生した例外 (nullable)
+   */
+  public BhThreadContext(
+      long msgId,
+      long threadId,
+      BhThreadState state,
+      SequencedCollection<BhCallStackItem> callStack,
+      BhSymbolId nextStep,
+      BhSymbolId errorStep,
+      BhProgramException exception) {
+    this(msgId, threadId, state, callStack, nextStep, errorStep, exception,
+        NO_VERSION, NO_VERSION, 0);
+  }
+
+  /**
+   * コンストラクタ.
+   *
+   * <p>受信したスレッドコンテキストを復元する場合に使用する.
+   *
+   * @param msgId このメッセージの ID
+   * @param threadId スレッド ID
+   * @param state スレッドの状態
+   * @param callStack コールスタック.  差分の場合はベースのコールスタックに積むフレーム.
+   * @param nextStep 次に実行する処理に対応するシンボルの ID
+   * @param errorStep 例外が発生した処理に対応するシンボルの ID
+   * @param exception スレッドで発生した例外 (nullable)
+   * @param version このスレッドコンテキストのバージョン番号
+   * @param baseVersion 差分のベースとなるスレッドコンテキストのバージョン番号
+   * @param numKeptFrames ベースのコールスタックから引き継ぐフレームの数
+   */
+  public BhThreadContext(
+      long msgId,
+      long threadId,
+      BhThreadState state,
+      SequencedCollection<BhCallStackItem> callStack,
+      BhSymbolId nextStep,
+      BhSymbolId errorStep,
+      BhProgramException exception,
+      long version,
+      long baseVersion,
+      int numKeptFrames) {
+    this.threadId = threadId;
+    this.state = state;
+    this.callStack = List.copyOf(callStack);
+    this.exception = exception;
+    this.nextStep = nextStep;
+    this.errorStep = errorStep;
+    this.version = version;
+    this.baseVersion = baseVersion;
+    this.numKeptFrames = numKeptFrames;
+    this.msgId = msgId;
+  }
+
   @Override
   public long getId() {
     return msgId;
@@ -119,9 +234,52 @@ public class BhThreadContext implements BhProgramNotification {
     return state;
   }
 
-  /** コールスタックを取得する. */
+  /**
+   * コールスタックを取得する.
+   * 差分のスレッドコンテキストの場合, ベースのコールスタックに積むフレームだけを返す.
+   *
+   * @return 変更不可能なコールスタック
+   */
   public SequencedCollection<BhCallStackItem> getCallStack() {
-    return new ArrayList<>(callStack);
+    return callStack;
+  }
+
+  /**
+   * ベースのコールスタックにこのスレッドコンテキストの差分を適用した, 完全なコールスタックを返す.
+   *
+   * @param baseCallStack {@link #getBaseVersion()} のバージョンのスレッドコンテキストから復元したコールスタック.
+   *                      差分でない場合は参照されない.
+   * @return 完全なコールスタック
+   */
+  public SequencedCollection<BhCallStackItem> resolveCallStack(
+      SequencedCollection<BhCallStackItem> baseCallStack) {
+    if (!isDelta()) {
+      return callStack;
+    }
+    var resolved = new ArrayList<BhCallStackItem>(numKeptFrames + callStack.size());
+    baseCallStack.stream().limit(numKeptFrames).forEach(resolved::add);
+    resolved.addAll(callStack);
+    return resolved;
+  }
+
+  /** このスレッドコンテキストのバージョン番号を取得する.  持たない場合は {@link #NO_VERSION}. */
+  public long getVersion() {
+    return version;
+  }
+
+  /** 差分のベースとなるスレッドコンテキストのバージョン番号を取得する.  差分でない場合は {@link #NO_VERSION}. */
+  public long getBaseVersion() {
+    return baseVersion;
+  }
+
+  /** ベースのコールスタックから引き継ぐフレームの数を取得する. */
+  public int getNumKeptFrames() {
+    return numKeptFrames;
+  }
+
+  /** このスレッドコンテキストが, 受領済みのスレッドコンテキストとの差分である場合 true を返す. */
+  public boolean isDelta() {
+    return baseVersion != NO_VERSION;
   }
 
   /**
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.thread;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.SequencedCollection;
+import net.seapanda.bunnyhop.bhprogram.common.message.variable.BhVariable;
+
+/**
+ * 一時停止中のスレッドの複数のスタックフレームとグローバル変数の情報をまとめて格納するレコード.
+ *
+ * @param threadId 情報を取得したスレッドの ID
+ * @param frames 取得したスタックフレームの情報一覧 (read-only)
+ * @param globals 取得したグローバル変数の情報一覧 (read-only).  取得しなかった場合は空.
+ * @param truncated 取得する変数の数の上限に達したため, 一部の変数の情報を省いた場合 true
+ */
+public record BhThreadInspection(
+    long threadId,
+    SequencedCollection<BhVarStackFrame> frames,
+    SequencedCollection<BhVariable> globals,
+    boolean truncated) implements Serializable {
+
+  public BhThreadInspection(
+      long threadId,
+      SequencedCollection<BhVarStackFrame> frames,
+      SequencedCollection<BhVariable> globals,
+      boolean truncated) {
+    this.threadId = threadId;
+    this.frames = Collections.unmodifiableList(new ArrayList<>(frames));
+    this.globals = Collections.unmodifiableList(new ArrayList<>(globals));
+    this.truncated = truncated;
+  }
+}
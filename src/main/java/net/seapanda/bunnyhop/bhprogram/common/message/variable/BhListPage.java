@@ -0,0 +1,33 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.bhprogram.common.message.variable;
+
+import java.io.Serializable;
+
+/**
+ * カーソルを使って取得したリストの値の 1 ページ分を格納するレコード.
+ *
+ * @param cursor 次のページを取得するためのカーソル.  最後のページの場合は null.
+ * @param list 取得したリストの値.  {@link BhListVariable#length} はカーソルを作成した時点のリストの長さ.
+ */
+public record BhListPage(String cursor, BhListVariable list) implements Serializable {
+
+  /** 次のページがある場合 true を返す. */
+  public boolean hasNext() {
+    return cursor != null;
+  }
+}
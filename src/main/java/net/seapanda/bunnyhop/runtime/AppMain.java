@@ -16,6 +16,8 @@
 
 package net.seapanda.bunnyhop.runtime;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.rmi.Remote;
 import java.rmi.registry.LocateRegistry;
@@ -24,11 +26,26 @@ import java.rmi.server.RMIClientSocketFactory;
 import java.rmi.server.RMIServerSocketFactory;
 import java.rmi.server.RMISocketFactory;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.ToLongFunction;
 import net.seapanda.bunnyhop.bhprogram.common.BhRuntimeFacade;
+import net.seapanda.bunnyhop.bhprogram.common.BhScriptEngineSettings;
 import net.seapanda.bunnyhop.bhprogram.common.LocalClientSocketFactory;
 import net.seapanda.bunnyhop.bhprogram.common.RemoteClientSocketFactory;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramEvent;
+import net.seapanda.bunnyhop.runtime.executor.BhContextFactory;
+import net.seapanda.bunnyhop.runtime.executor.BhProgramExecutor;
+import net.seapanda.bunnyhop.runtime.executor.CompiledScriptCache;
+import net.seapanda.bunnyhop.runtime.executor.EventDispatchPolicy;
+import net.seapanda.bunnyhop.runtime.executor.EventDispatchStats;
 import net.seapanda.bunnyhop.runtime.executor.JsBhProgramExecutor;
+import net.seapanda.bunnyhop.runtime.metrics.HighWaterMarkQueue;
+import net.seapanda.bunnyhop.runtime.metrics.MetricsFileWriter;
+import net.seapanda.bunnyhop.runtime.metrics.MetricsRegistry;
 import net.seapanda.bunnyhop.runtime.script.Keywords;
 import net.seapanda.bunnyhop.runtime.script.MessageQueueSet;
 import net.seapanda.bunnyhop.runtime.script.ScriptHelper;
@@ -38,10 +55,12 @@ import net.seapanda.bunnyhop.runtime.script.hw.HwCmdDispatcher;
 import net.seapanda.bunnyhop.runtime.script.hw.StdioHwCmdDispatcher;
 import net.seapanda.bunnyhop.runtime.script.io.BhTextInputAgent;
 import net.seapanda.bunnyhop.runtime.script.io.BhTextOutputAgent;
+import net.seapanda.bunnyhop.runtime.script.io.TextOutputMode;
 import net.seapanda.bunnyhop.runtime.script.platform.AudioControllerImpl;
 import net.seapanda.bunnyhop.runtime.script.platform.TextFileManagerImpl;
 import net.seapanda.bunnyhop.runtime.script.simulator.BhSimulatorAgent;
 import net.seapanda.bunnyhop.runtime.service.LogManager;
+import net.seapanda.bunnyhop.runtime.service.MetricsManager;
 import net.seapanda.bunnyhop.runtime.socket.LocalServerSocketFactory;
 import net.seapanda.bunnyhop.runtime.socket.RemoteServerSocketFactory;
 import net.seapanda.bunnyhop.utility.Utility;
@@ -77,8 +96,13 @@ public class AppMain {
     }
     var options = new Options();
     CommandLine cmd = parseCmd(args, options, logger);
-    boolean isLocal = !cmd.hasOption("remote");
-    boolean enableHwCtrl = cmd.hasOption("hwctrl");
+    var runtimeOptions = new RuntimeOptions(
+        !cmd.hasOption("remote"),
+        cmd.hasOption("hwctrl"),
+        cmd.hasOption("vthread"),
+        parseTextOutputMode(cmd.getOptionValue("text-output")),
+        parseOutputWindowSize(cmd.getOptionValue("output-window")),
+        parseEventPolicies(cmd.getOptionValues("event-policy")));
 
     if (cmd.hasOption("help")) {
       HelpFormatter hf = new HelpFormatter();
@@ -89,13 +113,33 @@ public class AppMain {
       System.out.println(BhConstants.APP_VERSION.toString());
       return;
     }
+    BhContextFactory contextFactory = BhContextFactory.install(createEngineSettings(cmd));
+    startMetricsFileWriter(parseMetricsInterval(cmd.getOptionValue("metrics-interval")));
     if (cmd.hasOption("run")) {
-      executeScript(cmd.getOptionValue("run"), enableHwCtrl);
+      executeScript(cmd.getOptionValue("run"), runtimeOptions, contextFactory);
     } else {
-      exportRmiObject(isLocal, enableHwCtrl);
+      exportRmiObject(runtimeOptions, contextFactory);
     }
   }
 
+  /**
+   * コマンドライン引数で指定された BhRuntime の動作設定.
+   *
+   * @param isLocal BunnyHop と同じマシン上で動作する場合 true
+   * @param enableHwCtrl BhRuntime による HW 制御機能を有効にする場合 true
+   * @param useVirtualThreads BhProgram のスレッドを仮想スレッドで実行する場合 true
+   * @param textOutputMode BhProgram が出力したテキストを BunnyHop に送信する方法
+   * @param outputWindowSize 応答を待たずに BunnyHop に送信できるテキスト出力コマンドの最大数
+   * @param eventPolicies イベント名とそのイベントに適用するポリシーのマップ
+   */
+  private record RuntimeOptions(
+      boolean isLocal,
+      boolean enableHwCtrl,
+      boolean useVirtualThreads,
+      TextOutputMode textOutputMode,
+      int outputWindowSize,
+      Map<BhProgramEvent.Name, EventDispatchPolicy> eventPolicies) {}
+
   /** コマンドライン引数をパースする. */
   private static CommandLine parseCmd(String[] args, Options options, FileLogger logger) {
     options.addOption(Option.builder()
@@ -126,6 +170,86 @@ public class AppMain {
         """)
         .build());
 
+    options.addOption(Option.builder()
+        .longOpt("vthread")
+        .hasArg(false)
+        .desc(
+        """
+        If set, each thread of a BhProgram runs on a virtual thread.
+        Otherwise, at most %d threads of a BhProgram run at the same time.
+        """.formatted(BhConstants.NUM_BHPROGRAM_THREADS))
+        .build());
+
+    options.addOption(Option.builder()
+        .longOpt("text-output")
+        .hasArg(true)
+        .desc(
+        """
+        How to send texts printed by a BhProgram to BunnyHop.
+        SYNCHRONOUS (default): Each print waits until BunnyHop receives the text.
+        BUFFERED: Texts are buffered and sent to BunnyHop in batches.
+        WINDOWED: Each print returns without waiting unless too many texts are unacknowledged.
+        """)
+        .build());
+
+    options.addOption(Option.builder()
+        .longOpt("output-window")
+        .hasArg(true)
+        .desc(
+        """
+        The maximum number of texts sent to BunnyHop without acknowledgement in WINDOWED mode.
+        The default is %d.
+        """.formatted(BhConstants.TEXT_OUTPUT_WINDOW_SIZE))
+        .build());
+
+    options.addOption(Option.builder()
+        .longOpt("event-policy")
+        .hasArg(true)
+        .desc(
+        """
+        How to call the handlers of an event that fires again before its previous handlers end.
+        Specify as <event>=<policy>.  <event> may end with '*' to match event names by prefix.
+        <policy> is one of CONCURRENT, DROP_IF_RUNNING, COALESCE or QUEUE:<depth>.
+        This option can be specified more than once.
+        """)
+        .build());
+
+    options.addOption(Option.builder()
+        .longOpt("opt-level")
+        .hasArg(true)
+        .desc(
+        """
+        The optimization level of the script engine (-1 to 9).
+        -1 runs scripts in interpreted mode, which starts up faster and uses less memory.
+        """)
+        .build());
+
+    options.addOption(Option.builder()
+        .longOpt("lang-version")
+        .hasArg(true)
+        .desc("The JavaScript language version of the script engine (e.g. 200 for ES6).")
+        .build());
+
+    options.addOption(Option.builder()
+        .longOpt("observer-threshold")
+        .hasArg(true)
+        .desc(
+        """
+        The number of instructions after which a script thread yields the CPU.
+        0 disables it.
+        """)
+        .build());
+
+    options.addOption(Option.builder()
+        .longOpt("metrics-interval")
+        .hasArg(true)
+        .desc(
+        """
+        The interval in seconds at which the metrics of BhRuntime are written to %s.
+        0 (default) disables it.
+        """.formatted(BhConstants.Path.METRICS_FILE_NAME))
+        .build());
+
     options.addOption(Option.builder()
         .longOpt("help")
         .hasArg(false)
@@ -144,15 +268,139 @@ public class AppMain {
     return cmd;
   }
 
+  /**
+   * コマンドライン引数からイベントごとのポリシーを作成する.
+   *
+   * @param values {@code <イベント名>=<ポリシー>} 形式の文字列の配列.  null の場合は空のマップを返す.
+   * @return イベント名とそのイベントに適用するポリシーのマップ
+   */
+  private static Map<BhProgramEvent.Name, EventDispatchPolicy> parseEventPolicies(
+      String[] values) {
+    var eventPolicies =
+        new EnumMap<BhProgramEvent.Name, EventDispatchPolicy>(BhProgramEvent.Name.class);
+    if (values == null) {
+      return eventPolicies;
+    }
+    for (String value : values) {
+      try {
+        String[] fields = value.split("=", 2);
+        if (fields.length < 2) {
+          throw new IllegalArgumentException("'=' is not found.");
+        }
+        String pattern = fields[0].trim();
+        EventDispatchPolicy policy = EventDispatchPolicy.parse(fields[1]);
+        for (BhProgramEvent.Name name : BhProgramEvent.Name.values()) {
+          boolean matches = pattern.endsWith("*")
+              ? name.toString().startsWith(pattern.substring(0, pattern.length() - 1))
+              : name.toString().equals(pattern);
+          if (matches) {
+            eventPolicies.put(name, policy);
+          }
+        }
+      } catch (IllegalArgumentException e) {
+        LogManager.logger().error("Invalid event policy.  (%s)\n%s".formatted(value, e));
+      }
+    }
+    return eventPolicies;
+  }
+
+  /**
+   * コマンドライン引数からテキストデータの送信方法を取得する.
+   *
+   * @param value 送信方法を表す文字列.  null の場合は {@link TextOutputMode#SYNCHRONOUS} を返す.
+   */
+  private static TextOutputMode parseTextOutputMode(String value) {
+    if (value == null) {
+      return TextOutputMode.SYNCHRONOUS;
+    }
+    try {
+      return TextOutputMode.valueOf(value.trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      LogManager.logger().error("Invalid text output mode.  (%s)\n%s".formatted(value, e));
+    }
+    return TextOutputMode.SYNCHRONOUS;
+  }
+
+  /**
+   * コマンドライン引数から, 応答を待たずに送信できるテキスト出力コマンドの最大数を取得する.
+   *
+   * @param value 最大数を表す文字列.  null の場合はデフォルト値を返す.
+   */
+  private static int parseOutputWindowSize(String value) {
+    if (value == null) {
+      return BhConstants.TEXT_OUTPUT_WINDOW_SIZE;
+    }
+    try {
+      int windowSize = Integer.parseInt(value.trim());
+      if (windowSize > 0) {
+        return windowSize;
+      }
+      LogManager.logger().error("Invalid text output window size.  (%s)".formatted(value));
+    } catch (NumberFormatException e) {
+      LogManager.logger().error("Invalid text output window size.  (%s)\n%s".formatted(value, e));
+    }
+    return BhConstants.TEXT_OUTPUT_WINDOW_SIZE;
+  }
+
+  /**
+   * コマンドライン引数から, 計測値をファイルに書き出す間隔を取得する.
+   *
+   * @param value 書き出す間隔 (秒) を表す文字列.  null の場合は 0 を返す.
+   * @return 計測値をファイルに書き出す間隔 (秒).  書き出さない場合は 0.
+   */
+  private static long parseMetricsInterval(String value) {
+    if (value == null) {
+      return 0;
+    }
+    try {
+      long interval = Long.parseLong(value.trim());
+      if (interval >= 0) {
+        return interval;
+      }
+      LogManager.logger().error("Invalid metrics interval.  (%s)".formatted(value));
+    } catch (NumberFormatException e) {
+      LogManager.logger().error("Invalid metrics interval.  (%s)\n%s".formatted(value, e));
+    }
+    return 0;
+  }
+
+  /** コマンドライン引数からスクリプトエンジンの設定を作成する. */
+  private static BhScriptEngineSettings createEngineSettings(CommandLine cmd) {
+    BhScriptEngineSettings settings = BhScriptEngineSettings.DEFAULT;
+    try {
+      if (cmd.hasOption("opt-level")) {
+        settings = settings.withOptimizationLevel(
+            Integer.parseInt(cmd.getOptionValue("opt-level")));
+      }
+      if (cmd.hasOption("lang-version")) {
+        settings = settings.withLanguageVersion(
+            Integer.parseInt(cmd.getOptionValue("lang-version")));
+      }
+      if (cmd.hasOption("observer-threshold")) {
+        settings = settings.withInstructionObserverThreshold(
+            Integer.parseInt(cmd.getOptionValue("observer-threshold")));
+      }
+    } catch (NumberFormatException e) {
+      LogManager.logger().error("Invalid script engine settings.\n%s".formatted(e));
+      return BhScriptEngineSettings.DEFAULT;
+    }
+    if (!BhContextFactory.isValid(settings)) {
+      LogManager.logger().error("Invalid script engine settings.  (%s)".formatted(settings));
+      return BhScriptEngineSettings.DEFAULT;
+    }
+    return settings;
+  }
+
   /**
    * BunnyHop と通信するための RMI オブジェクトをエクスポートする.
    *
-   * @param isLocal BunnyHop と同じマシン上で動作する場合 true
-   * @param enableHwCtrl BhRuntime による HW 制御機能を有効にする場合 true
+   * @param options BhRuntime の動作設定
+   * @param contextFactory BhProgram の実行に使うコンテキストを作成するオブジェクト
    */
-  private static void exportRmiObject(boolean isLocal, boolean enableHwCtrl) {
+  private static void exportRmiObject(RuntimeOptions options, BhContextFactory contextFactory) {
+    boolean isLocal = options.isLocal();
     try {
-      BhRuntimeFacade facade = createRuntimeFacade(enableHwCtrl);
+      BhRuntimeFacade facade = createRuntimeFacade(options, contextFactory);
       Remote remote = UnicastRemoteObject.exportObject(
           facade,
           0,
@@ -195,24 +443,29 @@ public class AppMain {
    * 引数で指定したスクリプトを実行する.
    *
    * @param fileName スクリプトファイル名
-   * @param enableHwCtrl BhRuntime による HW 制御を有効にする場合 true
+   * @param options BhRuntime の動作設定
+   * @param contextFactory BhProgram の実行に使うコンテキストを作成するオブジェクト
    */
-  private static void executeScript(String fileName, boolean enableHwCtrl) {
+  private static void executeScript(
+      String fileName, RuntimeOptions options, BhContextFactory contextFactory) {
     try {
       String cmd = Paths.get(
           Utility.execPath, BhConstants.Path.ACTIONS, BhConstants.Path.HW_CTRL).toString();
-      var dispatcher = enableHwCtrl ? new StdioHwCmdDispatcher(cmd) : new HwCmdDispatcher() {};
+      var dispatcher =
+          options.enableHwCtrl() ? new StdioHwCmdDispatcher(cmd) : new HwCmdDispatcher() {};
       var queueSet = new MessageQueueSet();
       var simAgent = new BhSimulatorAgent(queueSet.sendNotifList());
       var textInAgent = new BhTextInputAgent(queueSet.sendRespList());
-      var textOutAgent = new BhTextOutputAgent(queueSet.sendNotifList(), true);
+      var textOutAgent = new BhTextOutputAgent(
+          queueSet.sendNotifList(), true, options.textOutputMode(), options.outputWindowSize());
       String userTextDataPath = Paths.get(
           Utility.execPath, BhConstants.Path.USER_DATA, BhConstants.Path.TEXT).toString();
       var textFileManager = new TextFileManagerImpl(userTextDataPath);
       String userAudioDataPath = Paths.get(
           Utility.execPath, BhConstants.Path.USER_DATA, BhConstants.Path.AUDIO).toString();
       var audioCtrl = new AudioControllerImpl(userAudioDataPath);
-      var debugger = new BhProgramDebugger(queueSet.sendNotifList());
+      var debugger = new BhProgramDebugger(
+          queueSet.sendNotifList(), contextFactory.getSharedScope(), options.useVirtualThreads());
       var helper = new ScriptHelper(
           textInAgent,
           textOutAgent,
@@ -221,7 +474,14 @@ public class AppMain {
           dispatcher,
           audioCtrl,
           debugger);
-      var executor = new JsBhProgramExecutor(helper, queueSet.sendNotifList());
+      var executor = new JsBhProgramExecutor(
+          helper,
+          queueSet.sendNotifList(),
+          createScriptCache(),
+          createBhProgramExecutorService(options.useVirtualThreads()),
+          contextFactory.getSharedScope());
+      options.eventPolicies().forEach(executor::setEventDispatchPolicy);
+      registerMetrics(queueSet, debugger, executor);
       var shell = new BhProgramShell(queueSet, executor, textInAgent, textOutAgent);
       var event = new BhProgramEvent(
           BhProgramEvent.Name.PROGRAM_START, Keywords.Funcs.GET_EVENT_HANDLER_NAMES);
@@ -236,25 +496,30 @@ public class AppMain {
   /**
    * {@link BhRuntimeFacade} オブジェクトを作成する.
    *
-   * @param enableHwCtrl BhRuntime による HW 制御を有効にする場合 true
+   * @param options BhRuntime の動作設定
+   * @param contextFactory BhProgram の実行に使うコンテキストを作成するオブジェクト
    * @return {@link BhRuntimeFacade} オブジェクト
    * @throws Exception {@link BhRuntimeFacade} オブジェクトの作成に失敗した場合
    */
-  private static BhRuntimeFacade createRuntimeFacade(boolean enableHwCtrl) throws Exception {
+  private static BhRuntimeFacade createRuntimeFacade(
+      RuntimeOptions options, BhContextFactory contextFactory) throws Exception {
     String cmd = Paths.get(
         Utility.execPath, BhConstants.Path.ACTIONS, BhConstants.Path.HW_CTRL).toString();
-    var dispatcher = enableHwCtrl ? new StdioHwCmdDispatcher(cmd) : new HwCmdDispatcher() {};
+    var dispatcher =
+        options.enableHwCtrl() ? new StdioHwCmdDispatcher(cmd) : new HwCmdDispatcher() {};
     var queueSet = new MessageQueueSet();
     var simAgent = new BhSimulatorAgent(queueSet.sendNotifList());
     var textInAgent = new BhTextInputAgent(queueSet.sendRespList());
-    var textOutAgent = new BhTextOutputAgent(queueSet.sendNotifList(), false);
+    var textOutAgent = new BhTextOutputAgent(
+        queueSet.sendNotifList(), false, options.textOutputMode(), options.outputWindowSize());
     String userTextDataPath = Paths.get(
         Utility.execPath, BhConstants.Path.USER_DATA, BhConstants.Path.TEXT).toString();
     var textFileManager = new TextFileManagerImpl(userTextDataPath);
     String userAudioDataPath = Paths.get(
         Utility.execPath, BhConstants.Path.USER_DATA, BhConstants.Path.AUDIO).toString();
     var audioCtrl = new AudioControllerImpl(userAudioDataPath);
-    var debugger = new BhProgramDebugger(queueSet.sendNotifList());
+    var debugger = new BhProgramDebugger(
+        queueSet.sendNotifList(), contextFactory.getSharedScope(), options.useVirtualThreads());
     var debugCmdProcessor = new DebugCmdProcessor(debugger, queueSet.sendRespList());
     var helper = new ScriptHelper(
         textInAgent,
@@ -264,18 +529,111 @@ public class AppMain {
         dispatcher,
         audioCtrl,
         debugger);
-    var executor = new JsBhProgramExecutor(helper, queueSet.sendNotifList());
+    var executor = new JsBhProgramExecutor(
+        helper,
+        queueSet.sendNotifList(),
+        createScriptCache(),
+        createBhProgramExecutorService(options.useVirtualThreads()),
+        contextFactory.getSharedScope());
+    options.eventPolicies().forEach(executor::setEventDispatchPolicy);
+    registerMetrics(queueSet, debugger, executor);
     var facade = new BhRuntimeFacadeImpl(
         queueSet,
         executor,
         textInAgent,
         textOutAgent,
         simAgent,
-        debugCmdProcessor);
+        debugCmdProcessor,
+        contextFactory);
     setEventHandlers(textOutAgent, facade);
     return facade;
   }
 
+  /**
+   * BhProgram のスレッドを実行する {@link ExecutorService} を作成する.
+   *
+   * @param useVirtualThreads BhProgram のスレッドを仮想スレッドで実行する場合 true
+   */
+  private static ExecutorService createBhProgramExecutorService(boolean useVirtualThreads) {
+    if (useVirtualThreads) {
+      return Executors.newThreadPerTaskExecutor(
+          Thread.ofVirtual().name("BhProgram-", 0).factory());
+    }
+    return Executors.newFixedThreadPool(BhConstants.NUM_BHPROGRAM_THREADS);
+  }
+
+  /**
+   * {@link CompiledScriptCache} オブジェクトを作成する.
+   * コンパイル結果を保存するディレクトリを作成できなかった場合は, コンパイル結果をメモリ上にのみ保持する.
+   */
+  private static CompiledScriptCache createScriptCache() {
+    Path cacheDir = Paths.get(Utility.execPath, BhConstants.Path.COMPILED);
+    try {
+      Files.createDirectories(cacheDir);
+      return new CompiledScriptCache(cacheDir);
+    } catch (Exception e) {
+      LogManager.logger().error(
+          "Failed to create a directory for compiled scripts.  (%s)\n%s".formatted(cacheDir, e));
+    }
+    return new CompiledScriptCache(null);
+  }
+
+  /**
+   * BhRuntime の動作状況を表すゲージを {@link MetricsManager#registry()} に登録する.
+   *
+   * @param queueSet 要素数を計測するメッセージキューのセット
+   * @param debugger スレッド数を計測するデバッガ
+   * @param executor イベントハンドラの呼び出し回数を計測するオブジェクト
+   */
+  private static void registerMetrics(
+      MessageQueueSet queueSet, BhProgramDebugger debugger, BhProgramExecutor executor) {
+    MetricsRegistry registry = MetricsManager.registry();
+    registerQueueMetrics(registry, "queue.sendNotif", queueSet.sendNotifList());
+    registerQueueMetrics(registry, "queue.recvNotif", queueSet.recvNotifList());
+    registerQueueMetrics(registry, "queue.sendResp", queueSet.sendRespList());
+    registerQueueMetrics(registry, "queue.recvResp", queueSet.recvRespList());
+    registry.gauge("debugger.threads", debugger::getNumThreads);
+    registry.gauge("debugger.suspendedThreads", debugger::getNumSuspendedThreads);
+    registry.gauge(
+        "event.dispatched", () -> sumEventStats(executor, EventDispatchStats::dispatched));
+    registry.gauge(
+        "event.dropped", () -> sumEventStats(executor, EventDispatchStats::dropped));
+    registry.gauge(
+        "event.coalesced", () -> sumEventStats(executor, EventDispatchStats::coalesced));
+  }
+
+  /** {@code queue} の要素数と, その最大値を計測するゲージを登録する. */
+  private static void registerQueueMetrics(
+      MetricsRegistry registry, String name, BlockingQueue<?> queue) {
+    registry.gauge(name + ".depth", queue::size);
+    if (queue instanceof HighWaterMarkQueue<?> hwmQueue) {
+      registry.gauge(name + ".highWater", hwmQueue::getHighWaterMark);
+    }
+  }
+
+  /** 全てのイベントについて, {@code stat} で取得した値の合計を求める. */
+  private static long sumEventStats(
+      BhProgramExecutor executor, ToLongFunction<EventDispatchStats> stat) {
+    return executor.getEventDispatchStats().values().stream().mapToLong(stat).sum();
+  }
+
+  /**
+   * {@link MetricsManager#registry()} の計測値をファイルに書き出す処理を開始する.
+   *
+   * @param intervalSec 書き出す間隔 (秒).  0 の場合は何もしない.
+   */
+  private static void startMetricsFileWriter(long intervalSec) {
+    if (intervalSec <= 0) {
+      return;
+    }
+    Path file = Paths.get(
+        Utility.execPath,
+        BhConstants.Path.LOG_DIR,
+        BhConstants.APP_NAME,
+        BhConstants.Path.METRICS_FILE_NAME);
+    new MetricsFileWriter(MetricsManager.registry(), file).start(intervalSec);
+  }
+
   private static void setEventHandlers(BhTextOutputAgent agent, BhRuntimeFacadeImpl facade) {
     facade.getEventManager().addOnConnected(agent::enableTextOutput);
     facade.getEventManager().addOnDisconnected(agent::disableTextOutput);
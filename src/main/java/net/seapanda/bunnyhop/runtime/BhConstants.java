@@ -28,14 +28,40 @@ public class BhConstants {
   public static final String APP_NAME = "BhRuntimeLibrary";
   /** アプリケーションのバージョン. */
   public static final AppVersion APP_VERSION = AppVersion.of("bhrun-0.7.7");
-  /** BhProgram に入力されたテキストデータを格納する FIFO のサイズ. */
-  public static final int MAX_INPUT_TEXT_QUEUE_SIZE = 1024;
+  /** BhProgram に入力されたテキストデータを格納するバッファの最大文字数. */
+  public static final int TEXT_INPUT_BUFFER_SIZE = 64 * 1024;
+  /** BhProgram に入力されたテキストデータのうち, バッファへの書き込みを待てるものの最大数. */
+  public static final int MAX_PENDING_TEXT_INPUTS = 256;
   /** BunnyHop との通信データを格納する FIFO のサイズ. */
   public static final int MAX_MSG_QUEUE_SIZE = 2048;
   /** BunnyHop への送信データキューの読み出しタイムアウト (ms). */
   public static final int POP_MSG_TIMEOUT = 1500;
   /** BunnyHopからの受信データキューの書き込みタイムアウト (ms). */
   public static final int PUSH_MSG_TIMEOUT = 1500;
+  /** 通知をプッシュするスレッドが, 停止要求の有無を確認する間隔 (ms). */
+  public static final int NOTIF_PUMP_CHECK_INTERVAL = 200;
+  /** BhProgram のスレッドをプラットフォームスレッドで実行する場合の最大同時実行数. */
+  public static final int NUM_BHPROGRAM_THREADS = 16;
+  /** メモリ上に保持するコンパイル済みスクリプトの最大数. */
+  public static final int MAX_COMPILED_SCRIPT_CACHE_SIZE = 4;
+  /** BhProgram が出力したテキストを送信前に溜めておくバッファの最大文字数. */
+  public static final int TEXT_OUTPUT_BUFFER_SIZE = 64 * 1024;
+  /** バッファに溜まったテキストがこの文字数に達したら, 送信までの待ち時間を待たずに送信する. */
+  public static final int TEXT_OUTPUT_FLUSH_SIZE = 4 * 1024;
+  /** バッファにテキストが追加されてから, それを送信するまでの最大待ち時間 (ms). */
+  public static final int TEXT_OUTPUT_FLUSH_INTERVAL = 50;
+  /** 応答を待たずに BunnyHop に送信できるテキスト出力コマンドの最大数のデフォルト値. */
+  public static final int TEXT_OUTPUT_WINDOW_SIZE = 32;
+  /** 応答を待っているコマンドを管理するテーブルに, 事前に確保するスロットの数 (2 のべき乗). */
+  public static final int PENDING_REQUEST_TABLE_SIZE = 256;
+  /** デバッガがリストの値をページ単位で返す際の, 1 ページあたりの最大要素数. */
+  public static final int MAX_LIST_PAGE_SIZE = 1024;
+  /** デバッガが保持するリスト読み出し用カーソルの最大数. */
+  public static final int MAX_LIST_CURSORS = 64;
+  /** プロファイラの各スレッドが, 計測結果を共有の集計に反映する間隔 (ステップ数). */
+  public static final int PROFILE_FLUSH_INTERVAL = 1024;
+  /** プロファイラが集計するコールスタックの最大数. */
+  public static final int MAX_PROFILE_CALL_PATHS = 4096;
   /** ログファイル1つあたりの最大バイト数. */
   public static final int LOG_FILE_SIZE_LIMIT = 1024 * 1024;
   /** ログファイルの最大個数. */
@@ -55,6 +81,10 @@ public class BhConstants {
   public static class Path {
     public static final String LOG_DIR = "Log";
     public static final String LOG_FILE_NAME = "msg";
+    /** BhRuntime の計測値を書き出すファイルの名前. */
+    public static final String METRICS_FILE_NAME = "metrics.txt";
+    /** コンパイル済みの BhProgram を格納するディレクトリの名前. */
+    public static final String COMPILED = "Compiled";
     /** HW 制御プログラムがあるディレクトリの名前. */
     public static final String ACTIONS = "Actions";
     /** HW 制御プログラムの名前. */
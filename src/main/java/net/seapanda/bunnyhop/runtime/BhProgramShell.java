@@ -22,9 +22,7 @@ import java.util.concurrent.Executors;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramEvent;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramNotification;
 import net.seapanda.bunnyhop.bhprogram.common.message.exception.BhProgramException;
-import net.seapanda.bunnyhop.bhprogram.common.message.io.BhTextIoCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.io.BhTextIoResp;
-import net.seapanda.bunnyhop.bhprogram.common.message.io.InputTextCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.io.OutputTextCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.io.OutputTextResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.thread.BhCallStackItem;
@@ -33,6 +31,7 @@ import net.seapanda.bunnyhop.runtime.executor.BhProgramExecutor;
 import net.seapanda.bunnyhop.runtime.script.BhProgramMessageProcessor;
 import net.seapanda.bunnyhop.runtime.script.Keywords;
 import net.seapanda.bunnyhop.runtime.script.MessageQueueSet;
+import net.seapanda.bunnyhop.runtime.script.io.BhTextInputAgent;
 import net.seapanda.bunnyhop.runtime.service.LogManager;
 
 /**
@@ -46,18 +45,18 @@ public class BhProgramShell {
   private final ExecutorService inoutputExecutor = Executors.newSingleThreadExecutor();
   private final MessageQueueSet queueSet;
   private final BhProgramExecutor executor;
-  private final BhProgramMessageProcessor<BhTextIoCmd> textIoCmdProcessor;
+  private final BhTextInputAgent textInput;
   private final BhProgramMessageProcessor<BhTextIoResp> textIoRespProcessor;
 
   /** コンストラクタ. */
   BhProgramShell(
       MessageQueueSet queueSet,
       BhProgramExecutor executor,
-      BhProgramMessageProcessor<BhTextIoCmd> textIoCmdProcessor,
+      BhTextInputAgent textInput,
       BhProgramMessageProcessor<BhTextIoResp> textIoRespProcessor) {
     this.queueSet = queueSet;
     this.executor = executor;
-    this.textIoCmdProcessor = textIoCmdProcessor;
+    this.textInput = textInput;
     this.textIoRespProcessor = textIoRespProcessor;
     outputExecutor.submit(this::output);
     inoutputExecutor.submit(this::input);
@@ -132,13 +131,13 @@ public class BhProgramShell {
     }
   }
 
-  private void pushToStdinBuf(String line) {
-    String[] splitted = line.split(":");
-    if (splitted.length >= 2) {
-      textIoCmdProcessor.process(new InputTextCmd(splitted[1]));
-    } else {
-      textIoCmdProcessor.process(new InputTextCmd(""));
-    }
+  /**
+   * 標準入力から読んだ文字列を BhProgram に入力する.
+   * BhProgram の入力バッファに空きがない場合は, 空くまで標準入力の読み出しを止める.
+   */
+  private void pushToStdinBuf(String line) throws InterruptedException {
+    String text = line.substring(BhConstants.BhProgram.STDIN_PREFIX.length());
+    textInput.write(text);
   }
 
 
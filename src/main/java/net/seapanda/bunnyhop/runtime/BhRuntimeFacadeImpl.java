@@ -16,12 +16,23 @@
 
 package net.seapanda.bunnyhop.runtime;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.SequencedSet;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import net.seapanda.bunnyhop.bhprogram.common.BhMetricsSnapshot;
+import net.seapanda.bunnyhop.bhprogram.common.BhNotificationListener;
 import net.seapanda.bunnyhop.bhprogram.common.BhRuntimeFacade;
+import net.seapanda.bunnyhop.bhprogram.common.BhScriptEngineSettings;
+import net.seapanda.bunnyhop.bhprogram.common.codec.BhMessageCodec;
+import net.seapanda.bunnyhop.bhprogram.common.codec.BhMessageCodecs;
+import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramMessage;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramEvent;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramNotification;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramResponse;
@@ -29,9 +40,13 @@ import net.seapanda.bunnyhop.bhprogram.common.message.debug.BhDebugCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.io.BhTextIoCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.io.BhTextIoResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.simulator.BhSimulatorResp;
+import net.seapanda.bunnyhop.runtime.executor.BhContextFactory;
 import net.seapanda.bunnyhop.runtime.executor.BhProgramExecutor;
+import net.seapanda.bunnyhop.runtime.metrics.LatencyHistogram;
 import net.seapanda.bunnyhop.runtime.script.BhProgramMessageProcessor;
 import net.seapanda.bunnyhop.runtime.script.MessageQueueSet;
+import net.seapanda.bunnyhop.runtime.service.LogManager;
+import net.seapanda.bunnyhop.runtime.service.MetricsManager;
 
 /**
  * スクリプトと BunnyHop 間でデータを送受信するクラス.
@@ -42,12 +57,18 @@ public class BhRuntimeFacadeImpl implements BhRuntimeFacade {
   
   /** BunnyHop との通信が有効な場合 true. */
   private boolean connected = false;
+  /** バイト列で送受信するメッセージの変換に使うコーデック. */
+  private volatile BhMessageCodec codec = BhMessageCodecs.DEFAULT;
   private final MessageQueueSet queueSet;
   private final BhProgramExecutor executor;
   private final BhProgramMessageProcessor<BhTextIoCmd> textIoCmdProcessor;
   private final BhProgramMessageProcessor<BhTextIoResp> textIoRespProcessor;
   private final BhProgramMessageProcessor<BhSimulatorResp> simRespProcessor;
   private final BhProgramMessageProcessor<BhDebugCmd> debugCmdProcessor;
+  /** BunnyHop に通知をプッシュするオブジェクト. */
+  private final NotificationPump notifPump;
+  /** BhProgram の実行に使うコンテキストを作成するオブジェクト. */
+  private final BhContextFactory contextFactory;
 
   /** BunnyHop から受信したメッセージを処理する Executor. */
   private final ExecutorService recvMsgProcessor = Executors.newSingleThreadExecutor();
@@ -56,6 +77,18 @@ public class BhRuntimeFacadeImpl implements BhRuntimeFacade {
 
   private final EventManager eventManager = this.new EventManager();
 
+  /** {@link #runScript} の処理時間. */
+  private final LatencyHistogram runScriptLatency =
+      MetricsManager.registry().histogram("rmi.runScript");
+  /** BunnyHop から BhRuntime へ通知を送るメソッドの計測値. */
+  private final TransferMetrics notifsToRuntime = new TransferMetrics("NotifsToRuntime");
+  /** BhRuntime から BunnyHop へ通知を送るメソッドの計測値. */
+  private final TransferMetrics notifsFromRuntime = new TransferMetrics("NotifsFromRuntime");
+  /** BunnyHop から BhRuntime へレスポンスを送るメソッドの計測値. */
+  private final TransferMetrics respsToRuntime = new TransferMetrics("RespsToRuntime");
+  /** BhRuntime から BunnyHop へレスポンスを送るメソッドの計測値. */
+  private final TransferMetrics respsFromRuntime = new TransferMetrics("RespsFromRuntime");
+
   /** コンストラクタ. */
   public BhRuntimeFacadeImpl(
       MessageQueueSet queueSet,
@@ -63,54 +96,273 @@ public class BhRuntimeFacadeImpl implements BhRuntimeFacade {
       BhProgramMessageProcessor<BhTextIoCmd> textIoCmdProcessor,
       BhProgramMessageProcessor<BhTextIoResp> textIoRespProcessor,
       BhProgramMessageProcessor<BhSimulatorResp> simRespProcessor,
-      BhProgramMessageProcessor<BhDebugCmd> debugCmdProcessor) {
+      BhProgramMessageProcessor<BhDebugCmd> debugCmdProcessor,
+      BhContextFactory contextFactory) {
     this.queueSet = queueSet;
     this.executor = executor;
     this.textIoCmdProcessor = textIoCmdProcessor;
     this.textIoRespProcessor = textIoRespProcessor;
     this.simRespProcessor = simRespProcessor;
     this.debugCmdProcessor = debugCmdProcessor;
+    this.contextFactory = contextFactory;
+    this.notifPump = new NotificationPump(queueSet.sendNotifList());
     recvMsgProcessor.submit(() -> processRecvMsg());
     recvRespProcessor.submit(() -> processRecvResp());
   }
 
   @Override
   public boolean runScript(String fileName) {
-    return executor.runScript(fileName);
+    long startTime = System.nanoTime();
+    boolean success = executor.runScript(fileName);
+    runScriptLatency.recordSince(startTime);
+    return success;
   }
 
   @Override
   public boolean sendNotifToRuntime(BhProgramNotification notif) {
+    long startTime = System.nanoTime();
+    boolean success = false;
     try {
-      return queueSet.recvNotifList().offer(
+      success = queueSet.recvNotifList().offer(
           notif, BhConstants.PUSH_MSG_TIMEOUT, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) { /* do nothing */ }
-    return false;
+    notifsToRuntime.record(startTime, success ? 1 : 0);
+    return success;
   }
 
   @Override
   public BhProgramResponse recvRespFromRuntime() {
+    long startTime = System.nanoTime();
+    BhProgramResponse resp = null;
     try {
-      return queueSet.sendRespList().poll(BhConstants.POP_MSG_TIMEOUT, TimeUnit.MILLISECONDS);
+      resp = queueSet.sendRespList().poll(BhConstants.POP_MSG_TIMEOUT, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) { /* do nothing */ }
-    return null;
+    respsFromRuntime.record(startTime, (resp == null) ? 0 : 1);
+    return resp;
   }
 
   @Override
   public BhProgramNotification recvNotifFromRuntime() {
-    try {
-      return queueSet.sendNotifList().poll(BhConstants.POP_MSG_TIMEOUT, TimeUnit.MILLISECONDS);
-    } catch (InterruptedException e) { /* do nothing */ }
-    return null;
+    long startTime = System.nanoTime();
+    List<BhProgramNotification> notifs = notifPump.poll(1, BhConstants.POP_MSG_TIMEOUT);
+    BhProgramNotification notif = notifs.isEmpty() ? null : notifs.getFirst();
+    notifsFromRuntime.record(startTime, (notif == null) ? 0 : 1);
+    return notif;
   }
 
   @Override
   public boolean sendRespToRuntime(BhProgramResponse resp) {
+    long startTime = System.nanoTime();
+    boolean success = false;
     try {
-      return queueSet.recvRespList().offer(
+      success = queueSet.recvRespList().offer(
           resp, BhConstants.PUSH_MSG_TIMEOUT, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) { /* do nothing */ }
-    return false;
+    respsToRuntime.record(startTime, success ? 1 : 0);
+    return success;
+  }
+
+  @Override
+  public int sendNotifsToRuntime(List<BhProgramNotification> notifs) {
+    long startTime = System.nanoTime();
+    int numAdded = offerAll(queueSet.recvNotifList(), notifs);
+    notifsToRuntime.record(startTime, numAdded);
+    return numAdded;
+  }
+
+  @Override
+  public List<BhProgramNotification> recvNotifsFromRuntime(int max, long waitMs) {
+    long startTime = System.nanoTime();
+    List<BhProgramNotification> notifs = notifPump.poll(max, waitMs);
+    notifsFromRuntime.record(startTime, notifs.size());
+    return notifs;
+  }
+
+  @Override
+  public int sendRespsToRuntime(List<BhProgramResponse> resps) {
+    long startTime = System.nanoTime();
+    int numAdded = offerAll(queueSet.recvRespList(), resps);
+    respsToRuntime.record(startTime, numAdded);
+    return numAdded;
+  }
+
+  @Override
+  public List<BhProgramResponse> recvRespsFromRuntime(int max, long waitMs) {
+    long startTime = System.nanoTime();
+    List<BhProgramResponse> resps = pollAll(queueSet.sendRespList(), max, waitMs);
+    respsFromRuntime.record(startTime, resps.size());
+    return resps;
+  }
+
+  @Override
+  public int sendEncodedNotifsToRuntime(byte[] data) {
+    long startTime = System.nanoTime();
+    List<BhProgramNotification> notifs = decode(data, BhProgramNotification.class);
+    if (notifs == null) {
+      return -1;
+    }
+    int numAdded = offerAll(queueSet.recvNotifList(), notifs);
+    notifsToRuntime.record(startTime, numAdded);
+    return numAdded;
+  }
+
+  @Override
+  public byte[] recvEncodedNotifsFromRuntime(int max, long waitMs) {
+    long startTime = System.nanoTime();
+    List<BhProgramNotification> notifs = notifPump.poll(max, waitMs);
+    byte[] data = encode(notifs);
+    notifsFromRuntime.record(startTime, notifs.size());
+    return data;
+  }
+
+  @Override
+  public int sendEncodedRespsToRuntime(byte[] data) {
+    long startTime = System.nanoTime();
+    List<BhProgramResponse> resps = decode(data, BhProgramResponse.class);
+    if (resps == null) {
+      return -1;
+    }
+    int numAdded = offerAll(queueSet.recvRespList(), resps);
+    respsToRuntime.record(startTime, numAdded);
+    return numAdded;
+  }
+
+  @Override
+  public byte[] recvEncodedRespsFromRuntime(int max, long waitMs) {
+    long startTime = System.nanoTime();
+    List<BhProgramResponse> resps = pollAll(queueSet.sendRespList(), max, waitMs);
+    byte[] data = encode(resps);
+    respsFromRuntime.record(startTime, resps.size());
+    return data;
+  }
+
+  /**
+   * {@link #codec} で {@code msgs} をバイト列に変換する.
+   *
+   * <p>{@code msgs} はキューから取り出し済みなので, 変換に失敗しても捨てない.
+   * 変換できないメッセージがあった場合は, そのメッセージだけを除いて変換し直す.
+   *
+   * @return {@code msgs} を変換したバイト列.  変換に失敗した場合 null.
+   */
+  private byte[] encode(List<? extends BhProgramMessage> msgs) {
+    try {
+      return codec.encode(msgs);
+    } catch (IOException | RuntimeException e) {
+      LogManager.logger().error("Failed to encode messages.\n" + e);
+    }
+    var encodables = new ArrayList<BhProgramMessage>();
+    for (BhProgramMessage msg : msgs) {
+      try {
+        codec.encode(List.of(msg));
+        encodables.add(msg);
+      } catch (IOException | RuntimeException e) {
+        LogManager.logger().error("Discarded a message that cannot be encoded.  (%s)\n%s"
+            .formatted(msg.getClass().getSimpleName(), e));
+      }
+    }
+    try {
+      return codec.encode(encodables);
+    } catch (IOException | RuntimeException e) {
+      LogManager.logger().error("Failed to encode messages.\n" + e);
+    }
+    return null;
+  }
+
+  /**
+   * {@link #codec} で {@code data} から {@code type} 型のメッセージのリストを復元する.
+   *
+   * @return 復元したメッセージのリスト.  復元に失敗した場合は null.
+   */
+  private <T extends BhProgramMessage> List<T> decode(byte[] data, Class<T> type) {
+    var msgs = new ArrayList<T>();
+    try {
+      for (BhProgramMessage msg : codec.decode(data)) {
+        msgs.add(type.cast(msg));
+      }
+      return msgs;
+    } catch (IOException | ClassCastException | NullPointerException e) {
+      LogManager.logger().error("Failed to decode messages.\n" + e);
+    }
+    return null;
+  }
+
+  /**
+   * {@code items} の要素を先頭から順に {@code queue} に追加する.
+   *
+   * <p>全ての要素の追加にかける時間は {@link BhConstants#PUSH_MSG_TIMEOUT} までとする.
+   *
+   * @return {@code queue} に追加できた要素の数
+   */
+  private static <T> int offerAll(BlockingQueue<T> queue, List<? extends T> items) {
+    long deadline =
+        System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BhConstants.PUSH_MSG_TIMEOUT);
+    int numAdded = 0;
+    try {
+      for (T item : items) {
+        long timeout = Math.max(deadline - System.nanoTime(), 0);
+        if (!queue.offer(item, timeout, TimeUnit.NANOSECONDS)) {
+          break;
+        }
+        ++numAdded;
+      }
+    } catch (InterruptedException e) { /* do nothing */ }
+    return numAdded;
+  }
+
+  /**
+   * {@code queue} から最大 {@code max} 個の要素を取り出す.
+   *
+   * <p>{@code queue} が空の場合, 最大 {@code waitMs} ミリ秒要素が追加されるのを待つ.
+   *
+   * @return 取り出した要素のリスト
+   */
+  private static <T> List<T> pollAll(BlockingQueue<T> queue, int max, long waitMs) {
+    var items = new ArrayList<T>();
+    if (max <= 0) {
+      return items;
+    }
+    try {
+      T head = queue.poll(Math.max(waitMs, 0), TimeUnit.MILLISECONDS);
+      if (head != null) {
+        items.add(head);
+        queue.drainTo(items, max - 1);
+      }
+    } catch (InterruptedException e) { /* do nothing */ }
+    return items;
+  }
+
+  @Override
+  public boolean subscribeNotifs(BhNotificationListener listener, int credit) {
+    if (listener == null) {
+      return false;
+    }
+    notifPump.start(listener, credit);
+    return true;
+  }
+
+  @Override
+  public void unsubscribeNotifs() {
+    notifPump.stop();
+  }
+
+  @Override
+  public void grantNotifCredit(int numNotifs) {
+    notifPump.grantCredit(numNotifs);
+  }
+
+  @Override
+  public BhScriptEngineSettings getScriptEngineSettings() {
+    return contextFactory.getSettings();
+  }
+
+  @Override
+  public boolean setScriptEngineSettings(BhScriptEngineSettings settings) {
+    return contextFactory.setSettings(settings);
+  }
+
+  @Override
+  public BhMetricsSnapshot getMetrics() {
+    return MetricsManager.registry().snapshot();
   }
 
   @Override
@@ -119,9 +371,17 @@ public class BhRuntimeFacadeImpl implements BhRuntimeFacade {
     eventManager.invokeOnConnected();
   }
 
+  @Override
+  public synchronized String connect(List<String> codecNames) {
+    codec = BhMessageCodecs.select(codecNames);
+    connect();
+    return codec.name();
+  }
+
   @Override
   public synchronized void disconnect() {
     connected = false;
+    notifPump.stop();
     eventManager.invokeOnDisconnected();
   }
 
@@ -165,6 +425,40 @@ public class BhRuntimeFacadeImpl implements BhRuntimeFacade {
     }
   }
 
+  /**
+   * メッセージを送受信するメソッドの処理時間と, 送受信したメッセージの数を記録するクラス.
+   *
+   * <p>受信側のメソッドの処理時間には, メッセージが届くのを待った時間も含まれる.
+   */
+  private static class TransferMetrics {
+
+    /** メソッドの処理時間. */
+    private final LatencyHistogram latency;
+    /** 送受信したメッセージの数. */
+    private final LongAdder numMsgs;
+
+    /**
+     * コンストラクタ.
+     *
+     * @param name 計測値の名前.  {@code rmi.<name>} と {@code rmi.<name>.count} という名前で記録する.
+     */
+    TransferMetrics(String name) {
+      latency = MetricsManager.registry().histogram("rmi." + name);
+      numMsgs = MetricsManager.registry().counter("rmi." + name + ".count");
+    }
+
+    /**
+     * メソッドの処理時間と送受信したメッセージの数を記録する.
+     *
+     * @param startTime メソッドの処理を開始した時刻 ({@link System#nanoTime} の値)
+     * @param count 送受信したメッセージの数
+     */
+    void record(long startTime, int count) {
+      latency.recordSince(startTime);
+      numMsgs.add(count);
+    }
+  }
+
   /**
    * このオブジェクトに対するイベントハンドラの追加と削除を行うオブジェクトを返す.
    *
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import net.seapanda.bunnyhop.bhprogram.common.BhNotificationListener;
+import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramNotification;
+import net.seapanda.bunnyhop.runtime.service.LogManager;
+
+/**
+ * BunnyHop に送信する通知を, 登録されたリスナへプッシュし続けるクラス.
+ *
+ * <p>リスナに送信可能な通知の数はクレジットで制限される.
+ * 通知を 1 つ送るごとにクレジットを 1 つ消費し, クレジットが無くなると BunnyHop から補充されるまで送信を止める.
+ *
+ * @author K.Koike
+ */
+public class NotificationPump {
+
+  /** BunnyHop に送信する通知を格納する FIFO. */
+  private final BlockingQueue<BhProgramNotification> sendNotifList;
+  /** 通知をリスナに送り続ける Executor. */
+  private final ExecutorService pumpExec = Executors.newSingleThreadExecutor();
+  /** 現在有効な購読情報.  購読されていない場合は null. */
+  private volatile Subscription subscription;
+  /**
+   * {@link #sendNotifList} から取り出したが, リスナに送れなかった通知.
+   * 次の購読のリスナか, 次にポーリングした BunnyHop に最初に送る.
+   * このリスト自体をロックしてアクセスする.
+   */
+  private final List<BhProgramNotification> undelivered = new ArrayList<>();
+
+  /**
+   * コンストラクタ.
+   *
+   * @param sendNotifList BunnyHop に送信する通知を格納する FIFO
+   */
+  public NotificationPump(BlockingQueue<BhProgramNotification> sendNotifList) {
+    this.sendNotifList = sendNotifList;
+  }
+
+  /**
+   * {@code listener} への通知のプッシュを開始する.
+   *
+   * <p>既に登録済みのリスナがある場合, そのリスナへのプッシュは停止する.
+   *
+   * @param listener 通知を送るリスナ
+   * @param credit 初期クレジット (BunnyHop からの補充無しで送信可能な通知の数)
+   */
+  public synchronized void start(BhNotificationListener listener, int credit) {
+    stop();
+    var sub = new Subscription(listener, new Semaphore(Math.max(credit, 0)));
+    subscription = sub;
+    pumpExec.submit(() -> pump(sub));
+  }
+
+  /** 通知のプッシュを停止する. */
+  public synchronized void stop() {
+    Subscription sub = subscription;
+    if (sub != null) {
+      sub.active = false;
+      subscription = null;
+    }
+  }
+
+  /**
+   * クレジットを補充する.
+   *
+   * @param numNotifs 追加で送信を許可する通知の数
+   */
+  public void grantCredit(int numNotifs) {
+    Subscription sub = subscription;
+    if (sub != null && numNotifs > 0) {
+      sub.credit.release(numNotifs);
+    }
+  }
+
+  /** 通知のプッシュを行っている場合 true を返す. */
+  public boolean isActive() {
+    return subscription != null;
+  }
+
+  /** {@code sub} が有効な間, 通知をリスナに送り続ける. */
+  private void pump(Subscription sub) {
+    try {
+      while (sub.active) {
+        if (!sub.credit.tryAcquire(BhConstants.NOTIF_PUMP_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+          continue;
+        }
+        int numCredits = 1 + sub.credit.drainPermits();
+        List<BhProgramNotification> notifs = takeNotifs(sub, numCredits);
+        sub.credit.release(numCredits - notifs.size());
+        if (notifs.isEmpty()) {
+          continue;
+        }
+        // 取り出している間に購読が停止された場合は, 古いリスナに送らずに次の購読に回す.
+        if (!sub.active) {
+          returnUndelivered(notifs);
+          break;
+        }
+        try {
+          sub.listener.onNotifsReceived(notifs);
+        } catch (RemoteException | RuntimeException e) {
+          returnUndelivered(notifs);
+          LogManager.logger().error("Failed to push notifications.\n" + e);
+          stopIfCurrent(sub);
+          break;
+        }
+      }
+    } catch (InterruptedException e) {
+      // Do nothing.
+    }
+  }
+
+  /**
+   * リスナに送る通知を最大 {@code max} 個取り出す.
+   * {@link #undelivered} に通知がある場合は, それを先に取り出す.
+   * どちらにも通知が無い場合は, 通知が届くか {@code sub} が無効になるまで待つ.
+   */
+  private List<BhProgramNotification> takeNotifs(Subscription sub, int max)
+      throws InterruptedException {
+    var notifs = new ArrayList<BhProgramNotification>();
+    takeUndelivered(notifs, max);
+    if (notifs.isEmpty()) {
+      BhProgramNotification head = null;
+      while (sub.active && head == null) {
+        head = sendNotifList.poll(BhConstants.NOTIF_PUMP_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+      }
+      if (head == null) {
+        return notifs;
+      }
+      notifs.add(head);
+    }
+    sendNotifList.drainTo(notifs, max - notifs.size());
+    return notifs;
+  }
+
+  /**
+   * BunnyHop がポーリングで受け取る通知を最大 {@code max} 個取り出す.
+   * リスナに送れなかった通知がある場合は, それを先に取り出す.
+   *
+   * <p>どちらにも通知が無い場合, 最大 {@code waitMs} ミリ秒通知が届くのを待つ.
+   *
+   * @param max 取り出す通知の最大数
+   * @param waitMs 通知が無い場合に待つ時間 (ms)
+   * @return 取り出した通知のリスト
+   */
+  public List<BhProgramNotification> poll(int max, long waitMs) {
+    var notifs = new ArrayList<BhProgramNotification>();
+    if (max <= 0) {
+      return notifs;
+    }
+    takeUndelivered(notifs, max);
+    try {
+      if (notifs.isEmpty()) {
+        BhProgramNotification head =
+            sendNotifList.poll(Math.max(waitMs, 0), TimeUnit.MILLISECONDS);
+        if (head == null) {
+          return notifs;
+        }
+        notifs.add(head);
+      }
+    } catch (InterruptedException e) {
+      return notifs;
+    }
+    sendNotifList.drainTo(notifs, max - notifs.size());
+    return notifs;
+  }
+
+  /** {@link #undelivered} から最大 {@code max} 個の通知を取り出して {@code dest} に加える. */
+  private void takeUndelivered(List<BhProgramNotification> dest, int max) {
+    synchronized (undelivered) {
+      List<BhProgramNotification> retried =
+          undelivered.subList(0, Math.min(undelivered.size(), max));
+      dest.addAll(retried);
+      retried.clear();
+    }
+  }
+
+  /** リスナに送れなかった {@code notifs} を, {@link #undelivered} の先頭に戻す. */
+  private void returnUndelivered(List<BhProgramNotification> notifs) {
+    synchronized (undelivered) {
+      undelivered.addAll(0, notifs);
+    }
+  }
+
+  /** {@code sub} が現在の購読である場合, 通知のプッシュを停止する. */
+  private synchronized void stopIfCurrent(Subscription sub) {
+    if (subscription == sub) {
+      stop();
+    }
+  }
+
+  /** 通知の購読情報. */
+  private static class Subscription {
+    final BhNotificationListener listener;
+    /** 送信可能な通知の数. */
+    final Semaphore credit;
+    /** この購読が有効な場合 true. */
+    volatile boolean active = true;
+
+    Subscription(BhNotificationListener listener, Semaphore credit) {
+      this.listener = listener;
+      this.credit = credit;
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.executor;
+
+import net.seapanda.bunnyhop.bhprogram.common.BhScriptEngineSettings;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.ScriptableObject;
+
+/**
+ * BhProgram の実行に使う {@link Context} を作成するクラス.
+ *
+ * <p>{@link #install} でグローバルな {@link ContextFactory} として登録し,
+ * {@link ContextFactory#getGlobal()} 経由で作成される全ての {@link Context} に
+ * {@link BhScriptEngineSettings} の設定を適用する.
+ * 設定の変更は, 変更後に作成された {@link Context} と, 変更後にコンパイルされたスクリプトに反映される.
+ *
+ * @author K.Koike
+ */
+public class BhContextFactory extends ContextFactory {
+
+  private volatile BhScriptEngineSettings settings;
+  /** 全てのスレッドで共有する封印済みの標準オブジェクト. */
+  private volatile ScriptableObject sharedScope;
+
+  /**
+   * コンストラクタ.
+   *
+   * @param settings スクリプトエンジンの設定
+   */
+  public BhContextFactory(BhScriptEngineSettings settings) {
+    if (!isValid(settings)) {
+      throw new IllegalArgumentException(
+          "Invalid script engine settings.  (%s)".formatted(settings));
+    }
+    this.settings = settings;
+  }
+
+  /**
+   * {@code settings} を適用した {@link BhContextFactory} をグローバルな {@link ContextFactory} として登録する.
+   * このメソッドは, {@link ContextFactory#getGlobal()} を最初に呼ぶ前に 1 度だけ呼ぶこと.
+   *
+   * @param settings スクリプトエンジンの設定
+   * @return 登録した {@link BhContextFactory} オブジェクト
+   */
+  public static BhContextFactory install(BhScriptEngineSettings settings) {
+    var factory = new BhContextFactory(settings);
+    ContextFactory.initGlobal(factory);
+    return factory;
+  }
+
+  /** 現在のスクリプトエンジンの設定を取得する. */
+  public BhScriptEngineSettings getSettings() {
+    return settings;
+  }
+
+  /**
+   * スクリプトエンジンの設定を変更する.
+   *
+   * @param settings 新しい設定
+   * @return 設定を変更した場合 true.  {@code settings} が不正な値であった場合 false.
+   */
+  public boolean setSettings(BhScriptEngineSettings settings) {
+    if (!isValid(settings)) {
+      return false;
+    }
+    this.settings = settings;
+    return true;
+  }
+
+  /**
+   * 全てのスレッドで共有する封印済みの標準オブジェクトを取得する.
+   *
+   * <p>標準オブジェクトを変更しない処理のスコープや, JavaScript の関数を呼ぶ際の
+   * {@code this} オブジェクトのプロトタイプとして使う.
+   * 標準オブジェクトを毎回作成する必要がなくなる.
+   *
+   * @return 封印済みの標準オブジェクト
+   */
+  public ScriptableObject getSharedScope() {
+    ScriptableObject scope = sharedScope;
+    if (scope == null) {
+      synchronized (this) {
+        if (sharedScope == null) {
+          sharedScope = call(cx -> cx.initStandardObjects(null, true));
+        }
+        scope = sharedScope;
+      }
+    }
+    return scope;
+  }
+
+  /** {@code settings} が有効な設定かどうか調べる. */
+  @SuppressWarnings("deprecation")
+  public static boolean isValid(BhScriptEngineSettings settings) {
+    return settings != null
+        && Context.isValidOptimizationLevel(settings.optimizationLevel())
+        && Context.isValidLanguageVersion(settings.languageVersion())
+        && settings.instructionObserverThreshold() >= 0;
+  }
+
+  @Override
+  @SuppressWarnings("deprecation")
+  protected Context makeContext() {
+    Context cx = super.makeContext();
+    BhScriptEngineSettings settings = this.settings;
+    cx.setLanguageVersion(settings.languageVersion());
+    cx.setOptimizationLevel(settings.optimizationLevel());
+    cx.setGenerateObserverCount(settings.instructionObserverThreshold() > 0);
+    cx.setInstructionObserverThreshold(settings.instructionObserverThreshold());
+    return cx;
+  }
+
+  @Override
+  protected void observeInstructionCount(Context cx, int instructionCount) {
+    // ビジーループするスレッドが多数ある場合でも, 他のスレッドやイベント処理が進むようにする.
+    Thread.yield();
+  }
+}
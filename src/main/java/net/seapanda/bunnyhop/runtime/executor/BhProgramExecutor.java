@@ -16,6 +16,7 @@
 
 package net.seapanda.bunnyhop.runtime.executor;
 
+import java.util.Map;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramEvent;
 
 /**
@@ -38,4 +39,20 @@ public interface BhProgramExecutor {
    * @param event このイベントに関連するイベントハンドラを呼び出す.
    */
   void fireEvent(BhProgramEvent event);
+
+  /**
+   * {@code name} で指定したイベントのイベントハンドラを呼び出す際のポリシーを設定する.
+   * それまでに記録した {@code name} のイベントの統計情報は引き継ぐ.
+   *
+   * @param name このイベントのポリシーを設定する
+   * @param policy 設定するポリシー
+   */
+  void setEventDispatchPolicy(BhProgramEvent.Name name, EventDispatchPolicy policy);
+
+  /**
+   * イベントごとの呼び出し回数の統計を取得する.
+   *
+   * @return イベント名とその統計情報のマップ
+   */
+  Map<BhProgramEvent.Name, EventDispatchStats> getEventDispatchStats();
 }
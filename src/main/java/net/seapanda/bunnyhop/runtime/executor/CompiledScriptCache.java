@@ -0,0 +1,229 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.executor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import net.seapanda.bunnyhop.runtime.BhConstants;
+import net.seapanda.bunnyhop.runtime.service.LogManager;
+import org.mozilla.javascript.CompilerEnvirons;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.GeneratedClassLoader;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.optimizer.ClassCompiler;
+
+/**
+ * コンパイル済みのスクリプトをソースコードのハッシュ値と紐づけて保持するクラス.
+ *
+ * <p>同じソースコードのスクリプトを再度実行する場合, 構文解析とバイトコード生成を省略できる.
+ * 保存先のディレクトリを指定した場合, Rhino がコンパイルモードで生成したクラスファイルをそのディレクトリに保存し,
+ * BhRuntime の再起動後もコンパイル結果を再利用する.
+ *
+ * @author K.Koike
+ */
+public class CompiledScriptCache {
+
+  /** コンパイル済みスクリプトのクラス名の接頭辞. */
+  private static final String CLASS_NAME_PREFIX = "BhProgram_";
+  private static final String CLASS_FILE_EXT = ".class";
+  /** 保存したクラスの名前を 1 行に 1 つずつ記録するファイルの名前. */
+  private static final String CLASS_LIST_FILE = "classes.txt";
+
+  /** クラスファイルを保存するディレクトリ.  null の場合は保存しない. */
+  private final Path cacheDir;
+  /** ソースコードのハッシュ値とコンパイル済みスクリプトのマップ. */
+  private final Map<String, Script> hashToScript =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Script> eldest) {
+          return size() > BhConstants.MAX_COMPILED_SCRIPT_CACHE_SIZE;
+        }
+      };
+
+  /**
+   * コンストラクタ.
+   *
+   * @param cacheDir コンパイル結果のクラスファイルを保存するディレクトリ.  null の場合は保存しない.
+   */
+  public CompiledScriptCache(Path cacheDir) {
+    this.cacheDir = cacheDir;
+  }
+
+  /**
+   * {@code source} をコンパイルしたスクリプトを返す.
+   *
+   * <p>{@code source} と {@code cx} のコンパイル設定が以前と同じであれば, 以前のコンパイル結果を返す.
+   *
+   * @param cx コンパイルに使用するコンテキスト
+   * @param source スクリプトのソースコード
+   * @param srcName スクリプトの名前 (エラーメッセージ等に使われる)
+   * @return コンパイルしたスクリプト
+   */
+  public synchronized Script getOrCompile(Context cx, String source, String srcName) {
+    String hash = computeHash(cx, source, srcName);
+    Script script = hashToScript.get(hash);
+    if (script != null) {
+      return script;
+    }
+    if (cacheDir != null && !cx.isInterpretedMode()) {
+      script = loadOrCompileClasses(cx, source, srcName, hash);
+    }
+    if (script == null) {
+      script = cx.compileString(source, srcName, 1, null);
+    }
+    hashToScript.put(hash, script);
+    return script;
+  }
+
+  /**
+   * 保存済みのクラスファイルからスクリプトを作成する.
+   * クラスファイルが存在しない場合は, {@code source} をクラスファイルにコンパイルして保存する.
+   *
+   * @return 作成したスクリプト.  作成に失敗した場合は null.
+   */
+  private Script loadOrCompileClasses(Context cx, String source, String srcName, String hash) {
+    Path classDir = cacheDir.resolve(hash);
+    String mainClassName = CLASS_NAME_PREFIX + hash;
+    try {
+      if (!Files.isDirectory(classDir)) {
+        saveClasses(compileToClasses(cx, source, srcName, mainClassName), classDir);
+      }
+      return loadScript(cx, classDir, mainClassName);
+    } catch (Throwable e) {
+      LogManager.logger().error(
+          "Failed to use the compiled classes of a script.  (%s)\n%s".formatted(srcName, e));
+    }
+    return null;
+  }
+
+  /**
+   * {@code source} をクラスファイルにコンパイルする.
+   *
+   * @return クラス名とクラスファイルのバイト列が交互に格納された配列
+   */
+  private static Object[] compileToClasses(
+      Context cx, String source, String srcName, String mainClassName) {
+    var env = new CompilerEnvirons();
+    env.initFromContext(cx);
+    return new ClassCompiler(env).compileToClassFiles(source, srcName, 1, mainClassName);
+  }
+
+  /**
+   * {@code classes} を {@code classDir} に保存する.
+   * 保存したクラスの名前は {@link #CLASS_LIST_FILE} に記録する.
+   */
+  private static void saveClasses(Object[] classes, Path classDir) throws IOException {
+    Path tmpDir = Files.createTempDirectory(classDir.getParent(), classDir.getFileName() + ".");
+    boolean moved = false;
+    try {
+      var classNames = new ArrayList<String>();
+      for (int i = 0; i < classes.length; i += 2) {
+        Files.write(tmpDir.resolve(classes[i] + CLASS_FILE_EXT), (byte[]) classes[i + 1]);
+        classNames.add((String) classes[i]);
+      }
+      Files.write(tmpDir.resolve(CLASS_LIST_FILE), classNames, StandardCharsets.UTF_8);
+      try {
+        Files.move(tmpDir, classDir, StandardCopyOption.ATOMIC_MOVE);
+        moved = true;
+      } catch (IOException e) {
+        // 他のプロセスが同じスクリプトのクラスファイルを先に保存した場合はそれを使う.
+        if (!Files.isDirectory(classDir)) {
+          throw e;
+        }
+      }
+    } finally {
+      if (!moved) {
+        deleteDir(tmpDir);
+      }
+    }
+  }
+
+  /** {@code dir} とその直下のファイルを削除する. */
+  private static void deleteDir(Path dir) {
+    try (Stream<Path> files = Files.list(dir)) {
+      for (Path file : files.toList()) {
+        Files.deleteIfExists(file);
+      }
+      Files.deleteIfExists(dir);
+    } catch (IOException e) {
+      LogManager.logger().error("Failed to delete a directory.  (%s)\n%s".formatted(dir, e));
+    }
+  }
+
+  /**
+   * {@code classDir} に保存されたクラスファイルを読み込んで, スクリプトを作成する.
+   * 読み込むのは {@link #CLASS_LIST_FILE} に記録されたクラスだけとする.
+   */
+  private static Script loadScript(Context cx, Path classDir, String mainClassName)
+      throws Exception {
+    GeneratedClassLoader loader = cx.createClassLoader(cx.getApplicationClassLoader());
+    List<String> classNames =
+        Files.readAllLines(classDir.resolve(CLASS_LIST_FILE), StandardCharsets.UTF_8);
+    Class<?> mainClass = null;
+    var classes = new ArrayList<Class<?>>();
+    for (String className : classNames) {
+      if (!className.startsWith(mainClassName) || !className.matches("[\\w$]+")) {
+        throw new IOException("Invalid class name.  (%s)".formatted(className));
+      }
+      Path classFile = classDir.resolve(className + CLASS_FILE_EXT);
+      Class<?> cls = loader.defineClass(className, Files.readAllBytes(classFile));
+      classes.add(cls);
+      if (className.equals(mainClassName)) {
+        mainClass = cls;
+      }
+    }
+    classes.forEach(loader::linkClass);
+    if (mainClass == null) {
+      throw new IOException("The main class was not found.  (%s)".formatted(classDir));
+    }
+    return (Script) mainClass.getConstructor().newInstance();
+  }
+
+  /**
+   * {@code source}, {@code srcName} と {@code cx} のコンパイル設定からハッシュ値を計算する.
+   * {@code srcName} はコンパイルしたクラスに埋め込まれ, エラーメッセージに使われるので含める.
+   * 命令数のカウントを行うかどうかもクラスに埋め込まれるので含める.
+   */
+  @SuppressWarnings("deprecation")
+  private static String computeHash(Context cx, String source, String srcName) {
+    String settings = "%s\n%s\n%s\n%s\n%s\n".formatted(
+        cx.getImplementationVersion(),
+        cx.getLanguageVersion(),
+        cx.isInterpretedMode() ? "interpreted" : cx.getOptimizationLevel(),
+        cx.isGenerateObserverCount() ? "observed" : "unobserved",
+        srcName);
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(settings.getBytes(StandardCharsets.UTF_8));
+      digest.update(source.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
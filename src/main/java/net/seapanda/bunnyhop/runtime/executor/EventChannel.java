@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.executor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 1 種類のイベントについて, {@link EventDispatchPolicy} に従ってイベントハンドラの実行を制御するクラス.
+ *
+ * @author K.Koike
+ */
+class EventChannel {
+
+  private final EventDispatchPolicy policy;
+  private final LongAdder numDispatched = new LongAdder();
+  private final LongAdder numDropped = new LongAdder();
+  private final LongAdder numCoalesced = new LongAdder();
+  /** イベントハンドラを実行中の場合 true. */
+  private boolean running = false;
+  /** 実行中の処理の終了を待っているイベントの数. */
+  private int numPending = 0;
+
+  /**
+   * コンストラクタ.
+   *
+   * @param policy このチャネルに適用するポリシー
+   */
+  EventChannel(EventDispatchPolicy policy) {
+    this.policy = policy;
+  }
+
+  /**
+   * コンストラクタ.
+   *
+   * @param policy このチャネルに適用するポリシー
+   * @param prev このチャネルに置き換えられるチャネル.  このチャネルの統計情報を引き継ぐ.
+   */
+  EventChannel(EventDispatchPolicy policy, EventChannel prev) {
+    this(policy);
+    numDispatched.add(prev.numDispatched.sum());
+    numDropped.add(prev.numDropped.sum());
+    numCoalesced.add(prev.numCoalesced.sum());
+  }
+
+  /**
+   * イベントが発生したことをこのチャネルに伝える.
+   *
+   * @return 呼び出し元がすぐにイベントハンドラの実行を開始すべき場合 true
+   */
+  boolean onEventFired() {
+    if (policy.type() == EventDispatchPolicy.Type.CONCURRENT) {
+      numDispatched.increment();
+      return true;
+    }
+    synchronized (this) {
+      if (!running) {
+        running = true;
+        numDispatched.increment();
+        return true;
+      }
+      if (numPending < policy.maxPending()) {
+        ++numPending;
+      } else if (policy.type() == EventDispatchPolicy.Type.COALESCE) {
+        numCoalesced.increment();
+      } else {
+        numDropped.increment();
+      }
+      return false;
+    }
+  }
+
+  /**
+   * イベントハンドラの実行が終わったことをこのチャネルに伝える.
+   *
+   * @return 呼び出し元が待っていたイベントのイベントハンドラの実行を開始すべき場合 true
+   */
+  boolean onRunFinished() {
+    if (policy.type() == EventDispatchPolicy.Type.CONCURRENT) {
+      return false;
+    }
+    synchronized (this) {
+      if (numPending > 0) {
+        --numPending;
+        numDispatched.increment();
+        return true;
+      }
+      running = false;
+      return false;
+    }
+  }
+
+  /** このチャネルに適用されているポリシーを返す. */
+  EventDispatchPolicy getPolicy() {
+    return policy;
+  }
+
+  /** このチャネルの統計情報を返す. */
+  EventDispatchStats getStats() {
+    return new EventDispatchStats(
+        policy, numDispatched.sum(), numDropped.sum(), numCoalesced.sum());
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.executor;
+
+/**
+ * 同じイベントが連続して発生したときに, そのイベントハンドラをどのように呼び出すかを規定するポリシー.
+ *
+ * <p>1 回のイベントで呼ばれる全てのイベントハンドラの呼び出しをまとめて「実行」と呼ぶ.
+ *
+ * @param type ポリシーの種類
+ * @param queueDepth {@link Type#QUEUE} の場合, 実行中の処理の終了を待てるイベントの最大数
+ * @author K.Koike
+ */
+public record EventDispatchPolicy(Type type, int queueDepth) {
+
+  /** イベントが発生するたびに, 実行中の処理とは並行してイベントハンドラを呼ぶ. */
+  public static final EventDispatchPolicy CONCURRENT = new EventDispatchPolicy(Type.CONCURRENT, 0);
+  /** 前のイベントの実行が終わっていない場合, 新しいイベントを捨てる. */
+  public static final EventDispatchPolicy DROP_IF_RUNNING =
+      new EventDispatchPolicy(Type.DROP_IF_RUNNING, 0);
+  /** 前のイベントの実行が終わっていない場合, 新しいイベントをまとめて 1 回分だけ後で実行する. */
+  public static final EventDispatchPolicy COALESCE = new EventDispatchPolicy(Type.COALESCE, 1);
+
+  /** コンストラクタ. */
+  public EventDispatchPolicy {
+    if (type == null) {
+      throw new IllegalArgumentException("The policy type must not be null.");
+    }
+    if (type == Type.QUEUE && queueDepth < 1) {
+      throw new IllegalArgumentException(
+          "The queue depth must be greater than 0.  (%s)".formatted(queueDepth));
+    }
+  }
+
+  /**
+   * 前のイベントの実行が終わっていない場合, 新しいイベントを最大 {@code depth} 個まで待たせるポリシーを作成する.
+   * 待っているイベントが {@code depth} 個ある場合, 新しいイベントは捨てられる.
+   */
+  public static EventDispatchPolicy queue(int depth) {
+    return new EventDispatchPolicy(Type.QUEUE, depth);
+  }
+
+  /**
+   * 文字列からポリシーを作成する.
+   *
+   * @param str {@code CONCURRENT}, {@code DROP_IF_RUNNING}, {@code COALESCE},
+   *            {@code QUEUE:<depth>} のいずれか (大文字小文字は区別しない)
+   * @return 作成したポリシー
+   * @throws IllegalArgumentException {@code str} が不正な値であった場合
+   */
+  public static EventDispatchPolicy parse(String str) {
+    String[] fields = str.trim().toUpperCase().split(":", 2);
+    Type type = Type.valueOf(fields[0]);
+    return switch (type) {
+      case CONCURRENT -> CONCURRENT;
+      case DROP_IF_RUNNING -> DROP_IF_RUNNING;
+      case COALESCE -> COALESCE;
+      case QUEUE -> {
+        if (fields.length < 2) {
+          throw new IllegalArgumentException(
+              "The queue depth is not specified.  (%s)".formatted(str));
+        }
+        yield queue(Integer.parseInt(fields[1].trim()));
+      }
+    };
+  }
+
+  /** 実行中の処理の終了を待てるイベントの最大数を返す. */
+  int maxPending() {
+    return switch (type) {
+      case CONCURRENT, DROP_IF_RUNNING -> 0;
+      case COALESCE -> 1;
+      case QUEUE -> queueDepth;
+    };
+  }
+
+  @Override
+  public String toString() {
+    return (type == Type.QUEUE) ? "%s:%s".formatted(type, queueDepth) : type.toString();
+  }
+
+  /** ポリシーの種類. */
+  public enum Type {
+    CONCURRENT,
+    DROP_IF_RUNNING,
+    COALESCE,
+    QUEUE,
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.executor;
+
+/**
+ * イベントごとの呼び出し回数の統計.
+ *
+ * @param policy イベントに適用されているポリシー
+ * @param dispatched イベントハンドラの呼び出しを開始した回数
+ * @param dropped {@link EventDispatchPolicy} に従って捨てたイベントの数
+ * @param coalesced {@link EventDispatchPolicy#COALESCE} に従って他のイベントとまとめたイベントの数
+ * @author K.Koike
+ */
+public record EventDispatchStats(
+    EventDispatchPolicy policy, long dispatched, long dropped, long coalesced) {}
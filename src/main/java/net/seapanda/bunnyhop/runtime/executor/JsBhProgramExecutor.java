@@ -16,24 +16,33 @@
 
 package net.seapanda.bunnyhop.runtime.executor;
 
-import java.io.BufferedReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramEvent;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramNotification;
+import net.seapanda.bunnyhop.runtime.metrics.LatencyHistogram;
 import net.seapanda.bunnyhop.runtime.script.Keywords;
 import net.seapanda.bunnyhop.runtime.script.ScriptHelper;
 import net.seapanda.bunnyhop.runtime.service.LogManager;
+import net.seapanda.bunnyhop.runtime.service.MetricsManager;
 import net.seapanda.bunnyhop.utility.Utility;
 import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.Function;
 import org.mozilla.javascript.NativeArray;
+import org.mozilla.javascript.NativeObject;
 import org.mozilla.javascript.Script;
 import org.mozilla.javascript.ScriptableObject;
 
@@ -48,23 +57,56 @@ public class JsBhProgramExecutor implements BhProgramExecutor {
   private Script bhAppScript;
   /**  global this オブジェクト. */
   private ScriptableObject bhAppScope;
-  private final ExecutorService bhProgramExec = Executors.newFixedThreadPool(16);
+  /** イベントハンドラの {@code this} オブジェクトのプロトタイプとなる封印済みの標準オブジェクト. */
+  private final ScriptableObject sharedScope;
+  /** BhProgram のスレッドを実行する Executor. */
+  private final ExecutorService bhProgramExec;
   /** BhProgram に公開するヘルパークラス. */
   private final ScriptHelper scriptHelper;
   /** BunnyHop への送信データを格納するキュー. */
   private final BlockingQueue<BhProgramNotification> sendNotifList;
+  /** コンパイル済みのスクリプトを保持するオブジェクト. */
+  private final CompiledScriptCache scriptCache;
+  /**
+   * イベントハンドラの名前を返す JavaScript の関数の名前と,
+   * その関数から求めた「イベント名 -> イベントハンドラの名前のリスト」のマップ.
+   * イベントハンドラはスクリプトの実行時に確定するので, スクリプトを読み込むまで同じ値を使う.
+   */
+  private final Map<String, Map<BhProgramEvent.Name, List<String>>> resolverToHandlers =
+      new ConcurrentHashMap<>();
+  /** イベント名と, そのイベントのイベントハンドラの実行を制御するオブジェクトのマップ. */
+  private final Map<BhProgramEvent.Name, EventChannel> nameToChannel = new ConcurrentHashMap<>();
+  /** {@link #runScript} を呼んだ時刻 (ns).  プログラム開始イベントを送った後は 0. */
+  private volatile long scriptStartTime = 0;
+  /** イベントハンドラの実行を Executor に依頼してから, 実行が始まるまでの時間. */
+  private final LatencyHistogram dispatchLag =
+      MetricsManager.registry().histogram("event.dispatchLag");
 
   /**
    * コンストラクタ.
    *
    * @param scriptHelper BhProgram に公開するヘルパークラス.
    * @param sendNotifList 発行した通知を格納する FIFO
+   * @param scriptCache コンパイル済みのスクリプトを保持するオブジェクト
+   * @param bhProgramExec BhProgram のスレッドを実行する Executor.
+   *                      BhProgram のスレッドは 1 つのタスクとしてこの Executor に渡される.
+   * @param sharedScope 全てのスレッドで共有する封印済みの標準オブジェクト
    */
   public JsBhProgramExecutor(
-        ScriptHelper scriptHelper, BlockingQueue<BhProgramNotification> sendNotifList) {
+        ScriptHelper scriptHelper,
+        BlockingQueue<BhProgramNotification> sendNotifList,
+        CompiledScriptCache scriptCache,
+        ExecutorService bhProgramExec,
+        ScriptableObject sharedScope) {
     this.scriptHelper = scriptHelper;
+    this.sharedScope = sharedScope;
+    this.bhProgramExec = bhProgramExec;
     this.sendNotifList = sendNotifList;
-    Context cx = Context.enter();
+    this.scriptCache = scriptCache;
+    for (BhProgramEvent.Name name : BhProgramEvent.Name.values()) {
+      nameToChannel.put(name, new EventChannel(EventDispatchPolicy.CONCURRENT));
+    }
+    Context cx = ContextFactory.getGlobal().enterContext();
     bhAppScope = cx.initStandardObjects();
     Context.exit();
   }
@@ -73,10 +115,14 @@ public class JsBhProgramExecutor implements BhProgramExecutor {
   public synchronized boolean runScript(String fileName) {
     Path filePath = Paths.get(fileName);
     filePath = filePath.isAbsolute() ? filePath : Paths.get(Utility.execPath, fileName);
-    try (BufferedReader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8)) {
-      Context context = Context.enter();
-      context.setLanguageVersion(Context.VERSION_ES6);
-      bhAppScript = context.compileReader(reader, filePath.getFileName().toString(), 1, null);
+    scriptStartTime = System.nanoTime();
+    Context context = ContextFactory.getGlobal().enterContext();
+    try {
+      String source = Files.readString(filePath, StandardCharsets.UTF_8);
+      bhAppScript = scriptCache.getOrCompile(
+          context, source, filePath.getFileName().toString());
+      LogManager.logger().info("Compiled a script in %d ms.  (%s)".formatted(
+          (System.nanoTime() - scriptStartTime) / 1_000_000, fileName));
       return startBhApp(context, fileName);
     } catch (Exception e) {
       LogManager.logger().error("Failed to run a script.  (%s)\n%s".formatted(fileName, e));
@@ -95,7 +141,10 @@ public class JsBhProgramExecutor implements BhProgramExecutor {
           Keywords.Properties.BH_SCRIPT_HELPER,
           bhAppScope,
           Context.javaToJS(scriptHelper, bhAppScope));
+      resolverToHandlers.clear();
       boolean success = executeScript(bhAppScript, cx, bhAppScope);
+      // スクリプトの実行中に以前のイベントハンドラの情報がキャッシュされた可能性があるので再度消す.
+      resolverToHandlers.clear();
       isBhAppInitialized.set(true);
       return success;
     } catch (Exception e) {
@@ -116,21 +165,120 @@ public class JsBhProgramExecutor implements BhProgramExecutor {
   }
 
   @Override
-  public synchronized void fireEvent(BhProgramEvent event) {
+  public void fireEvent(BhProgramEvent event) {
     if (!isBhAppInitialized.get()) {
       return;
     }
     try {
-      Context cx = Context.enter();
-      Function getEventHandlers = (Function) bhAppScope.get(event.eventHandlerResolver);
-      var funcNameList = (NativeArray) getEventHandlers.call(
-          cx, bhAppScope, bhAppScope, new String[] {event.name.toString()});
-      for (Object funcName : funcNameList) {
-        bhProgramExec.submit(() -> callFunc(funcName.toString()));
+      if (!getEventHandlerNames(event).isEmpty()) {
+        EventChannel channel = nameToChannel.get(event.name);
+        if (channel.onEventFired()) {
+          dispatch(event, channel);
+        }
+      }
+      if (event.name == BhProgramEvent.Name.PROGRAM_START && scriptStartTime != 0) {
+        LogManager.logger().info(
+            "Dispatched the program start event %d ms after loading a script.".formatted(
+                (System.nanoTime() - scriptStartTime) / 1_000_000));
+        scriptStartTime = 0;
       }
     } catch (Exception e) {
       LogManager.logger().error(
           "Failed to fire an event.  (%s)\n%s".formatted(event, e));
+    }
+  }
+
+  /**
+   * {@code event} のイベントハンドラを全て呼び出す.
+   * 最後のイベントハンドラが終了したとき, {@code channel} に待っているイベントがあれば,
+   * そのイベントのイベントハンドラを呼び出す.
+   */
+  private void dispatch(BhProgramEvent event, EventChannel channel) {
+    List<String> funcNames = getEventHandlerNames(event);
+    if (funcNames.isEmpty()) {
+      if (channel.onRunFinished()) {
+        dispatch(event, channel);
+      }
+      return;
+    }
+    var numRunning = new AtomicInteger(funcNames.size());
+    long submitTime = System.nanoTime();
+    for (String funcName : funcNames) {
+      try {
+        bhProgramExec.submit(() -> {
+          dispatchLag.recordSince(submitTime);
+          try {
+            callFunc(funcName);
+          } finally {
+            onHandlerFinished(event, channel, numRunning);
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        LogManager.logger().error(
+            "Failed to call an event handler.  (%s)\n%s".formatted(funcName, e));
+        onHandlerFinished(event, channel, numRunning);
+      }
+    }
+  }
+
+  /**
+   * {@code event} のイベントハンドラが 1 つ終了したときの処理.
+   * 実行を依頼できなかったイベントハンドラも, 終了したものとして扱う.
+   *
+   * @param numRunning {@code event} のイベントハンドラのうち, 終了していないものの数
+   */
+  private void onHandlerFinished(
+      BhProgramEvent event, EventChannel channel, AtomicInteger numRunning) {
+    if (numRunning.decrementAndGet() == 0 && channel.onRunFinished()) {
+      dispatch(event, channel);
+    }
+  }
+
+  @Override
+  public void setEventDispatchPolicy(BhProgramEvent.Name name, EventDispatchPolicy policy) {
+    nameToChannel.compute(name, (key, prev) ->
+        (prev == null) ? new EventChannel(policy) : new EventChannel(policy, prev));
+  }
+
+  @Override
+  public Map<BhProgramEvent.Name, EventDispatchStats> getEventDispatchStats() {
+    var nameToStats =
+        new EnumMap<BhProgramEvent.Name, EventDispatchStats>(BhProgramEvent.Name.class);
+    nameToChannel.forEach((name, channel) -> nameToStats.put(name, channel.getStats()));
+    return nameToStats;
+  }
+
+  /** {@code event} に対応するイベントハンドラの名前のリストを返す. */
+  private List<String> getEventHandlerNames(BhProgramEvent event) {
+    Map<BhProgramEvent.Name, List<String>> eventToHandlers =
+        resolverToHandlers.get(event.eventHandlerResolver);
+    if (eventToHandlers == null) {
+      eventToHandlers = resolverToHandlers.computeIfAbsent(
+          event.eventHandlerResolver, this::resolveEventHandlers);
+    }
+    return eventToHandlers.getOrDefault(event.name, List.of());
+  }
+
+  /**
+   * {@code resolverName} で指定した JavaScript の関数を呼んで, 全てのイベントのイベントハンドラの名前を求める.
+   *
+   * @return イベント名とそのイベントハンドラの名前のリストのマップ
+   */
+  private Map<BhProgramEvent.Name, List<String>> resolveEventHandlers(String resolverName) {
+    Context cx = ContextFactory.getGlobal().enterContext();
+    try {
+      var resolver = (Function) bhAppScope.get(resolverName);
+      var eventToHandlers =
+          new EnumMap<BhProgramEvent.Name, List<String>>(BhProgramEvent.Name.class);
+      for (BhProgramEvent.Name name : BhProgramEvent.Name.values()) {
+        List<?> funcNameList = (NativeArray) resolver.call(
+            cx, bhAppScope, bhAppScope, new String[] {name.toString()});
+        List<String> funcNames = funcNameList.stream().map(Object::toString).toList();
+        if (!funcNames.isEmpty()) {
+          eventToHandlers.put(name, funcNames);
+        }
+      }
+      return Collections.unmodifiableMap(eventToHandlers);
     } finally {
       Context.exit();
     }
@@ -138,8 +286,8 @@ public class JsBhProgramExecutor implements BhProgramExecutor {
 
   /** {@code funcName} で指定した JavaScript の関数を呼ぶ. */
   private Object callFunc(String funcName) {
-    Context cx = Context.enter();
-    ScriptableObject thisObj = cx.initStandardObjects(); // funcName.call(thisObj, args...);
+    Context cx = ContextFactory.getGlobal().enterContext();
+    ScriptableObject thisObj = createThisObj(); // funcName.call(thisObj, args...);
     try {
       Function func = (Function) bhAppScope.get(funcName);
       return func.call(cx, bhAppScope, thisObj, new Object[0]);
@@ -155,6 +303,14 @@ public class JsBhProgramExecutor implements BhProgramExecutor {
     return null;
   }
 
+  /** イベントハンドラの {@code this} オブジェクトを作成する. */
+  private ScriptableObject createThisObj() {
+    var thisObj = new NativeObject();
+    thisObj.setPrototype(sharedScope);
+    thisObj.setParentScope(sharedScope);
+    return thisObj;
+  }
+
   /** スレッドが例外で終了したときの処理を呼ぶ. */
   private void notifyThreadEnd(Context cx, ScriptableObject thisObj, Throwable exception) {
     String funcName = Keywords.Funcs.NOTIFY_THREAD_END;
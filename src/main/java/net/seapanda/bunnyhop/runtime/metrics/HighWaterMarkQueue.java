@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.metrics;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 要素数の最大値を記録する {@link ArrayBlockingQueue}.
+ *
+ * @param <E> 格納する要素の型
+ * @author K.Koike
+ */
+public class HighWaterMarkQueue<E> extends ArrayBlockingQueue<E> {
+
+  /** これまでの要素数の最大値. */
+  private final AtomicInteger highWaterMark = new AtomicInteger();
+
+  /**
+   * コンストラクタ.
+   *
+   * @param capacity このキューの容量
+   */
+  public HighWaterMarkQueue(int capacity) {
+    super(capacity);
+  }
+
+  @Override
+  public boolean offer(E e) {
+    boolean added = super.offer(e);
+    if (added) {
+      updateHighWaterMark();
+    }
+    return added;
+  }
+
+  @Override
+  public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+    boolean added = super.offer(e, timeout, unit);
+    if (added) {
+      updateHighWaterMark();
+    }
+    return added;
+  }
+
+  @Override
+  public void put(E e) throws InterruptedException {
+    super.put(e);
+    updateHighWaterMark();
+  }
+
+  /** これまでの要素数の最大値を返す. */
+  public int getHighWaterMark() {
+    return highWaterMark.get();
+  }
+
+  private void updateHighWaterMark() {
+    int depth = size();
+    if (depth > highWaterMark.get()) {
+      highWaterMark.accumulateAndGet(depth, Math::max);
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import net.seapanda.bunnyhop.bhprogram.common.BhHistogramSnapshot;
+
+/**
+ * 時間の分布を記録するヒストグラム.
+ *
+ * <p>値の範囲を 2 のべき乗ごとに区切り, さらにそれぞれを 16 個のバケットに等分する.
+ * 記録はロックを取らずにバケットのカウンタを 1 つ増やすだけなので, 複数のスレッドから同時に呼んでよい.
+ *
+ * @author K.Koike
+ */
+public class LatencyHistogram {
+
+  /** 2 のべき乗で区切った範囲 1 つあたりのバケットの数の対数. */
+  private static final int SUB_BUCKET_BITS = 4;
+  /** 2 のべき乗で区切った範囲 1 つあたりのバケットの数. */
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  /** バケットの総数.  {@link Long#MAX_VALUE} までの値を表せる. */
+  private static final int NUM_BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * 値を記録する.
+   *
+   * @param nanos 記録する時間 (ns).  負の値は 0 として記録する.
+   */
+  public void record(long nanos) {
+    long value = Math.max(nanos, 0);
+    buckets.getAndIncrement(indexOf(value));
+    sum.add(value);
+    if (value > max.get()) {
+      max.accumulateAndGet(value, Math::max);
+    }
+  }
+
+  /**
+   * {@code startNanos} から現在までの時間を記録する.
+   *
+   * @param startNanos {@link System#nanoTime} で取得した開始時刻
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /** 記録した値の分布を返す. */
+  public BhHistogramSnapshot snapshot() {
+    long[] counts = new long[NUM_BUCKETS];
+    long count = 0;
+    for (int i = 0; i < NUM_BUCKETS; ++i) {
+      counts[i] = buckets.get(i);
+      count += counts[i];
+    }
+    long maxValue = max.get();
+    return new BhHistogramSnapshot(
+        count,
+        sum.sum(),
+        maxValue,
+        percentile(counts, count, 0.5, maxValue),
+        percentile(counts, count, 0.9, maxValue),
+        percentile(counts, count, 0.99, maxValue),
+        percentile(counts, count, 0.999, maxValue));
+  }
+
+  /**
+   * {@code counts} から {@code ratio} に対応するパーセンタイル値を求める.
+   *
+   * @return 該当するバケットの最大値.  ただし {@code max} を超えない.
+   */
+  private static long percentile(long[] counts, long total, double ratio, long max) {
+    if (total == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(total * ratio);
+    long accum = 0;
+    for (int i = 0; i < counts.length; ++i) {
+      accum += counts[i];
+      if (accum >= rank) {
+        return Math.min(highestValueOf(i), max);
+      }
+    }
+    return max;
+  }
+
+  /** {@code value} を記録するバケットのインデックスを返す. */
+  private static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+    return (shift + 1) * SUB_BUCKETS + sub;
+  }
+
+  /** {@code index} のバケットに記録される最大の値を返す. */
+  private static long highestValueOf(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long sub = index % SUB_BUCKETS;
+    long lowest = (SUB_BUCKETS + sub) << shift;
+    long width = 1L << shift;
+    return (lowest > Long.MAX_VALUE - width) ? Long.MAX_VALUE : lowest + width - 1;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import net.seapanda.bunnyhop.bhprogram.common.BhHistogramSnapshot;
+import net.seapanda.bunnyhop.bhprogram.common.BhMetricsSnapshot;
+import net.seapanda.bunnyhop.runtime.service.LogManager;
+
+/**
+ * {@link MetricsRegistry} の計測値を定期的にファイルに書き出すクラス.
+ *
+ * <p>ファイルは書き出すたびに最新の計測値で置き換える.
+ *
+ * @author K.Koike
+ */
+public class MetricsFileWriter {
+
+  private final MetricsRegistry registry;
+  /** 計測値を書き出すファイルのパス. */
+  private final Path file;
+  private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(
+      Thread.ofPlatform().name("MetricsFileWriter").daemon().factory());
+  /** 直前の書き出しに失敗した場合 true.  同じエラーを繰り返しログに出さないために使う. */
+  private boolean failed = false;
+
+  /**
+   * コンストラクタ.
+   *
+   * @param registry 計測値を取得するオブジェクト
+   * @param file 計測値を書き出すファイルのパス
+   */
+  public MetricsFileWriter(MetricsRegistry registry, Path file) {
+    this.registry = registry;
+    this.file = file;
+  }
+
+  /**
+   * 計測値の定期的な書き出しを開始する.
+   *
+   * @param intervalSec 計測値を書き出す間隔 (秒)
+   */
+  public void start(long intervalSec) {
+    writer.scheduleWithFixedDelay(this::write, intervalSec, intervalSec, TimeUnit.SECONDS);
+  }
+
+  /** 計測値をファイルに書き出す. */
+  private void write() {
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try {
+      Files.writeString(tmp, format(registry.snapshot()), StandardCharsets.UTF_8);
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      failed = false;
+    } catch (IOException | RuntimeException e) {
+      if (!failed) {
+        LogManager.logger().error("Failed to write metrics.  (%s)\n%s".formatted(file, e));
+      }
+      failed = true;
+    }
+  }
+
+  /** {@code snapshot} を 1 行に 1 つの計測値を書いた文字列に変換する. */
+  private static String format(BhMetricsSnapshot snapshot) {
+    var text = new StringBuilder();
+    text.append("# ").append(Instant.ofEpochMilli(snapshot.timestamp())).append("\n");
+    snapshot.counters().forEach((name, val) ->
+        text.append("counter ").append(name).append(" ").append(val).append("\n"));
+    snapshot.gauges().forEach((name, val) ->
+        text.append("gauge ").append(name).append(" ").append(val).append("\n"));
+    snapshot.histograms().forEach((name, val) -> text.append(formatHistogram(name, val)));
+    return text.toString();
+  }
+
+  private static String formatHistogram(String name, BhHistogramSnapshot histogram) {
+    return "histogram %s count=%d mean=%.0f p50=%d p90=%d p99=%d p999=%d max=%d (ns)\n".formatted(
+        name,
+        histogram.count(),
+        histogram.mean(),
+        histogram.p50(),
+        histogram.p90(),
+        histogram.p99(),
+        histogram.p999(),
+        histogram.max());
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import net.seapanda.bunnyhop.bhprogram.common.BhHistogramSnapshot;
+import net.seapanda.bunnyhop.bhprogram.common.BhMetricsSnapshot;
+import net.seapanda.bunnyhop.runtime.service.LogManager;
+
+/**
+ * BhRuntime の動作状況を表す計測値を名前で管理するクラス.
+ *
+ * <p>カウンタとヒストグラムは, 計測する側が作成時に取得して保持し, 以降は名前を引かずに値を記録する.
+ * ゲージは値を返すメソッドを登録しておき, {@link #snapshot} を呼んだときに値を取得する.
+ *
+ * @author K.Koike
+ */
+public class MetricsRegistry {
+
+  private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+  private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+  private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+  /**
+   * {@code name} に対応する累計値のカウンタを返す.  存在しない場合は作成する.
+   *
+   * @param name カウンタの名前
+   * @return {@code name} に対応するカウンタ
+   */
+  public LongAdder counter(String name) {
+    return counters.computeIfAbsent(name, key -> new LongAdder());
+  }
+
+  /**
+   * {@code name} に対応するヒストグラムを返す.  存在しない場合は作成する.
+   *
+   * @param name ヒストグラムの名前
+   * @return {@code name} に対応するヒストグラム
+   */
+  public LatencyHistogram histogram(String name) {
+    return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+  }
+
+  /**
+   * {@code name} に対応するゲージを登録する.  同じ名前のゲージが登録されていた場合は置き換える.
+   *
+   * @param name ゲージの名前
+   * @param supplier {@link #snapshot} を呼んだときに, ゲージの値を返すメソッド
+   */
+  public void gauge(String name, LongSupplier supplier) {
+    gauges.put(name, supplier);
+  }
+
+  /** 全ての計測値の現在の値を返す. */
+  public BhMetricsSnapshot snapshot() {
+    var counterVals = new HashMap<String, Long>();
+    counters.forEach((name, counter) -> counterVals.put(name, counter.sum()));
+    var gaugeVals = new HashMap<String, Long>();
+    gauges.forEach((name, gauge) -> {
+      try {
+        gaugeVals.put(name, gauge.getAsLong());
+      } catch (Exception e) {
+        LogManager.logger().error("Failed to read a gauge.  (%s)\n%s".formatted(name, e));
+      }
+    });
+    var histogramVals = new HashMap<String, BhHistogramSnapshot>();
+    histograms.forEach((name, histogram) -> histogramVals.put(name, histogram.snapshot()));
+    return new BhMetricsSnapshot(
+        System.currentTimeMillis(), counterVals, gaugeVals, histogramVals);
+  }
+}
@@ -16,11 +16,11 @@
 
 package net.seapanda.bunnyhop.runtime.script;
 
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramNotification;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramResponse;
 import net.seapanda.bunnyhop.runtime.BhConstants;
+import net.seapanda.bunnyhop.runtime.metrics.HighWaterMarkQueue;
 
 /**
  * BunnyHop と BhRuntimeで送受信されるメッセージを格納するキューのセット.
@@ -36,12 +36,12 @@ public record MessageQueueSet(
     BlockingQueue<BhProgramResponse> sendRespList,
     BlockingQueue<BhProgramResponse> recvRespList) {
 
-  /** コンストラクタ. */
+  /** コンストラクタ.  各キューは要素数の最大値を記録する. */
   public MessageQueueSet() {
     this(
-      new ArrayBlockingQueue<>(BhConstants.MAX_MSG_QUEUE_SIZE),
-      new ArrayBlockingQueue<>(BhConstants.MAX_MSG_QUEUE_SIZE),
-      new ArrayBlockingQueue<>(BhConstants.MAX_MSG_QUEUE_SIZE),
-      new ArrayBlockingQueue<>(BhConstants.MAX_MSG_QUEUE_SIZE));
+      new HighWaterMarkQueue<>(BhConstants.MAX_MSG_QUEUE_SIZE),
+      new HighWaterMarkQueue<>(BhConstants.MAX_MSG_QUEUE_SIZE),
+      new HighWaterMarkQueue<>(BhConstants.MAX_MSG_QUEUE_SIZE),
+      new HighWaterMarkQueue<>(BhConstants.MAX_MSG_QUEUE_SIZE));
   }
 }
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * 送信したコマンドの応答を待つスレッドに, 受信した応答を渡すためのテーブル.
+ *
+ * <p>応答は, コマンドの ID をテーブルのサイズでマスクした位置にある, 事前に作成したスロットを使って受け渡す.
+ * そのため, コマンドごとにオブジェクトを作成しない.
+ * 同じ位置のスロットが別のコマンドに使われている場合に限り, そのコマンド用のスロットを新たに作成する.
+ *
+ * @param <T> コマンドの応答の型
+ * @author K.Koike
+ */
+public class PendingRequestTable<T> {
+
+  /** 使われていないスロットの状態. */
+  private static final long FREE = Long.MIN_VALUE;
+  /** 確保中か, 応答の書き込み中か, 解放中のスロットの状態. */
+  private static final long BUSY = Long.MIN_VALUE + 1;
+  private static final VarHandle STATE;
+
+  static {
+    try {
+      STATE = MethodHandles.lookup().findVarHandle(Slot.class, "state", long.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  /** 事前に作成したスロット. */
+  private final Slot<T>[] slots;
+  /** コマンドの ID から {@link #slots} のインデックスを求めるためのマスク. */
+  private final int mask;
+  /** 使用中のスロットと同じ位置になったコマンドの ID とそのコマンド用に作成したスロットのマップ. */
+  private final Map<Long, Slot<T>> idToOverflowSlot = new ConcurrentHashMap<>();
+
+  /**
+   * コンストラクタ.
+   *
+   * @param size 事前に作成するスロットの数.  2 のべき乗でなければならない.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public PendingRequestTable(int size) {
+    if (size < 1 || Integer.bitCount(size) != 1) {
+      throw new IllegalArgumentException("The size must be a power of two.  (%s)".formatted(size));
+    }
+    slots = new Slot[size];
+    for (int i = 0; i < size; ++i) {
+      slots[i] = new Slot<>(this, false);
+    }
+    mask = size - 1;
+  }
+
+  /**
+   * ID が {@code id} のコマンドの応答を待つためのスロットを確保する.
+   * コマンドを送信する前に, 応答を待つスレッドから呼ぶこと.
+   *
+   * @param id 応答を待つコマンドの ID.  0 以上でなければならない.
+   * @return 応答を待つためのスロット
+   */
+  public Slot<T> register(long id) {
+    if (id < 0) {
+      throw new IllegalArgumentException("The ID must not be negative.  (%s)".formatted(id));
+    }
+    Slot<T> slot = slots[(int) (id & mask)];
+    if (!slot.tryAcquire(id)) {
+      slot = new Slot<>(this, true);
+      slot.tryAcquire(id);
+      idToOverflowSlot.put(id, slot);
+    }
+    return slot;
+  }
+
+  /**
+   * ID が {@code id} のコマンドの応答を待っているスレッドに {@code resp} を渡す.
+   *
+   * @param id 応答に対応するコマンドの ID
+   * @param resp コマンドの応答
+   * @return {@code id} のコマンドの応答を待っているスレッドが存在した場合 true
+   */
+  public boolean complete(long id, T resp) {
+    if (slots[(int) (id & mask)].tryComplete(id, resp)) {
+      return true;
+    }
+    Slot<T> slot = idToOverflowSlot.get(id);
+    return slot != null && slot.tryComplete(id, resp);
+  }
+
+  /** 応答を受け取っていないコマンドの ID を全て {@code action} に渡す. */
+  public void forEachPendingId(LongConsumer action) {
+    for (Slot<T> slot : slots) {
+      long state = slot.state;
+      if (state >= 0) {
+        action.accept(state);
+      }
+    }
+    for (Slot<T> slot : idToOverflowSlot.values()) {
+      long state = slot.state;
+      if (state >= 0) {
+        action.accept(state);
+      }
+    }
+  }
+
+  /**
+   * 1 つのコマンドの応答を受け渡すためのスロット.
+   *
+   * <p>スロットの状態は次のように遷移する.
+   * <pre>
+   *   応答を受け取った場合 : FREE -> BUSY -> コマンドの ID -> BUSY -> ~コマンドの ID -> FREE
+   *   キャンセルした場合   : FREE -> BUSY -> コマンドの ID -> BUSY -> FREE
+   * </pre>
+   */
+  public static class Slot<T> {
+
+    private final PendingRequestTable<T> table;
+    /** {@link PendingRequestTable#idToOverflowSlot} に格納されたスロットの場合 true. */
+    private final boolean isOverflow;
+    /** スロットの状態. */
+    private volatile long state = FREE;
+    /** このスロットで応答を待っているコマンドの ID. */
+    private long id;
+    /** 受け取った応答. */
+    private T resp;
+    /** 応答を待っているスレッド. */
+    private volatile Thread waiter;
+
+    private Slot(PendingRequestTable<T> table, boolean isOverflow) {
+      this.table = table;
+      this.isOverflow = isOverflow;
+    }
+
+    /**
+     * このスロットが使われていない場合, ID が {@code id} のコマンド用に確保する.
+     *
+     * <p>{@link #id} と {@link #waiter} を書き込んでから状態を ID にする.
+     * 状態が ID になった時点で {@link #tryComplete} が応答を書き込めるので, 順序を入れ替えてはならない.
+     */
+    private boolean tryAcquire(long id) {
+      if (!STATE.compareAndSet(this, FREE, BUSY)) {
+        return false;
+      }
+      this.id = id;
+      waiter = Thread.currentThread();
+      state = id;
+      return true;
+    }
+
+    /** このスロットが ID が {@code id} のコマンド用に確保されている場合, {@code resp} を書き込む. */
+    private boolean tryComplete(long id, T resp) {
+      if (!STATE.compareAndSet(this, id, BUSY)) {
+        return false;
+      }
+      Thread waiter = this.waiter;
+      this.resp = resp;
+      state = ~id;
+      LockSupport.unpark(waiter);
+      return true;
+    }
+
+    /**
+     * 応答を受け取るまで待つ.
+     * このメソッドから戻ると, このスロットは解放される.
+     *
+     * @return 受け取った応答
+     * @throws InterruptedException 応答を待っている間に割り込まれた場合
+     */
+    public T await() throws InterruptedException {
+      boolean interrupted = false;
+      while (state != ~id) {
+        if (!interrupted && Thread.interrupted()) {
+          if (STATE.compareAndSet(this, id, BUSY)) {
+            release();
+            throw new InterruptedException();
+          }
+          // 応答の書き込み中なので, 書き込みが終わるのを待って応答を返す.
+          interrupted = true;
+        }
+        if (interrupted) {
+          Thread.onSpinWait();
+        } else {
+          LockSupport.park(this);
+        }
+      }
+      T resp = this.resp;
+      release();
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      return resp;
+    }
+
+    /** 応答を待たずにこのスロットを解放する.  {@link #await} から戻った後に呼んではならない. */
+    public void cancel() {
+      while (true) {
+        if (STATE.compareAndSet(this, id, BUSY)) {
+          break;
+        }
+        long state = this.state;
+        if (state == ~id) {
+          break;
+        }
+        Thread.onSpinWait();
+      }
+      release();
+    }
+
+    private void release() {
+      resp = null;
+      waiter = null;
+      if (isOverflow) {
+        table.idToOverflowSlot.remove(id);
+      }
+      state = FREE;
+    }
+  }
+}
@@ -69,6 +69,16 @@ public class ScriptHelper {
         return textInput.scanln();
       }
 
+      @Override
+      public String scanln(long timeout) throws Exception {
+        return textInput.scanln(timeout);
+      }
+
+      @Override
+      public String read(int maxChars) throws Exception {
+        return textInput.read(maxChars);
+      }
+
       @Override
       public void print(String text) throws Exception {
         textOutput.print(text);
@@ -71,14 +71,27 @@ public class ScriptThreadContext {
   /**
    * コールスタックのコピーを返す.
    *
-   * <p>コールスタック : 各関数呼び出しに対応するシンボルの ID を格納するスタック
+   * <p>コールスタック : 各関数呼び出しに対応するシンボルの ID を格納するスタック.
+   * シンボルの ID は文字列か, {@link SymbolTable#intern} で得た整数で格納されている.
    *
+   * @param symbols シンボルの ID を {@link BhSymbolId} に変換するのに使うテーブル
    * @return コールスタックのコピー
    */
-  public List<BhSymbolId> getCallStack() {
-    return callStack.stream()
-        .map(item -> BhSymbolId.of(item.toString()))
-        .collect(Collectors.toCollection(ArrayList::new));
+  public List<BhSymbolId> getCallStack(SymbolTable symbols) {
+    var copy = new ArrayList<BhSymbolId>(callStack.size());
+    for (Object item : callStack) {
+      copy.add(symbols.symbolOf(item));
+    }
+    return copy;
+  }
+
+  /**
+   * コールスタックをコピーせずに返す.
+   *
+   * <p>このスレッドコンテキストと紐づくスレッドの中でのみ参照し, 変更しないこと.
+   */
+  public List<?> getRawCallStack() {
+    return callStack;
   }
 
   /** コールスタックの要素数を返す. */
@@ -107,13 +120,13 @@ public class ScriptThreadContext {
         .collect(Collectors.toCollection(ArrayList::new));
   }
 
-  /** 次に実行するノードの ID を取得する. */
-  public BhSymbolId getNextNodeInstanceId() {
-    Object nextNodeInstId = context.get(idxNextNodeInstId);
-    if (nextNodeInstId == null) {
-      return BhSymbolId.NONE;
-    }
-    return BhSymbolId.of(nextNodeInstId.toString());
+  /**
+   * 次に実行するノードの ID を取得する.
+   *
+   * @param symbols シンボルの ID を {@link BhSymbolId} に変換するのに使うテーブル
+   */
+  public BhSymbolId getNextNodeInstanceId(SymbolTable symbols) {
+    return symbols.symbolOf(context.get(idxNextNodeInstId));
   }
 
   /** スレッドコンテキストの各情報が格納された配列を返す. */
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import net.seapanda.bunnyhop.bhprogram.common.BhSymbolId;
+
+/**
+ * シンボルの ID (文字列) と, それに 1 対 1 で対応する整数を管理するクラス.
+ *
+ * <p>整数は 0 から順に割り当てられる.
+ * 登録済みの ID に対応する {@link BhSymbolId} はこのクラスが保持し, 同じオブジェクトを返し続ける.
+ *
+ * @author K.Koike
+ */
+public class SymbolTable {
+
+  /** シンボルの ID とそれに対応する整数のマップ. */
+  private final Map<String, Integer> idToIndex = new ConcurrentHashMap<>();
+  /** 整数をインデックスとして, 対応する {@link BhSymbolId} を格納した配列. */
+  private volatile BhSymbolId[] symbols = new BhSymbolId[64];
+  /** 登録済みのシンボルの数. */
+  private int size = 0;
+  /** {@link #symbols} の更新を排他的に行うためのロック. */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /**
+   * {@code id} に対応する整数を返す.  {@code id} が未登録の場合は新たに登録する.
+   *
+   * @param id 整数を取得するシンボルの ID
+   * @return {@code id} に対応する整数
+   */
+  public int intern(String id) {
+    Integer index = idToIndex.get(id);
+    if (index != null) {
+      return index;
+    }
+    lock.lock();
+    try {
+      index = idToIndex.get(id);
+      if (index != null) {
+        return index;
+      }
+      BhSymbolId[] syms = symbols;
+      if (size == syms.length) {
+        syms = Arrays.copyOf(syms, syms.length * 2);
+      }
+      syms[size] = BhSymbolId.of(id);
+      symbols = syms;
+      idToIndex.put(id, size);
+      return size++;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * {@code id} に対応する整数を返す.
+   *
+   * @param id 整数を取得するシンボルの ID
+   * @return {@code id} に対応する整数.  {@code id} が未登録の場合は -1.
+   */
+  public int indexOf(String id) {
+    Integer index = idToIndex.get(id);
+    return (index == null) ? -1 : index;
+  }
+
+  /**
+   * {@code index} に対応する {@link BhSymbolId} を返す.
+   *
+   * @param index {@link #intern} が返した整数
+   * @return {@code index} に対応する {@link BhSymbolId}.  対応するものがない場合は {@link BhSymbolId#NONE}.
+   */
+  public BhSymbolId symbolOf(int index) {
+    BhSymbolId[] syms = symbols;
+    if (index < 0 || index >= syms.length || syms[index] == null) {
+      return BhSymbolId.NONE;
+    }
+    return syms[index];
+  }
+
+  /**
+   * BhProgram が保持するシンボルの ID に対応する {@link BhSymbolId} を返す.
+   *
+   * @param item シンボルの ID を表す文字列か, {@link #intern} が返した整数
+   * @return {@code item} に対応する {@link BhSymbolId}.
+   *         {@code item} が null の場合は {@link BhSymbolId#NONE}.
+   */
+  public BhSymbolId symbolOf(Object item) {
+    if (item == null) {
+      return BhSymbolId.NONE;
+    }
+    if (item instanceof Number num) {
+      return symbolOf(num.intValue());
+    }
+    return symbolOf(intern(item.toString()));
+  }
+}
@@ -16,10 +16,12 @@
 
 package net.seapanda.bunnyhop.runtime.script.debug;
 
-import java.io.ByteArrayOutputStream;
-import java.io.ObjectOutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -29,24 +31,36 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import net.seapanda.bunnyhop.bhprogram.common.BhSymbolId;
 import net.seapanda.bunnyhop.bhprogram.common.BhThreadState;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramNotification;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.BhBreakpoint;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.BhLogpointMessage;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.BhProfile;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.BhProfileClock;
+import net.seapanda.bunnyhop.bhprogram.common.message.exception.BhExceptionSnapshot;
 import net.seapanda.bunnyhop.bhprogram.common.message.exception.BhProgramException;
+import net.seapanda.bunnyhop.bhprogram.common.message.exception.NoSuchCursorException;
 import net.seapanda.bunnyhop.bhprogram.common.message.exception.NoSuchSymbolException;
 import net.seapanda.bunnyhop.bhprogram.common.message.exception.NoSuchThreadException;
 import net.seapanda.bunnyhop.bhprogram.common.message.exception.ThreadNotSuspendedException;
 import net.seapanda.bunnyhop.bhprogram.common.message.thread.BhCallStackItem;
 import net.seapanda.bunnyhop.bhprogram.common.message.thread.BhThreadContext;
+import net.seapanda.bunnyhop.bhprogram.common.message.thread.BhThreadInspection;
+import net.seapanda.bunnyhop.bhprogram.common.message.thread.BhVarStackFrame;
+import net.seapanda.bunnyhop.bhprogram.common.message.variable.BhListPage;
 import net.seapanda.bunnyhop.bhprogram.common.message.variable.BhListVariable;
 import net.seapanda.bunnyhop.bhprogram.common.message.variable.BhScalarVariable;
 import net.seapanda.bunnyhop.bhprogram.common.message.variable.BhVariable;
+import net.seapanda.bunnyhop.runtime.BhConstants;
 import net.seapanda.bunnyhop.runtime.script.Keywords;
 import net.seapanda.bunnyhop.runtime.script.ScriptThreadContext;
-import net.seapanda.bunnyhop.utility.concurrent.MemorySynchronizer;
-import net.seapanda.bunnyhop.utility.concurrent.SynchronizingTimer;
+import net.seapanda.bunnyhop.runtime.script.SymbolTable;
+import net.seapanda.bunnyhop.runtime.service.LogManager;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.Function;
@@ -61,10 +75,42 @@ import org.mozilla.javascript.ScriptableObject;
  */
 public class BhProgramDebugger implements Debugger, DebugInstrumentation {
 
+  private static final VarHandle PUBLISHED;
+
+  static {
+    try {
+      PUBLISHED = MethodHandles.lookup().findVarHandle(
+          BhProgramDebugger.class, "published", int.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
   /** スレッド ID とその ID のスレッドに関連する情報を格納したオブジェクトのマップ. */
   private final Map<Long, ThreadInfo> threadToInfo = new ConcurrentHashMap<>();
-  /** ブレークポイント一覧. */
-  private final Set<String> breakpoints = ConcurrentHashMap.<String>newKeySet();
+  /** このメソッドを呼び出したスレッドに関連する情報を格納したオブジェクト. */
+  private final ThreadLocal<ThreadInfo> currentThreadInfo = new ThreadLocal<>();
+  /** シンボルの ID とそれに対応する整数を管理するテーブル. */
+  private final SymbolTable symbols = new SymbolTable();
+  /** ブレークポイント一覧.  {@link #symbols} で変換した整数の集合.  {@link #armLock} で保護する. */
+  private final BitSet breakpoints = new BitSet();
+  /**
+   * {@link #breakpoints} のスナップショット.
+   * {@link #conditionalWait} はロックを取らずにこちらを参照する.
+   */
+  private volatile long[] breakpointBits = new long[0];
+  /**
+   * 停止条件などを伴うブレークポイントの処理.  キーは {@link #symbols} で変換した整数.
+   * {@link #armLock} を取得した状態で, 新しいマップに置き換えることで更新する.
+   */
+  private volatile Map<Integer, BreakpointAction> breakpointActions = Map.of();
+  /**
+   * ブレークポイントが存在するか, 停止条件が設定されたスレッドが存在する場合 true.
+   * false の場合, {@link #conditionalWait} は停止条件を調べずに戻る.
+   */
+  private volatile boolean isArmed = false;
+  /** {@link #isArmed} の更新を排他的に行うためのロック. */
+  private final ReentrantLock armLock = new ReentrantLock();
   /** 発行した通知を格納する FIFO. */
   private final BlockingQueue<BhProgramNotification> sendNotifList;
   /** BhProgram のデータを文字列に変換するメソッド. */
@@ -73,67 +119,137 @@ public class BhProgramDebugger implements Debugger, DebugInstrumentation {
   private volatile List<?> globalVars = new ArrayList<>();
   /** イベントハンドラの ID のリスト. */
   private volatile Set<BhSymbolId> entryPointIds = new HashSet<>();
-  /** メモリ同期用のオブジェクト. */
-  private final MemorySynchronizer memSync = new MemorySynchronizer();
+  /**
+   * BhProgram のスレッドによる書き込みを, 変数を読み出すスレッドに公開するためのフィールド.
+   * {@link #PUBLISHED} を通して, {@link #publishWrites} で書き込み, {@link #acquireWrites} で読み出す.
+   */
+  @SuppressWarnings("unused")
+  private int published = 0;
+  /** 変数の値の取得に使う封印済みの標準オブジェクト. */
+  private final ScriptableObject sharedScope;
+  /** リストの値をページ単位で取得するためのカーソル一覧. */
+  private final ListCursorTable listCursors = new ListCursorTable(BhConstants.MAX_LIST_CURSORS);
+  /** 処理ごとの実行回数と実行時間を計測するオブジェクト. */
+  private final ExecutionProfiler profiler;
+
+  /**
+   * コンストラクタ.
+   *
+   * @param sendNotifList 発行した通知を格納する FIFO
+   * @param sharedScope 全てのスレッドで共有する封印済みの標準オブジェクト
+   */
+  public BhProgramDebugger(
+      BlockingQueue<BhProgramNotification> sendNotifList, ScriptableObject sharedScope) {
+    this(sendNotifList, sharedScope, false);
+  }
 
   /**
    * コンストラクタ.
    *
    * @param sendNotifList 発行した通知を格納する FIFO
+   * @param sharedScope 全てのスレッドで共有する封印済みの標準オブジェクト
+   * @param useVirtualThreads BhProgram のスレッドを仮想スレッドで実行する場合 true
    */
-  public BhProgramDebugger(BlockingQueue<BhProgramNotification> sendNotifList) {
+  public BhProgramDebugger(
+      BlockingQueue<BhProgramNotification> sendNotifList,
+      ScriptableObject sharedScope,
+      boolean useVirtualThreads) {
     this.sendNotifList = sendNotifList;
+    this.sharedScope = sharedScope;
+    this.profiler = new ExecutionProfiler(
+        symbols,
+        contextSupplier(currentThreadInfo),
+        BhConstants.PROFILE_FLUSH_INTERVAL,
+        BhConstants.MAX_PROFILE_CALL_PATHS,
+        useVirtualThreads);
+  }
+
+  /** {@code threadInfo} から, 呼び出したスレッドのスレッドコンテキストを返すメソッドを作成する. */
+  private static Supplier<ScriptThreadContext> contextSupplier(
+      ThreadLocal<ThreadInfo> threadInfo) {
+    return () -> {
+      ThreadInfo info = threadInfo.get();
+      return (info == null) ? null : info.context;
+    };
   }
 
   @Override
   public void notifyThreadStart(ScriptThreadContext context) {
     long threadId = Thread.currentThread().threadId();
-    threadToInfo.put(threadId, new ThreadInfo(context));
-    memSync.syncWrite();
+    var info = new ThreadInfo(context);
+    threadToInfo.put(threadId, info);
+    currentThreadInfo.set(info);
   }
 
   @Override
   public void notifyThreadEnd() {
-    long threadId = Thread.currentThread().threadId();
-    if (threadToInfo.containsKey(threadId)) {
-      ThreadInfo info = threadToInfo.remove(threadId);
-      synchronized (info) {
+    profiler.notifyThreadEnd();
+    ThreadInfo info = removeCurrentThreadInfo();
+    if (info != null) {
+      info.lock.lock();
+      try {
         info.state.set(BhThreadState.FINISHED);
         sendNotification(new BhThreadContext(info.context.getThreadId(), BhThreadState.FINISHED));
+      } finally {
+        info.lock.unlock();
       }
     }
-    memSync.syncWrite();
+    publishWrites();
   }
 
   @Override
   public void notifyThreadEnd(Throwable exception) {
-    long threadId = Thread.currentThread().threadId();
-    if (threadToInfo.containsKey(threadId)) {
-      ThreadInfo info = threadToInfo.remove(threadId);
-      synchronized (info) {
+    profiler.notifyThreadEnd();
+    ThreadInfo info = removeCurrentThreadInfo();
+    if (info != null) {
+      info.lock.lock();
+      try {
         info.state.set(BhThreadState.ERROR);
         sendNotification(createThreadContext(info, exception));
+      } finally {
+        info.lock.unlock();
       }
     }
-    memSync.syncWrite();
+    publishWrites();
   }
 
   @Override
   public ScriptThreadContext getThreadContext() {
-    long threadId = Thread.currentThread().threadId();
-    if (threadToInfo.containsKey(threadId)) {
-      return threadToInfo.get(threadId).context;
-    }
-    return null;
+    ThreadInfo info = currentThreadInfo.get();
+    return (info == null) ? null : info.context;
   }
 
   @Override
   public void conditionalWait(String stepId) {
-    if (stepId != null && isThreadToBePaused(stepId)) {
+    if (profiler.isRunning()) {
+      profiler.step((stepId == null) ? -1 : symbols.intern(stepId));
+    }
+    if (!isArmed) {
+      return;
+    }
+    if (stepId != null && isThreadToBePaused(symbols.indexOf(stepId))) {
+      pause();
+    }
+  }
+
+  @Override
+  public void conditionalWait(int stepIdx) {
+    if (profiler.isRunning()) {
+      profiler.step(stepIdx);
+    }
+    if (!isArmed) {
+      return;
+    }
+    if (isThreadToBePaused(stepIdx)) {
       pause();
     }
   }
 
+  @Override
+  public int internSymbol(String id) {
+    return symbols.intern(id);
+  }
+
   @Override
   public void setStringGenerator(Function fn) {
     toStr = fn;
@@ -146,18 +262,30 @@ public class BhProgramDebugger implements Debugger, DebugInstrumentation {
     }
   }
 
+  /** デバッガが管理している BhProgram のスレッドの数を返す. */
+  public int getNumThreads() {
+    return threadToInfo.size();
+  }
+
+  /** デバッガが管理している BhProgram のスレッドのうち, 一時停止中のものの数を返す. */
+  public int getNumSuspendedThreads() {
+    return (int) threadToInfo.values().stream()
+        .filter(info -> info.state.get() == BhThreadState.SUSPENDED)
+        .count();
+  }
+
   @Override
   public void suspend(long threadId) throws NoSuchThreadException {
     ThreadInfo info = threadToInfo.get(threadId);
     if (info == null) {
       throw new NoSuchThreadException("Thread ID : %s".formatted(threadId));
     }
-    info.stopThreshold.set(Integer.MAX_VALUE);
+    setStopThreshold(info, Integer.MAX_VALUE);
   }
 
   @Override
   public void suspendAll() {
-    threadToInfo.values().forEach(context -> context.stopThreshold.set(Integer.MAX_VALUE));
+    threadToInfo.values().forEach(info -> setStopThreshold(info, Integer.MAX_VALUE));
   }
 
   @Override
@@ -217,27 +345,115 @@ public class BhProgramDebugger implements Debugger, DebugInstrumentation {
 
   @Override
   public void addBreakpoints(Collection<BhSymbolId> ids) {
-    List<String> idList = ids.stream().map(BhSymbolId::toString).toList();
-    breakpoints.addAll(idList);
+    armLock.lock();
+    try {
+      ids.forEach(id -> breakpoints.set(symbols.intern(id.toString())));
+      breakpointBits = breakpoints.toLongArray();
+      removeBreakpointActions(ids);
+      updateArmed();
+    } finally {
+      armLock.unlock();
+    }
   }
 
   @Override
   public void removeBreakpoints(Collection<BhSymbolId> ids) {
-    List<String> idList = ids.stream().map(BhSymbolId::toString).toList();
-    breakpoints.removeAll(idList);
+    armLock.lock();
+    try {
+      for (BhSymbolId id : ids) {
+        int idx = symbols.indexOf(id.toString());
+        if (idx >= 0) {
+          breakpoints.clear(idx);
+        }
+      }
+      breakpointBits = breakpoints.toLongArray();
+      removeBreakpointActions(ids);
+      updateArmed();
+    } finally {
+      armLock.unlock();
+    }
   }
 
   @Override
   public void setBreakpoints(Collection<BhSymbolId> ids) {
-    List<String> idList = ids.stream().map(BhSymbolId::toString).toList();
-    breakpoints.retainAll(idList);
-    breakpoints.addAll(idList);
+    armLock.lock();
+    try {
+      breakpoints.clear();
+      ids.forEach(id -> breakpoints.set(symbols.intern(id.toString())));
+      breakpointBits = breakpoints.toLongArray();
+      breakpointActions = Map.of();
+      updateArmed();
+    } finally {
+      armLock.unlock();
+    }
+  }
+
+  @Override
+  public void addBreakpointDescriptors(Collection<BhBreakpoint> descriptors) {
+    Map<Integer, BreakpointAction> actions = compileBreakpoints(descriptors);
+    armLock.lock();
+    try {
+      actions.keySet().forEach(breakpoints::set);
+      breakpointBits = breakpoints.toLongArray();
+      var newActions = new HashMap<>(breakpointActions);
+      newActions.putAll(actions);
+      breakpointActions = newActions;
+      updateArmed();
+    } finally {
+      armLock.unlock();
+    }
+  }
+
+  @Override
+  public void setBreakpointDescriptors(Collection<BhBreakpoint> descriptors) {
+    Map<Integer, BreakpointAction> actions = compileBreakpoints(descriptors);
+    armLock.lock();
+    try {
+      breakpoints.clear();
+      actions.keySet().forEach(breakpoints::set);
+      breakpointBits = breakpoints.toLongArray();
+      breakpointActions = actions;
+      updateArmed();
+    } finally {
+      armLock.unlock();
+    }
+  }
+
+  /**
+   * {@code descriptors} の条件式とメッセージをコンパイルする.
+   *
+   * @return {@link #symbols} で変換したブレークポイントの ID と, コンパイルしたブレークポイントのマップ
+   * @throws IllegalArgumentException 条件式かメッセージ中の式に文法エラーがあった場合
+   */
+  private Map<Integer, BreakpointAction> compileBreakpoints(
+      Collection<BhBreakpoint> descriptors) {
+    var actions = new HashMap<Integer, BreakpointAction>();
+    try {
+      Context cx = ContextFactory.getGlobal().enterContext();
+      for (BhBreakpoint descriptor : descriptors) {
+        actions.put(
+            symbols.intern(descriptor.id().toString()), new BreakpointAction(cx, descriptor));
+      }
+    } finally {
+      Context.exit();
+    }
+    return actions;
+  }
+
+  /** {@code ids} に対応する, 停止条件などを伴うブレークポイントの処理を削除する.  {@link #armLock} を取得した状態で呼ぶこと. */
+  private void removeBreakpointActions(Collection<BhSymbolId> ids) {
+    if (breakpointActions.isEmpty()) {
+      return;
+    }
+    var newActions = new HashMap<>(breakpointActions);
+    ids.forEach(id -> newActions.remove(symbols.indexOf(id.toString())));
+    breakpointActions = newActions;
   }
 
   @Override
   public SequencedCollection<BhVariable> getLocalVariables(long threadId, int frameIdx)
       throws NoSuchThreadException, ThreadNotSuspendedException, IndexOutOfBoundsException {
-    memSync.syncRead();
+    acquireWrites();
     ThreadInfo info = threadToInfo.get(threadId);
     if (info == null) {
       throw new NoSuchThreadException("Thread ID : %s".formatted(threadId));
@@ -252,7 +468,7 @@ public class BhProgramDebugger implements Debugger, DebugInstrumentation {
     }
     try {
       Context cx = ContextFactory.getGlobal().enterContext();
-      ScriptableObject scope = cx.initStandardObjects();
+      ScriptableObject scope = sharedScope;
       var frame = (SequencedCollection<?>) info.context.getVarStackFrame(frameIdx);
       return frame.stream()
           .filter(variable -> variable instanceof NativeObject)
@@ -263,6 +479,81 @@ public class BhProgramDebugger implements Debugger, DebugInstrumentation {
     }
   }
 
+  @Override
+  public BhThreadInspection inspectThread(
+      long threadId,
+      Collection<Integer> frameIdxs,
+      int maxFrames,
+      boolean includeGlobals,
+      int listPreviewLength,
+      int maxVars)
+      throws NoSuchThreadException, ThreadNotSuspendedException, IndexOutOfBoundsException {
+    acquireWrites();
+    ThreadInfo info = threadToInfo.get(threadId);
+    if (info == null) {
+      throw new NoSuchThreadException("Thread ID : %s".formatted(threadId));
+    }
+    if (info.state.get() != BhThreadState.SUSPENDED) {
+      throw new ThreadNotSuspendedException("Thread ID : %s".formatted(threadId));
+    }
+    // 1 回のレスポンスが大きくなりすぎないように, 取得する量を制限する.
+    listPreviewLength = Math.clamp(listPreviewLength, 0, BhConstants.MAX_LIST_PAGE_SIZE);
+    maxFrames = Math.max(maxFrames, 0);
+    boolean truncated = false;
+    int varStackSize = info.context.getVarStackSize();
+    var targetIdxs = new ArrayList<Integer>(frameIdxs);
+    if (targetIdxs.isEmpty()) {
+      for (int i = varStackSize - 1; i >= Math.max(varStackSize - maxFrames, 0); --i) {
+        targetIdxs.add(i);
+      }
+    } else if (targetIdxs.size() > maxFrames) {
+      targetIdxs.subList(maxFrames, targetIdxs.size()).clear();
+      truncated = true;
+    }
+    for (int frameIdx : targetIdxs) {
+      if (varStackSize <= frameIdx || frameIdx < 0) {
+        throw new IndexOutOfBoundsException(
+            "Stack Frame Size : %s.  %s was specified".formatted(varStackSize, frameIdx));
+      }
+    }
+    // 全てのスタックフレームとグローバル変数の読み出しで, 同じ Rhino のコンテキストを使う.
+    try {
+      Context cx = ContextFactory.getGlobal().enterContext();
+      ScriptableObject scope = sharedScope;
+      int numVars = 0;
+      var frames = new ArrayList<BhVarStackFrame>();
+      for (int frameIdx : targetIdxs) {
+        var vars = new ArrayList<BhVariable>();
+        for (NativeObject accessor : info.context.getVarStackFrame(frameIdx)) {
+          if (numVars >= maxVars) {
+            truncated = true;
+            break;
+          }
+          vars.add(createVarInfo(cx, scope, accessor, listPreviewLength));
+          ++numVars;
+        }
+        frames.add(new BhVarStackFrame(frameIdx, vars));
+      }
+      var globals = new ArrayList<BhVariable>();
+      if (includeGlobals) {
+        for (Object variable : globalVars) {
+          if (!(variable instanceof NativeObject accessor)) {
+            continue;
+          }
+          if (numVars >= maxVars) {
+            truncated = true;
+            break;
+          }
+          globals.add(createVarInfo(cx, scope, accessor, listPreviewLength));
+          ++numVars;
+        }
+      }
+      return new BhThreadInspection(threadId, frames, globals, truncated);
+    } finally {
+      Context.exit();
+    }
+  }
+
   @Override
   public BhListVariable getLocalListValues(
       long threadId, int frameIdx, BhSymbolId varId, long startIdx, long length)
@@ -271,7 +562,7 @@ public class BhProgramDebugger implements Debugger, DebugInstrumentation {
         ThreadNotSuspendedException,
         NoSuchSymbolException,
         IndexOutOfBoundsException {
-    memSync.syncRead();
+    acquireWrites();
     ThreadInfo info = threadToInfo.get(threadId);
     if (info == null) {
       throw new NoSuchThreadException("Thread ID : %s".formatted(threadId));
@@ -287,7 +578,7 @@ public class BhProgramDebugger implements Debugger, DebugInstrumentation {
     var frame = (SequencedCollection<?>) info.context.getVarStackFrame(frameIdx);
     try {
       Context cx = ContextFactory.getGlobal().enterContext();
-      ScriptableObject scope = cx.initStandardObjects();
+      ScriptableObject scope = sharedScope;
       Object val = findVal(varId, frame, cx, scope);
       if (val instanceof NativeArray list) {
         return getListElems(cx, scope, varId, list, startIdx, length);
@@ -298,12 +589,89 @@ public class BhProgramDebugger implements Debugger, DebugInstrumentation {
     }
   }
 
+  @Override
+  public BhListPage openLocalListCursor(
+      long threadId, int frameIdx, BhSymbolId varId, int pageSize, boolean snapshot)
+      throws
+        NoSuchThreadException,
+        ThreadNotSuspendedException,
+        NoSuchSymbolException,
+        IndexOutOfBoundsException {
+    acquireWrites();
+    ThreadInfo info = threadToInfo.get(threadId);
+    if (info == null) {
+      throw new NoSuchThreadException("Thread ID : %s".formatted(threadId));
+    }
+    if (info.state.get() != BhThreadState.SUSPENDED) {
+      throw new ThreadNotSuspendedException("Thread ID : %s".formatted(threadId));
+    }
+    int varStackSize = info.context.getVarStackSize();
+    if (varStackSize <= frameIdx || frameIdx < 0) {
+      throw new IndexOutOfBoundsException(
+          "Stack Frame Size : %s.  %s was specified".formatted(varStackSize, frameIdx));
+    }
+    var frame = (SequencedCollection<?>) info.context.getVarStackFrame(frameIdx);
+    try {
+      Context cx = ContextFactory.getGlobal().enterContext();
+      ScriptableObject scope = sharedScope;
+      Object val = findVal(varId, frame, cx, scope);
+      if (val instanceof NativeArray list) {
+        return openListCursor(cx, scope, varId, threadId, list, pageSize, snapshot);
+      }
+      throw new NoSuchSymbolException("Symbol (%s) is not a list.".formatted(varId));
+    } finally {
+      Context.exit();
+    }
+  }
+
+  @Override
+  public BhListPage openGlobalListCursor(BhSymbolId varId, int pageSize, boolean snapshot)
+      throws NoSuchSymbolException {
+    acquireWrites();
+    try {
+      Context cx = ContextFactory.getGlobal().enterContext();
+      ScriptableObject scope = sharedScope;
+      Object val = findVal(varId, globalVars, cx, scope);
+      if (val instanceof NativeArray list) {
+        return openListCursor(cx, scope, varId, -1, list, pageSize, snapshot);
+      }
+      throw new NoSuchSymbolException("Symbol (%s) is not a list.".formatted(varId));
+    } finally {
+      Context.exit();
+    }
+  }
+
+  @Override
+  public BhListPage getListPage(String cursorId)
+      throws NoSuchCursorException, ThreadNotSuspendedException {
+    acquireWrites();
+    ListCursorTable.Cursor cursor = listCursors.get(cursorId);
+    // スナップショットを取っていないローカル変数のリストは, スレッドの一時停止中しか読まない.
+    if (!cursor.isSnapshot() && cursor.threadId >= 0) {
+      ThreadInfo info = threadToInfo.get(cursor.threadId);
+      if (info == null || info.state.get() != BhThreadState.SUSPENDED) {
+        throw new ThreadNotSuspendedException("Thread ID : %s".formatted(cursor.threadId));
+      }
+    }
+    try {
+      Context cx = ContextFactory.getGlobal().enterContext();
+      return readListPage(cx, sharedScope, cursorId, cursor);
+    } finally {
+      Context.exit();
+    }
+  }
+
+  @Override
+  public void closeListCursor(String cursorId) {
+    listCursors.remove(cursorId);
+  }
+
   @Override
   public SequencedCollection<BhVariable> getGlobalVariables() {
-    memSync.syncRead();
+    acquireWrites();
     try {
       Context cx = ContextFactory.getGlobal().enterContext();
-      ScriptableObject scope = cx.initStandardObjects();
+      ScriptableObject scope = sharedScope;
       return globalVars.stream()
           .filter(variable -> variable instanceof NativeObject)
           .map(variable -> createVarInfo(cx, scope, (NativeObject) variable))
@@ -316,10 +684,10 @@ public class BhProgramDebugger implements Debugger, DebugInstrumentation {
   @Override
   public BhListVariable getGlobalListValues(BhSymbolId varId, long startIdx, long length)
       throws NoSuchSymbolException {
-    memSync.syncRead();
+    acquireWrites();
     try {
       Context cx = ContextFactory.getGlobal().enterContext();
-      ScriptableObject scope = cx.initStandardObjects();
+      ScriptableObject scope = sharedScope;
       Object val = findVal(varId, globalVars, cx, scope);
       if (val instanceof NativeArray list) {
         return getListElems(cx, scope, varId, list, startIdx, length);
@@ -331,30 +699,106 @@ public class BhProgramDebugger implements Debugger, DebugInstrumentation {
   }
 
   @Override
-  public void sendThreadContexts() {
+  public void sendThreadContexts(boolean fullSync) {
     for (ThreadInfo info : threadToInfo.values()) {
-      synchronized (info) {
+      info.lock.lock();
+      try {
+        if (fullSync) {
+          info.history.reset();
+        }
         if (info.state.get() == BhThreadState.SUSPENDED) {
           sendNotification(createThreadContext(info));
         } else if (info.state.get() == BhThreadState.RUNNING) {
           sendNotification(new BhThreadContext(info.context.getThreadId(), BhThreadState.RUNNING));
         }
+      } finally {
+        info.lock.unlock();
       }
     }
   }
 
+  @Override
+  public void acknowledgeThreadContext(long threadId, long version) throws NoSuchThreadException {
+    ThreadInfo info = threadToInfo.get(threadId);
+    if (info == null) {
+      throw new NoSuchThreadException("Thread ID : %s".formatted(threadId));
+    }
+    info.lock.lock();
+    try {
+      info.history.acknowledge(version);
+    } finally {
+      info.lock.unlock();
+    }
+  }
+
   /** このメソッドを呼び出したスレッドが一時停止の条件を満たしているか調べる.
    *
-   * @param stepId このメソッドを呼び出すスレッドが, 次に実行する処理の ID
+   * @param stepIdx このメソッドを呼び出すスレッドが, 次に実行する処理の ID を
+   *                {@link #symbols} で整数に変換したもの.  未登録の ID の場合は -1.
    * @return このメソッドを呼び出したスレッドが一時停止の条件を満たしている場合 true
    */  
-  private boolean isThreadToBePaused(String stepId) {
+  private boolean isThreadToBePaused(int stepIdx) {
     ThreadInfo info = getCurrentThreadInfo();
     if (info == null) {
       return false;
     }
-    return info.context.getCallStackSize() <= info.stopThreshold.get()
-        || breakpoints.contains(stepId);
+    if (info.context.getCallStackSize() <= info.stopThreshold.get()) {
+      return true;
+    }
+    if (!isBreakpoint(stepIdx)) {
+      return false;
+    }
+    BreakpointAction action = breakpointActions.get(stepIdx);
+    return action == null || runBreakpointAction(info, action);
+  }
+
+  /**
+   * このメソッドを呼び出したスレッドで, 停止条件などを伴うブレークポイントの処理を行う.
+   *
+   * <p>ログポイントの場合は, 条件を満たしていればメッセージを通知する.
+   *
+   * @param info このメソッドを呼び出したスレッドの情報
+   * @param action 実行するブレークポイントの処理
+   * @return スレッドを一時停止させる場合 true
+   */
+  private boolean runBreakpointAction(ThreadInfo info, BreakpointAction action) {
+    try {
+      // BhProgram のスレッドで既に使っているコンテキストがあれば, それを使う.
+      Context cx = ContextFactory.getGlobal().enterContext();
+      int varStackSize = info.context.getVarStackSize();
+      List<NativeObject> localVars = (varStackSize == 0)
+          ? List.of() : info.context.getVarStackFrame(varStackSize - 1);
+      var scope = new VariableScope(sharedScope, localVars, globalVars);
+      if (!action.test(cx, scope)) {
+        return false;
+      }
+      if (!action.isLogpoint()) {
+        return true;
+      }
+      String msg = action.formatMessage(
+          cx, scope, val -> (val == null) ? "null" : getValStr(cx, sharedScope, val));
+      sendNotification(
+          new BhLogpointMessage(info.context.getThreadId(), action.breakpoint.id(), msg));
+      return false;
+    } catch (RuntimeException e) {
+      // 式の評価に失敗したことに気付けるように, ブレークポイントは停止させ, ログポイントはエラーを通知する.
+      LogManager.logger().error(e.toString());
+      if (!action.isLogpoint()) {
+        return true;
+      }
+      sendNotification(new BhLogpointMessage(
+          info.context.getThreadId(), action.breakpoint.id(), e.toString()));
+      return false;
+    } finally {
+      Context.exit();
+    }
+  }
+
+  /** {@code stepIdx} がブレークポイントに設定されている場合 true を返す. */
+  private boolean isBreakpoint(int stepIdx) {
+    long[] bits = breakpointBits;
+    int word = stepIdx >>> 6;
+    return stepIdx >= 0 && word < bits.length && (bits[word] & (1L << stepIdx)) != 0;
   }
 
   /** このメソッドを呼び出したスレッドを一時停止させる. */
@@ -363,23 +807,50 @@ public class BhProgramDebugger implements Debugger, DebugInstrumentation {
     if (info == null) {
       return;
     }
-    memSync.syncWrite();
-    synchronized (info) {
+    // 停止を公開する前に, 前回の再開で残った許可を破棄する.
+    info.handoff.arm();
+    publishWrites();
+    // state への書き込みで, ここまでの書き込みを, state を読んで停止中であることを確かめたスレッドに公開する.
+    info.lock.lock();
+    try {
       info.state.set(BhThreadState.SUSPENDED);
       sendNotification(createThreadContext(info));
+    } finally {
+      info.lock.unlock();
     }
-    info.syncTimer.countdownAndAwait();
-    // 停止中に他のスレッドによって書き込まれた値を読み出せるようにする.
-    memSync.syncRead();
+    // 再開を許可したスレッドの書き込みは, ここから戻った後に読み出せる.
+    info.handoff.await();
+    profiler.notifyResumed();
+  }
+
+  /** このメソッドを呼び出したスレッドの書き込みを, {@link #acquireWrites} を呼んだスレッドから読めるようにする. */
+  private void publishWrites() {
+    PUBLISHED.setRelease(this, 0);
+  }
+
+  /** {@link #publishWrites} を呼んだスレッドの, その呼び出しまでの書き込みを読めるようにする. */
+  private void acquireWrites() {
+    PUBLISHED.getAcquire(this);
   }
 
   /** {@code accessor} から変数情報を取得して返す. */
   private BhVariable createVarInfo(Context cx, ScriptableObject scope, NativeObject accessor) {
+    return createVarInfo(cx, scope, accessor, 0);
+  }
+
+  /**
+   * {@code accessor} から変数情報を取得して返す.
+   *
+   * @param listPreviewLength 変数がリストであった場合, 先頭からこの数の要素の値も取得する
+   */
+  private BhVariable createVarInfo(
+      Context cx, ScriptableObject scope, NativeObject accessor, int listPreviewLength) {
     String id = accessor.get(Keywords.Properties.ID).toString();
     Function getter = (Function) accessor.get(Keywords.Properties.GET);
     Object val = getter.call(cx, scope, scope, new Object[0]);
     if (val instanceof NativeArray list) {
-      return new BhListVariable(BhSymbolId.of(id), list.getLength());
+      long length = Math.min(listPreviewLength, list.getLength());
+      return getListElems(cx, scope, BhSymbolId.of(id), list, 0, Math.max(length, 0));
     } else {
       return new BhScalarVariable(BhSymbolId.of(id), getValStr(cx, scope, val));
     }
@@ -421,6 +892,51 @@ public class BhProgramDebugger implements Debugger, DebugInstrumentation {
     throw new NoSuchSymbolException("Symbol ID : %s".formatted(varId));
   }
 
+  /** {@code list} を指すカーソルを作成して, 最初のページを返す. */
+  private BhListPage openListCursor(
+      Context cx,
+      ScriptableObject scope,
+      BhSymbolId varId,
+      long threadId,
+      NativeArray list,
+      int pageSize,
+      boolean snapshot) {
+    pageSize = Math.clamp(pageSize, 1, BhConstants.MAX_LIST_PAGE_SIZE);
+    var cursor = new ListCursorTable.Cursor(varId, threadId, list, pageSize, snapshot);
+    return readListPage(cx, scope, listCursors.register(cursor), cursor);
+  }
+
+  /**
+   * {@code cursor} が指す位置から 1 ページ分の要素の値を読み出して, 読み出し位置を進める.
+   * 最後のページを読み出した場合と, 要素の値の読み出しに失敗した場合, {@code cursor} を破棄する.
+   * 読み出しに失敗した場合の例外は, 呼び出し元に投げてコマンドのレスポンスで報告する.
+   */
+  private BhListPage readListPage(
+      Context cx, ScriptableObject scope, String cursorId, ListCursorTable.Cursor cursor) {
+    long startIdx = cursor.claimPage();
+    long endIdx = Math.min(startIdx + cursor.pageSize, cursor.length);
+    var valList = new ArrayList<String>();
+    boolean hasNext = endIdx < cursor.length;
+    // スナップショットを取っていないリストは縮んでいる可能性があるので, 範囲外になったら読み出しを終える.
+    try {
+      for (long i = startIdx; i < endIdx; ++i) {
+        valList.add(getValStr(cx, scope, cursor.get(i)));
+      }
+    } catch (IndexOutOfBoundsException e) {
+      hasNext = false;
+    } catch (RuntimeException e) {
+      listCursors.remove(cursorId);
+      LogManager.logger().error("Failed to read a list page (%s).\n%s".formatted(cursorId, e));
+      throw e;
+    }
+    if (!hasNext) {
+      listCursors.remove(cursorId);
+    }
+    var listVar = new BhListVariable(
+        cursor.varId, cursor.length, List.of(new BhListVariable.Slice(startIdx, valList)));
+    return new BhListPage(hasNext ? cursorId : null, listVar);
+  }
+
   /**
    * {@code list} の {@code startIdx} から {@code length} 個の要素の値を保持する
    * {@link BhListVariable} オブジェクトを返す.
@@ -460,8 +976,47 @@ public class BhProgramDebugger implements Debugger, DebugInstrumentation {
    * @return このメソッドを呼び出したスレッドの {@link ThreadInfo}.  見つからない場合は null.
    */
   private ThreadInfo getCurrentThreadInfo() {
-    long threadId = Thread.currentThread().threadId();
-    return threadToInfo.get(threadId);
+    return currentThreadInfo.get();
+  }
+
+  /**
+   * このメソッドを呼び出したスレッドの {@link ThreadInfo} を登録解除する.
+   *
+   * @return 登録解除した {@link ThreadInfo}.  見つからない場合は null.
+   */
+  private ThreadInfo removeCurrentThreadInfo() {
+    ThreadInfo info = currentThreadInfo.get();
+    if (info == null) {
+      return null;
+    }
+    currentThreadInfo.remove();
+    threadToInfo.remove(Thread.currentThread().threadId());
+    if (info.stopThreshold.get() >= 0) {
+      armLock.lock();
+      try {
+        updateArmed();
+      } finally {
+        armLock.unlock();
+      }
+    }
+    return info;
+  }
+
+  /** {@code info} に対応するスレッドの停止条件を設定し, {@link #isArmed} を更新する. */
+  private void setStopThreshold(ThreadInfo info, int stopThreshold) {
+    armLock.lock();
+    try {
+      info.stopThreshold.set(stopThreshold);
+      updateArmed();
+    } finally {
+      armLock.unlock();
+    }
+  }
+
+  /** {@link #isArmed} を更新する.  {@link #armLock} を取得した状態で呼ぶこと. */
+  private void updateArmed() {
+    isArmed = breakpointBits.length > 0
+        || threadToInfo.values().stream().anyMatch(info -> info.stopThreshold.get() >= 0);
   }
 
   private void sendNotification(BhProgramNotification notif) {
@@ -472,92 +1027,111 @@ public class BhProgramDebugger implements Debugger, DebugInstrumentation {
 
   /** {@code info} に対応するスレッドを再開する. */
   private void restart(ThreadInfo info, int stopThreshold) {
-    info.stopThreshold.set(stopThreshold);
+    setStopThreshold(info, stopThreshold);
     // BhProgram を実行するスレッドが動き出す前に, 状態を RUNNING にしなければならない.
     // さもないと, 動き出したスレッドの変数を読んで送信してしまう可能性がある.
-    synchronized (info) {
+    info.lock.lock();
+    try {
       info.state.set(BhThreadState.RUNNING);
       sendNotification(new BhThreadContext(info.context.getThreadId(), BhThreadState.RUNNING));
+    } finally {
+      info.lock.unlock();
     }
-    info.syncTimer.countdown();
+    info.handoff.release();
   }
 
   /** {@code info} と {@code exception} を元に {@link BhThreadContext} を作成する. */
-  private static BhThreadContext createThreadContext(ThreadInfo info, Throwable exception) {
-    BhProgramException threw = createBhProgramException(info, exception);
-    SequencedCollection<BhCallStackItem> callStack = createCallStack(info.context);
+  private BhThreadContext createThreadContext(ThreadInfo info, Throwable exception) {
+    SequencedCollection<BhCallStackItem> callStack =
+        createCallStack(info.context.getCallStack(symbols), 0);
+    BhProgramException threw = createBhProgramException(info, exception, callStack);
     return new BhThreadContext(
         info.context.getThreadId(),
         info.state.get(),
         callStack,
-        info.context.getNextNodeInstanceId(),
+        info.context.getNextNodeInstanceId(symbols),
         threw);
   }
 
-  /** {@code info} を元に {@link BhThreadContext} を作成する. */
-  private static BhThreadContext createThreadContext(ThreadInfo info) {
-    SequencedCollection<BhCallStackItem> callStack = createCallStack(info.context);
+  /**
+   * {@code info} を元に {@link BhThreadContext} を作成する.
+   *
+   * <p>BunnyHop が受領を通知したスレッドコンテキストがある場合, それとの差分を作成する.
+   * {@code info} のロックを取得した状態で呼ぶこと.
+   */
+  private BhThreadContext createThreadContext(ThreadInfo info) {
+    List<BhSymbolId> cs = info.context.getCallStack(symbols);
+    List<BhSymbolId> base = info.history.getAckedCallStack();
+    long baseVersion = info.history.getAckedVersion();
+    long version = info.history.record(cs);
+    int numKeptFrames = (base == null) ? 0 : countCommonFrames(base, cs);
     return new BhThreadContext(
         info.context.getThreadId(),
         info.state.get(),
-        callStack,
-        info.context.getNextNodeInstanceId());
+        createCallStack(cs, numKeptFrames),
+        info.context.getNextNodeInstanceId(symbols),
+        version,
+        (base == null) ? BhThreadContext.NO_VERSION : baseVersion,
+        numKeptFrames);
   }
 
-  /** {@code info} と {@code src} から {@link BhProgramException} オブジェクトを作成する. */
-  private static BhProgramException createBhProgramException(ThreadInfo info, Throwable src) {
+  /** {@code lhs} と {@code rhs} の先頭から一致するフレームの数を返す. */
+  private static int countCommonFrames(List<BhSymbolId> lhs, List<BhSymbolId> rhs) {
+    int len = Math.min(lhs.size(), rhs.size());
+    for (int i = 0; i < len; ++i) {
+      if (!lhs.get(i).equals(rhs.get(i))) {
+        return i;
+      }
+    }
+    return len;
+  }
+
+  /**
+   * {@code info} と {@code src} から {@link BhProgramException} オブジェクトを作成する.
+   *
+   * <p>返す例外の原因は, 元の例外から作成した {@link BhExceptionSnapshot} なので, 常にシリアライズできる.
+   *
+   * @param info 例外が発生したスレッドの情報
+   * @param src 発生した例外
+   * @param callStack 例外が発生したときの BhProgram のコールスタック
+   */
+  private static BhProgramException createBhProgramException(
+      ThreadInfo info, Throwable src, SequencedCollection<BhCallStackItem> callStack) {
     if (src instanceof BhProgramException exception) {
-      return new BhProgramException(exception);
+      return copyBhProgramException(exception, callStack);
     }
     if (src.getCause() instanceof BhProgramException exception) {
-      return new BhProgramException(exception);
+      return copyBhProgramException(exception, callStack);
     }
     String errMsg = info.context.getErrorMessages().stream()
           .reduce((lhs, rhs) -> lhs + "\n" + rhs)
           .orElse("");
-    return new BhProgramException(errMsg, toSerializable(src));
+    return new BhProgramException(errMsg, BhExceptionSnapshot.of(src, callStack));
+  }
+
+  /** {@code org} の原因を {@link BhExceptionSnapshot} に置き換えた {@link BhProgramException} を作成する. */
+  private static BhProgramException copyBhProgramException(
+      BhProgramException org, SequencedCollection<BhCallStackItem> callStack) {
+    Throwable cause = org.getCause();
+    return new BhProgramException(
+        org.getMessage(), (cause == null) ? null : BhExceptionSnapshot.of(cause, callStack));
   }
 
   /**
-   * スレッドコンテキストからコールスタックを作成する.
+   * シンボルの ID のリストからコールスタックを作成する.
    *
-   * @param context このスレッドコンテキストを参照してコールスタックを作成する
+   * @param cs コールスタックの各フレームに対応するシンボルの ID のリスト
+   * @param from {@code cs} のこのインデックス以降のフレームからコールスタックを作成する
    */
-  private static SequencedCollection<BhCallStackItem> createCallStack(ScriptThreadContext context) {
-    var callStack = new ArrayList<BhCallStackItem>();
-    List<BhSymbolId> cs = context.getCallStack();
-    for (int i = 0; i < cs.size(); ++i) {
+  private static SequencedCollection<BhCallStackItem> createCallStack(
+      List<BhSymbolId> cs, int from) {
+    var callStack = new ArrayList<BhCallStackItem>(cs.size() - from);
+    for (int i = from; i < cs.size(); ++i) {
       callStack.add(new BhCallStackItem(i, cs.get(i)));
     }
     return callStack;
   }
 
-  /**
-   * {@code obj} がシリアライズ不可能な場合, {@code obj} のメッセージを格納した
-   * {@link Throwable} オブジェクトを返す.
-   */
-  private static Throwable toSerializable(Throwable obj) {
-    if (!isSerializable(obj)) {
-      return new Throwable(obj.getMessage());
-    }
-    return obj;
-  }
-
-  /** {@code obj} がシリアライズ可能か調べる. */
-  private static boolean isSerializable(Object obj) {
-    try (
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        ObjectOutputStream oos = new ObjectOutputStream(bos);
-    ) {
-      oos.writeObject(obj);
-      oos.flush();
-      bos.toByteArray();
-      return true;
-    } catch (Exception e) {
-      return false;
-    }
-  }
-
   @Override
   public void setEntryPointIds(String... ids) {
     entryPointIds = ConcurrentHashMap.newKeySet();
@@ -569,26 +1143,48 @@ public class BhProgramDebugger implements Debugger, DebugInstrumentation {
     return new HashSet<>(entryPointIds);
   }
 
+  @Override
+  public void startProfiling(BhProfileClock clock) {
+    profiler.start(clock);
+  }
+
+  @Override
+  public void stopProfiling() {
+    profiler.stop();
+  }
+
+  @Override
+  public BhProfile getProfile(int maxEntries) {
+    return profiler.getProfile(maxEntries);
+  }
+
   /** 
    * スレッドごとに固有のデータを格納するレコード.
    *
    * @param context BhProgram 側で操作されるスレッド固有のデータ
    * @param state スレッドの状態
    * @param stopThreshold {@code callStack} のサイズがこの値以上の場合, スレッドの停止条件を満たしているものとする
-   * @param syncTimer スレッドの停止に使うオブジェクト
+   * @param handoff スレッドの一時停止と再開に使うオブジェクト
+   * @param lock スレッドの状態の変更と通知の送信を排他的に行うためのロック.
+   *             仮想スレッドがキャリアスレッドを占有しないように, synchronized ではなくこのロックを使う.
+   * @param history BunnyHop に送ったコールスタックとその受領状況の記録.  {@code lock} で保護する.
    */
   private record ThreadInfo(
       ScriptThreadContext context,
       AtomicReference<BhThreadState> state,
       AtomicInteger stopThreshold,
-      SynchronizingTimer syncTimer) {
+      ThreadHandoff handoff,
+      ReentrantLock lock,
+      CallStackHistory history) {
 
     ThreadInfo(ScriptThreadContext context) {
       this(
           context,
           new AtomicReference<>(BhThreadState.RUNNING),
           new AtomicInteger(-1),
-          new SynchronizingTimer(2, true));
+          new ThreadHandoff(Thread.currentThread()),
+          new ReentrantLock(),
+          new CallStackHistory());
     }
   }
 }
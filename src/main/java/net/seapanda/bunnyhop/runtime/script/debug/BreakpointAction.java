@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.debug;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.BhBreakpoint;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+
+/**
+ * {@link BhBreakpoint} の条件式とメッセージをコンパイルしたものと, ヒット回数を保持するクラス.
+ *
+ * @author K.Koike
+ */
+class BreakpointAction {
+
+  /** 元になったブレークポイント. */
+  final BhBreakpoint breakpoint;
+  /** 条件式をコンパイルしたもの.  条件が無い場合は null. */
+  private final Script condition;
+  /** メッセージを構成する部品.  要素は文字列か, 式をコンパイルした {@link Script}. */
+  private final List<Object> messageParts;
+  /** 条件を満たした回数. */
+  private final AtomicLong hits = new AtomicLong(0);
+
+  /**
+   * コンストラクタ.
+   *
+   * @param cx 条件式とメッセージ中の式のコンパイルに使うコンテキスト
+   * @param breakpoint このオブジェクトが処理するブレークポイント
+   * @throws IllegalArgumentException 条件式かメッセージ中の式に文法エラーがあった場合
+   */
+  BreakpointAction(Context cx, BhBreakpoint breakpoint) {
+    this.breakpoint = breakpoint;
+    String srcName = "breakpoint:" + breakpoint.id();
+    this.condition = (breakpoint.condition() == null)
+        ? null : compile(cx, breakpoint.condition(), srcName);
+    this.messageParts = (breakpoint.logMessage() == null)
+        ? null : parseMessage(cx, breakpoint.logMessage(), srcName);
+  }
+
+  /** ログポイントである場合 true を返す. */
+  boolean isLogpoint() {
+    return messageParts != null;
+  }
+
+  /**
+   * 条件式とヒット回数を評価する.
+   *
+   * @param cx 式の評価に使うコンテキスト
+   * @param scope 式の評価に使うスコープ
+   * @return 停止するかメッセージを出力する場合 true
+   */
+  boolean test(Context cx, Scriptable scope) {
+    if (condition != null && !Context.toBoolean(condition.exec(cx, scope))) {
+      return false;
+    }
+    long hitCount = breakpoint.hitCount();
+    return hitCount <= 0 || hits.incrementAndGet() >= hitCount;
+  }
+
+  /**
+   * メッセージの式を評価して, 出力するメッセージを作成する.
+   *
+   * @param cx 式の評価に使うコンテキスト
+   * @param scope 式の評価に使うスコープ
+   * @param toStr 式の評価結果を文字列に変換するメソッド
+   */
+  String formatMessage(Context cx, Scriptable scope, Function<Object, String> toStr) {
+    var msg = new StringBuilder();
+    for (Object part : messageParts) {
+      if (part instanceof Script expr) {
+        msg.append(toStr.apply(expr.exec(cx, scope)));
+      } else {
+        msg.append(part);
+      }
+    }
+    return msg.toString();
+  }
+
+  /** {@code src} をコンパイルする. */
+  private static Script compile(Context cx, String src, String srcName) {
+    try {
+      return cx.compileString(src, srcName, 1, null);
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException(
+          "Invalid expression in %s.  (%s)".formatted(srcName, e.getMessage()));
+    }
+  }
+
+  /** {@code {式}} を含むメッセージを, 文字列と式をコンパイルしたものに分解する. */
+  private static List<Object> parseMessage(Context cx, String msg, String srcName) {
+    var parts = new ArrayList<Object>();
+    var literal = new StringBuilder();
+    int i = 0;
+    while (i < msg.length()) {
+      char c = msg.charAt(i);
+      if (c == '{' && i + 1 < msg.length() && msg.charAt(i + 1) == '{') {
+        literal.append('{');
+        i += 2;
+      } else if (c == '{') {
+        int end = msg.indexOf('}', i + 1);
+        if (end < 0) {
+          throw new IllegalArgumentException(
+              "Unclosed '{' in the message of %s.".formatted(srcName));
+        }
+        if (!literal.isEmpty()) {
+          parts.add(literal.toString());
+          literal.setLength(0);
+        }
+        parts.add(compile(cx, msg.substring(i + 1, end), srcName));
+        i = end + 1;
+      } else {
+        literal.append(c);
+        ++i;
+      }
+    }
+    if (!literal.isEmpty()) {
+      parts.add(literal.toString());
+    }
+    return parts;
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.debug;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import net.seapanda.bunnyhop.bhprogram.common.BhSymbolId;
+import net.seapanda.bunnyhop.bhprogram.common.message.thread.BhThreadContext;
+
+/**
+ * 1 つのスレッドについて, BunnyHop に送ったコールスタックとその受領状況を記録するクラス.
+ *
+ * <p>このクラスのメソッドは, スレッドごとのロックを取得した状態で呼ぶこと.
+ *
+ * @author K.Koike
+ */
+class CallStackHistory {
+
+  /** 受領が通知されていないコールスタックを保持する最大数. */
+  private static final int MAX_UNACKED = 16;
+
+  /** 次に送るコールスタックのバージョン番号. */
+  private long nextVersion = 0;
+  /** 受領が通知された最新のコールスタックのバージョン番号. */
+  private long ackedVersion = BhThreadContext.NO_VERSION;
+  /** 受領が通知された最新のコールスタック. */
+  private List<BhSymbolId> ackedCallStack = null;
+  /** 送ったが受領が通知されていないコールスタック.  古い順に並ぶ. */
+  private final Deque<Snapshot> unacked = new ArrayDeque<>();
+
+  /**
+   * 送るコールスタックを記録して, そのバージョン番号を返す.
+   *
+   * @param callStack 送るコールスタック
+   * @return {@code callStack} に割り当てたバージョン番号
+   */
+  long record(List<BhSymbolId> callStack) {
+    if (unacked.size() == MAX_UNACKED) {
+      unacked.removeFirst();
+    }
+    long version = nextVersion++;
+    unacked.addLast(new Snapshot(version, callStack));
+    return version;
+  }
+
+  /**
+   * {@code version} のコールスタックの受領を記録する.
+   * {@code version} より古いコールスタックは以降ベースとして使わない.
+   * 記録が残っていないバージョンの場合は何もしない.
+   */
+  void acknowledge(long version) {
+    while (!unacked.isEmpty() && unacked.peekFirst().version <= version) {
+      Snapshot snapshot = unacked.removeFirst();
+      if (snapshot.version == version) {
+        ackedVersion = version;
+        ackedCallStack = snapshot.callStack;
+      }
+    }
+  }
+
+  /** 受領の記録を全て破棄する.  以降, 受領が通知されるまでは完全なコールスタックを送ることになる. */
+  void reset() {
+    ackedVersion = BhThreadContext.NO_VERSION;
+    ackedCallStack = null;
+    unacked.clear();
+  }
+
+  /** 受領が通知された最新のコールスタックのバージョン番号を返す.  無い場合は {@link BhThreadContext#NO_VERSION}. */
+  long getAckedVersion() {
+    return ackedVersion;
+  }
+
+  /** 受領が通知された最新のコールスタックを返す.  無い場合は null. */
+  List<BhSymbolId> getAckedCallStack() {
+    return ackedCallStack;
+  }
+
+  /** 送ったコールスタックとそのバージョン番号. */
+  private record Snapshot(long version, List<BhSymbolId> callStack) {}
+}
@@ -19,37 +19,59 @@ package net.seapanda.bunnyhop.runtime.script.debug;
 import java.util.SequencedCollection;
 import java.util.concurrent.BlockingQueue;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramResponse;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.AckThreadContextCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.AckThreadContextResp;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.AddBreakpointDescriptorsCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.AddBreakpointDescriptorsResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.AddBreakpointsCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.AddBreakpointsResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.BhDebugCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.BhDebugResp;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.CloseListCursorCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.CloseListCursorResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.GetEntryPointsCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.GetEntryPointsResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.GetGlobalListValsCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.GetGlobalListValsResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.GetGlobalVarsCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.GetGlobalVarsResp;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.GetListPageCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.GetListPageResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.GetLocalListValsCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.GetLocalListValsResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.GetLocalVarsCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.GetLocalVarsResp;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.GetProfileCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.GetProfileResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.GetThreadContextsCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.GetThreadContextsResp;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.InspectThreadCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.InspectThreadResp;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.OpenListCursorCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.OpenListCursorResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.RemoveBreakpointsCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.RemoveBreakpointsResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.ResumeThreadCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.ResumeThreadResp;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.SetBreakpointDescriptorsCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.SetBreakpointDescriptorsResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.SetBreakpointsCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.SetBreakpointsResp;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.StartProfilingCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.StartProfilingResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.StepIntoCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.StepIntoResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.StepOutCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.StepOutResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.StepOverCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.StepOverResp;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.StopProfilingCmd;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.StopProfilingResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.SuspendThreadCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.debug.SuspendThreadResp;
+import net.seapanda.bunnyhop.bhprogram.common.message.thread.BhThreadInspection;
 import net.seapanda.bunnyhop.bhprogram.common.message.thread.BhVarStackFrame;
+import net.seapanda.bunnyhop.bhprogram.common.message.variable.BhListPage;
 import net.seapanda.bunnyhop.bhprogram.common.message.variable.BhListVariable;
 import net.seapanda.bunnyhop.bhprogram.common.message.variable.BhVariable;
 import net.seapanda.bunnyhop.runtime.script.BhProgramMessageProcessor;
@@ -75,7 +97,10 @@ public class DebugCmdProcessor implements BhProgramMessageProcessor<BhDebugCmd>
   @Override
   public void process(BhDebugCmd debugCmd) {
     BhDebugResp resp = switch (debugCmd) {
+      case AckThreadContextCmd cmd -> process(cmd);
       case AddBreakpointsCmd cmd -> process(cmd);
+      case AddBreakpointDescriptorsCmd cmd -> process(cmd);
+      case CloseListCursorCmd cmd -> process(cmd);
       case SuspendThreadCmd cmd -> process(cmd);
       case GetGlobalListValsCmd cmd -> process(cmd);
       case GetGlobalVarsCmd cmd -> process(cmd);
@@ -83,12 +108,19 @@ public class DebugCmdProcessor implements BhProgramMessageProcessor<BhDebugCmd>
       case GetLocalVarsCmd cmd -> process(cmd);
       case GetThreadContextsCmd cmd -> process(cmd);
       case GetEntryPointsCmd cmd -> process(cmd);
+      case GetListPageCmd cmd -> process(cmd);
+      case GetProfileCmd cmd -> process(cmd);
+      case InspectThreadCmd cmd -> process(cmd);
+      case OpenListCursorCmd cmd -> process(cmd);
       case RemoveBreakpointsCmd cmd -> process(cmd);
       case ResumeThreadCmd cmd -> process(cmd);
       case SetBreakpointsCmd cmd -> process(cmd);
+      case SetBreakpointDescriptorsCmd cmd -> process(cmd);
+      case StartProfilingCmd cmd -> process(cmd);
       case StepIntoCmd cmd -> process(cmd);
       case StepOutCmd cmd -> process(cmd);
       case StepOverCmd cmd -> process(cmd);
+      case StopProfilingCmd cmd -> process(cmd);
       default -> null;
     };
     try {
@@ -100,6 +132,15 @@ public class DebugCmdProcessor implements BhProgramMessageProcessor<BhDebugCmd>
     }
   }
 
+  private AckThreadContextResp process(AckThreadContextCmd cmd) {
+    try {
+      debugger.acknowledgeThreadContext(cmd.threadId, cmd.version);
+      return new AckThreadContextResp(cmd.getId(), true);
+    } catch (Exception e) {
+      return new AckThreadContextResp(cmd.getId(), e);
+    }
+  }
+
   private AddBreakpointsResp process(AddBreakpointsCmd cmd) {
     try {
       debugger.addBreakpoints(cmd.breakpoints);
@@ -109,6 +150,24 @@ public class DebugCmdProcessor implements BhProgramMessageProcessor<BhDebugCmd>
     }
   }
 
+  private AddBreakpointDescriptorsResp process(AddBreakpointDescriptorsCmd cmd) {
+    try {
+      debugger.addBreakpointDescriptors(cmd.breakpoints);
+      return new AddBreakpointDescriptorsResp(cmd.getId(), true);
+    } catch (Exception e) {
+      return new AddBreakpointDescriptorsResp(cmd.getId(), e);
+    }
+  }
+
+  private CloseListCursorResp process(CloseListCursorCmd cmd) {
+    try {
+      debugger.closeListCursor(cmd.cursor);
+      return new CloseListCursorResp(cmd.getId(), true);
+    } catch (Exception e) {
+      return new CloseListCursorResp(cmd.getId(), e);
+    }
+  }
+
   private SuspendThreadResp process(SuspendThreadCmd cmd) {
     try {
       if (cmd.threadId == SuspendThreadCmd.ALL_THREADS) {
@@ -164,7 +223,7 @@ public class DebugCmdProcessor implements BhProgramMessageProcessor<BhDebugCmd>
 
   private GetThreadContextsResp process(GetThreadContextsCmd cmd) {
     try {
-      debugger.sendThreadContexts();
+      debugger.sendThreadContexts(cmd.fullSync);
       return new GetThreadContextsResp(cmd.getId(), true);
     } catch (Exception e) {
       return new GetThreadContextsResp(cmd.getId(), e);
@@ -179,6 +238,52 @@ public class DebugCmdProcessor implements BhProgramMessageProcessor<BhDebugCmd>
     }
   }
 
+  private GetListPageResp process(GetListPageCmd cmd) {
+    try {
+      return new GetListPageResp(cmd.getId(), debugger.getListPage(cmd.cursor));
+    } catch (Exception e) {
+      return new GetListPageResp(cmd.getId(), e);
+    }
+  }
+
+  private GetProfileResp process(GetProfileCmd cmd) {
+    try {
+      return new GetProfileResp(cmd.getId(), debugger.getProfile(cmd.maxEntries));
+    } catch (Exception e) {
+      return new GetProfileResp(cmd.getId(), e);
+    }
+  }
+
+  private InspectThreadResp process(InspectThreadCmd cmd) {
+    try {
+      BhThreadInspection inspection = debugger.inspectThread(
+          cmd.threadId,
+          cmd.frameIdxs,
+          cmd.maxFrames,
+          cmd.includeGlobals,
+          cmd.listPreviewLength,
+          cmd.maxVars);
+      return new InspectThreadResp(cmd.getId(), inspection);
+    } catch (Exception e) {
+      return new InspectThreadResp(cmd.getId(), e);
+    }
+  }
+
+  private OpenListCursorResp process(OpenListCursorCmd cmd) {
+    try {
+      BhListPage page;
+      if (cmd.threadId == OpenListCursorCmd.GLOBAL) {
+        page = debugger.openGlobalListCursor(cmd.varId, cmd.pageSize, cmd.snapshot);
+      } else {
+        page = debugger.openLocalListCursor(
+            cmd.threadId, cmd.frameIdx, cmd.varId, cmd.pageSize, cmd.snapshot);
+      }
+      return new OpenListCursorResp(cmd.getId(), page);
+    } catch (Exception e) {
+      return new OpenListCursorResp(cmd.getId(), e);
+    }
+  }
+
   private RemoveBreakpointsResp process(RemoveBreakpointsCmd cmd) {
     try {
       debugger.removeBreakpoints(cmd.breakpoints);
@@ -210,6 +315,24 @@ public class DebugCmdProcessor implements BhProgramMessageProcessor<BhDebugCmd>
     }
   }
 
+  private SetBreakpointDescriptorsResp process(SetBreakpointDescriptorsCmd cmd) {
+    try {
+      debugger.setBreakpointDescriptors(cmd.breakpoints);
+      return new SetBreakpointDescriptorsResp(cmd.getId(), true);
+    } catch (Exception e) {
+      return new SetBreakpointDescriptorsResp(cmd.getId(), e);
+    }
+  }
+
+  private StartProfilingResp process(StartProfilingCmd cmd) {
+    try {
+      debugger.startProfiling(cmd.clock);
+      return new StartProfilingResp(cmd.getId(), true);
+    } catch (Exception e) {
+      return new StartProfilingResp(cmd.getId(), e);
+    }
+  }
+
   private StepIntoResp process(StepIntoCmd cmd) {
     try {
       debugger.stepInto(cmd.threadId);
@@ -236,4 +359,13 @@ public class DebugCmdProcessor implements BhProgramMessageProcessor<BhDebugCmd>
       return new StepOverResp(cmd.getId(), e);
     }
   }
+
+  private StopProfilingResp process(StopProfilingCmd cmd) {
+    try {
+      debugger.stopProfiling();
+      return new StopProfilingResp(cmd.getId(), true);
+    } catch (Exception e) {
+      return new StopProfilingResp(cmd.getId(), e);
+    }
+  }
 }
@@ -64,6 +64,25 @@ public interface DebugInstrumentation {
    */
   void conditionalWait(String stepId);
 
+  /**
+   * このメソッドを呼び出したスレッドが一時停止の条件を満たしている場合, 一時停止する.
+   *
+   * @param stepIdx このメソッドを呼び出すスレッドが, 次に実行する処理の ID を
+   *                {@link #internSymbol} で整数に変換したもの
+   */
+  void conditionalWait(int stepIdx);
+
+  /**
+   * シンボルの ID を, それに 1 対 1 で対応する整数に変換する.
+   *
+   * <p>BhProgram の読み込み時にステップ ID を整数に変換しておき,
+   * 実行時は {@link #conditionalWait(int)} に渡すことを想定している.
+   *
+   * @param id 整数に変換するシンボルの ID
+   * @return {@code id} に対応する整数
+   */
+  int internSymbol(String id);
+
   /** BhProgram のデータを文字列に変換するためのメソッドをデバッガに登録する. */
   void setStringGenerator(Function fn);
  
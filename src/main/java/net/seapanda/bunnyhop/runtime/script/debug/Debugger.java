@@ -20,9 +20,15 @@ import java.util.Collection;
 import java.util.SequencedCollection;
 import java.util.Set;
 import net.seapanda.bunnyhop.bhprogram.common.BhSymbolId;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.BhBreakpoint;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.BhProfile;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.BhProfileClock;
+import net.seapanda.bunnyhop.bhprogram.common.message.exception.NoSuchCursorException;
 import net.seapanda.bunnyhop.bhprogram.common.message.exception.NoSuchSymbolException;
 import net.seapanda.bunnyhop.bhprogram.common.message.exception.NoSuchThreadException;
 import net.seapanda.bunnyhop.bhprogram.common.message.exception.ThreadNotSuspendedException;
+import net.seapanda.bunnyhop.bhprogram.common.message.thread.BhThreadInspection;
+import net.seapanda.bunnyhop.bhprogram.common.message.variable.BhListPage;
 import net.seapanda.bunnyhop.bhprogram.common.message.variable.BhListVariable;
 import net.seapanda.bunnyhop.bhprogram.common.message.variable.BhVariable;
 
@@ -114,6 +120,25 @@ public interface Debugger {
    */
   void setBreakpoints(Collection<BhSymbolId> ids);
 
+  /**
+   * 停止条件などを伴うブレークポイントを追加する.
+   * 既に同じ ID のブレークポイントが存在する場合は置き換える.
+   *
+   * @param descriptors 追加するブレークポイントの一覧
+   * @throws IllegalArgumentException 条件式かメッセージ中の式に文法エラーがあった場合.
+   *                                  この場合, ブレークポイントは 1 つも追加されない.
+   */
+  void addBreakpointDescriptors(Collection<BhBreakpoint> descriptors);
+
+  /**
+   * 停止条件などを伴うブレークポイントを設定する.  既存のブレークポイントは全て削除される.
+   *
+   * @param descriptors 設定するブレークポイントの一覧
+   * @throws IllegalArgumentException 条件式かメッセージ中の式に文法エラーがあった場合.
+   *                                  この場合, 既存のブレークポイントは変更されない.
+   */
+  void setBreakpointDescriptors(Collection<BhBreakpoint> descriptors);
+
   /**
    * ローカル変数の情報を取得する.
    *
@@ -126,6 +151,32 @@ public interface Debugger {
   SequencedCollection<BhVariable> getLocalVariables(long threadId, int frameIdx)
       throws NoSuchThreadException, ThreadNotSuspendedException, IndexOutOfBoundsException;
 
+  /**
+   * 一時停止中のスレッドの複数のスタックフレームとグローバル変数の情報をまとめて取得する.
+   *
+   * @param threadId この ID のスレッドと紐づくローカル変数の情報を取得する.
+   * @param frameIdxs これらのインデックスで指定されるスタックフレームに存在するローカル変数の情報を取得する.
+   *                  空の場合は, 最も新しいスタックフレームから順に {@code maxFrames} 個を対象とする.
+   * @param maxFrames 情報を取得するスタックフレームの数の上限.
+   *                  {@code frameIdxs} の要素がこれを超える場合, 先頭からこの数のスタックフレームを対象とする.
+   * @param includeGlobals グローバル変数の情報も取得する場合 true
+   * @param listPreviewLength リスト変数の値を先頭から取得する要素数.
+   *                          1 ページで取得できる要素数を超える場合はその数に制限される.
+   * @param maxVars 情報を取得する変数の数の上限.  これを超える変数の情報は省かれる.
+   * @return 取得した情報
+   * @throws NoSuchThreadException {@code threadId} で指定したスレッドが見つからなかった場合
+   * @throws ThreadNotSuspendedException {@code threadId} で指定したスレッドが一時停止中でなかった場合
+   * @throws IndexOutOfBoundsException {@code frameIdxs} で指定したスタックフレームが存在しなかった場合
+   */
+  BhThreadInspection inspectThread(
+      long threadId,
+      Collection<Integer> frameIdxs,
+      int maxFrames,
+      boolean includeGlobals,
+      int listPreviewLength,
+      int maxVars)
+      throws NoSuchThreadException, ThreadNotSuspendedException, IndexOutOfBoundsException;
+
   /**
    * ローカル変数のリストの値を取得する.
    *
@@ -148,6 +199,55 @@ public interface Debugger {
         NoSuchSymbolException,
         IndexOutOfBoundsException;
 
+  /**
+   * ローカル変数のリストの値をページ単位で取得するためのカーソルを作成し, 最初のページを返す.
+   *
+   * @param threadId この ID のスレッドと紐づくローカル変数のリストを対象とする.
+   * @param frameIdx このインデックスで指定される関数フレームに存在するローカル変数のリストを対象とする.
+   * @param varId 値を取得するリストの ID
+   * @param pageSize 1 ページあたりの要素数.  上限を超える場合は上限の値に切り詰められる.
+   * @param snapshot true の場合, カーソルの作成時にリストの要素をコピーし, 以降のページはコピーから読み出す
+   * @return 最初のページ
+   * @throws NoSuchThreadException {@code threadId} で指定したスレッドが見つからなかった場合
+   * @throws ThreadNotSuspendedException {@code threadId} で指定したスレッドが一時停止中でなかった場合
+   * @throws NoSuchSymbolException {@code varId} で指定したリストが見つからなかった場合
+   * @throws IndexOutOfBoundsException {@code idx} で指定したスタックフレームが存在しなかった場合
+   */
+  BhListPage openLocalListCursor(
+      long threadId, int frameIdx, BhSymbolId varId, int pageSize, boolean snapshot)
+      throws
+        NoSuchThreadException,
+        ThreadNotSuspendedException,
+        NoSuchSymbolException,
+        IndexOutOfBoundsException;
+
+  /**
+   * グローバル変数のリストの値をページ単位で取得するためのカーソルを作成し, 最初のページを返す.
+   *
+   * @param varId 値を取得するリストの ID
+   * @param pageSize 1 ページあたりの要素数.  上限を超える場合は上限の値に切り詰められる.
+   * @param snapshot true の場合, カーソルの作成時にリストの要素をコピーし, 以降のページはコピーから読み出す
+   * @return 最初のページ
+   * @throws NoSuchSymbolException {@code varId} で指定したリストが見つからなかった場合
+   */
+  BhListPage openGlobalListCursor(BhSymbolId varId, int pageSize, boolean snapshot)
+      throws NoSuchSymbolException;
+
+  /**
+   * カーソルが指すリストの次のページを返す.
+   *
+   * @param cursorId 直前に取得したページに付いていたカーソル
+   * @return 次のページ
+   * @throws NoSuchCursorException {@code cursorId} に対応するカーソルが無い場合
+   * @throws ThreadNotSuspendedException スナップショットを取っていないローカル変数のリストを対象とする
+   *                                     カーソルで, そのリストを持つスレッドが一時停止中でなかった場合
+   */
+  BhListPage getListPage(String cursorId)
+      throws NoSuchCursorException, ThreadNotSuspendedException;
+
+  /** {@code cursorId} に対応するカーソルを破棄する. */
+  void closeListCursor(String cursorId);
+
   /** グローバル変数の情報を取得する. */
   SequencedCollection<BhVariable> getGlobalVariables();
 
@@ -163,9 +263,47 @@ public interface Debugger {
   BhListVariable getGlobalListValues(BhSymbolId varId, long startIdx, long length)
       throws NoSuchSymbolException, IndexOutOfBoundsException;
   
-  /** デバッガが監視している全てのスレッドのコンテキストを BunnyHop に送信する. */
-  void sendThreadContexts();
+  /**
+   * デバッガが監視している全てのスレッドのコンテキストを BunnyHop に送信する.
+   *
+   * @param fullSync true の場合, 受領済みのスレッドコンテキストとの差分ではなく完全なスレッドコンテキストを送る
+   */
+  void sendThreadContexts(boolean fullSync);
+
+  /**
+   * BunnyHop がスレッドコンテキストを受領したことを通知する.
+   *
+   * <p>以降, そのスレッドのスレッドコンテキストは受領したものとの差分で送られる.
+   *
+   * @param threadId 受領したスレッドコンテキストに対応するスレッドの ID
+   * @param version 受領したスレッドコンテキストのバージョン番号
+   * @throws NoSuchThreadException {@code threadId} で指定したスレッドが見つからなかった場合
+   */
+  void acknowledgeThreadContext(long threadId, long version) throws NoSuchThreadException;
 
   /** エントリポイントの ID 一覧を取得する. */
   Set<BhSymbolId> getEntryPointIds();
+
+  /**
+   * BhProgram の処理ごとと, コールスタックごとの実行回数と実行時間の計測を開始する.
+   * 計測中の場合, それまでの結果を破棄して計測をやり直す.
+   *
+   * @param clock 実行時間の計測に使う時計
+   * @throws UnsupportedOperationException {@code clock} が {@link BhProfileClock#CPU} で,
+   *                                       JVM がスレッドの CPU 時間の計測をサポートしていない場合か,
+   *                                       BhProgram のスレッドが仮想スレッドである場合
+   */
+  void startProfiling(BhProfileClock clock);
+
+  /** {@link #startProfiling} で開始した計測を停止する.  計測していない場合は何もしない. */
+  void stopProfiling();
+
+  /**
+   * 最後に開始した計測の結果を取得する.
+   *
+   * @param maxEntries 処理ごとの結果とコールスタックごとの結果の各々について, 取得する結果の最大数
+   * @return 最後に開始した計測の結果
+   * @throws IllegalStateException 一度も計測を開始していない場合
+   */
+  BhProfile getProfile(int maxEntries);
 }
@@ -0,0 +1,604 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.debug;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import net.seapanda.bunnyhop.bhprogram.common.BhSymbolId;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.BhCallPathProfile;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.BhProfile;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.BhProfileClock;
+import net.seapanda.bunnyhop.bhprogram.common.message.debug.BhStepProfile;
+import net.seapanda.bunnyhop.runtime.script.ScriptThreadContext;
+import net.seapanda.bunnyhop.runtime.script.SymbolTable;
+
+/**
+ * BhProgram の処理ごとと, コールスタックごとの実行回数と実行時間を計測するクラス.
+ *
+ * <p>処理の実行時間は, その処理の {@link #step} から同じスレッドの次の {@link #step} までの時間とする.
+ * 各スレッドは計測結果をスレッドローカルなカウンタに加算し, 一定のステップ数ごとと,
+ * スレッドの終了時に共有の集計に反映する.
+ * 計測を停止した時点で反映していない結果は, 停止したスレッドが反映する.
+ *
+ * @author K.Koike
+ */
+class ExecutionProfiler {
+
+  private static final ThreadMXBean threadMx = ManagementFactory.getThreadMXBean();
+  /** 実行時間の合計の降順, 実行回数の降順に並べるための比較器. */
+  private static final Comparator<long[]> byCost =
+      Comparator.<long[]>comparingLong(counts -> counts[1])
+          .thenComparingLong(counts -> counts[0])
+          .reversed();
+
+  /** ステップ ID の整数とシンボル ID を変換するテーブル. */
+  private final SymbolTable symbols;
+  /** このメソッドを呼び出したスレッドのスレッドコンテキストを返すメソッド. */
+  private final Supplier<ScriptThreadContext> contextSupplier;
+  /** 各スレッドが計測結果を共有の集計に反映する間隔 (ステップ数). */
+  private final int flushInterval;
+  /** 集計するコールスタックの最大数. */
+  private final int maxCallPaths;
+  /** BhProgram のスレッドが仮想スレッドである場合 true. */
+  private final boolean useVirtualThreads;
+  /** 計測中のセッション.  計測していない場合は null. */
+  private volatile Session session;
+  /** 最後に開始したセッション. */
+  private volatile Session lastSession;
+  /** {@link #session} と {@link #lastSession} の更新を排他的に行うためのロック. */
+  private final ReentrantLock lock = new ReentrantLock();
+  /** このメソッドを呼び出したスレッドの計測結果. */
+  private final ThreadLocal<ThreadProfile> threadProfile = new ThreadLocal<>();
+
+  /**
+   * コンストラクタ.
+   *
+   * @param symbols ステップ ID の整数とシンボル ID を変換するテーブル
+   * @param contextSupplier このメソッドを呼び出したスレッドのスレッドコンテキストを返すメソッド
+   * @param flushInterval 各スレッドが計測結果を共有の集計に反映する間隔 (ステップ数)
+   * @param maxCallPaths 集計するコールスタックの最大数
+   * @param useVirtualThreads BhProgram のスレッドが仮想スレッドである場合 true
+   */
+  ExecutionProfiler(
+      SymbolTable symbols,
+      Supplier<ScriptThreadContext> contextSupplier,
+      int flushInterval,
+      int maxCallPaths,
+      boolean useVirtualThreads) {
+    this.symbols = symbols;
+    this.contextSupplier = contextSupplier;
+    this.flushInterval = Math.max(1, flushInterval);
+    this.maxCallPaths = maxCallPaths;
+    this.useVirtualThreads = useVirtualThreads;
+  }
+
+  /** 計測中の場合 true を返す. */
+  boolean isRunning() {
+    return session != null;
+  }
+
+  /**
+   * 計測を開始する.  計測中の場合, それまでの結果を破棄して計測をやり直す.
+   *
+   * @param clock 実行時間の計測に使う時計
+   * @throws UnsupportedOperationException {@code clock} が {@link BhProfileClock#CPU} で,
+   *                                       JVM がスレッドの CPU 時間の計測をサポートしていない場合か,
+   *                                       BhProgram のスレッドが仮想スレッドである場合
+   */
+  void start(BhProfileClock clock) {
+    Objects.requireNonNull(clock);
+    if (clock == BhProfileClock.CPU) {
+      if (!threadMx.isCurrentThreadCpuTimeSupported()) {
+        throw new UnsupportedOperationException("Thread CPU time measurement is not supported.");
+      }
+      // 仮想スレッドでは ThreadMXBean#getCurrentThreadCpuTime が -1 を返す.
+      if (useVirtualThreads) {
+        throw new UnsupportedOperationException(
+            "Thread CPU time cannot be measured on virtual threads.");
+      }
+      threadMx.setThreadCpuTimeEnabled(true);
+    }
+    lock.lock();
+    try {
+      stopSession();
+      session = new Session(clock);
+      lastSession = session;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** 計測を停止する.  計測していない場合は何もしない. */
+  void stop() {
+    lock.lock();
+    try {
+      stopSession();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** 計測中のセッションを停止する.  {@link #lock} を取得した状態で呼ぶこと. */
+  private void stopSession() {
+    if (session != null) {
+      session.stop();
+      session = null;
+    }
+  }
+
+  /**
+   * このメソッドを呼び出したスレッドが, 次の処理を始めることを通知する.
+   *
+   * @param stepIdx 次に実行する処理の ID を {@link SymbolTable#intern} で整数に変換したもの.
+   *                不明な場合は -1.
+   */
+  void step(int stepIdx) {
+    ThreadProfile profile = getThreadProfile();
+    if (profile != null) {
+      profile.step(stepIdx);
+    }
+  }
+
+  /** このメソッドを呼び出したスレッドが, 一時停止から再開したことを通知する.  停止していた時間は計測から除く. */
+  void notifyResumed() {
+    ThreadProfile profile = threadProfile.get();
+    if (profile != null) {
+      profile.restartClock();
+    }
+  }
+
+  /** このメソッドを呼び出したスレッドが終了することを通知する.  計測結果を共有の集計に反映する. */
+  void notifyThreadEnd() {
+    ThreadProfile profile = threadProfile.get();
+    if (profile != null) {
+      profile.finish();
+      threadProfile.remove();
+    }
+  }
+
+  /**
+   * このメソッドを呼び出したスレッドの計測結果を格納するオブジェクトを返す.
+   * 以前のセッションの計測結果を持っていた場合は, それを集計に反映してから新しいものに置き換える.
+   *
+   * @return 計測結果を格納するオブジェクト.  計測中でない場合は null.
+   */
+  private ThreadProfile getThreadProfile() {
+    Session current = session;
+    ThreadProfile profile = threadProfile.get();
+    if (profile != null && profile.session == current) {
+      return profile;
+    }
+    if (profile != null) {
+      profile.finish();
+      threadProfile.remove();
+    }
+    ScriptThreadContext context = contextSupplier.get();
+    if (current == null || context == null) {
+      return null;
+    }
+    Thread thread = Thread.currentThread();
+    if (current.clock == BhProfileClock.CPU && thread.isVirtual()) {
+      return null;
+    }
+    profile = new ThreadProfile(current, thread.threadId(), context.getRawCallStack());
+    current.profiles.add(profile);
+    // 追加する前にセッションが停止した場合, 停止したスレッドはこの結果を反映しない.
+    if (!current.running) {
+      current.profiles.remove(profile);
+      return null;
+    }
+    threadProfile.set(profile);
+    return profile;
+  }
+
+  /**
+   * 最後に開始した計測の結果を返す.
+   *
+   * @param maxEntries 処理ごとの結果とコールスタックごとの結果の各々について, 返す結果の最大数
+   * @return 最後に開始した計測の結果
+   * @throws IllegalStateException 一度も計測を開始していない場合
+   */
+  BhProfile getProfile(int maxEntries) {
+    Session last = lastSession;
+    if (last == null) {
+      throw new IllegalStateException("Profiling has not been started.");
+    }
+    return last.toProfile(Math.max(0, maxEntries));
+  }
+
+  /** 1 回の計測の集計結果を格納するクラス. */
+  private final class Session {
+
+    final BhProfileClock clock;
+    /** 計測を開始した時刻. */
+    final long startNanos = System.nanoTime();
+    /** 計測を停止した時刻.  {@link #running} が false の場合に有効. */
+    volatile long stopNanos;
+    /** 計測中の場合 true. */
+    volatile boolean running = true;
+    /** 以下のフィールドへのアクセスを排他的に行うためのロック. */
+    final ReentrantLock lock = new ReentrantLock();
+    /** ステップ ID の整数をインデックスとする実行回数. */
+    long[] hits = new long[64];
+    /** ステップ ID の整数をインデックスとする実行時間の合計. */
+    long[] nanos = new long[64];
+    /** コールスタックとそれに対応する実行回数と実行時間の合計. */
+    final Map<List<BhSymbolId>, long[]> callPaths = new HashMap<>();
+    /** 集計できなかった結果がある場合 true. */
+    boolean truncated = false;
+    /** このセッションの計測を行っているスレッドの計測結果. */
+    final Set<ThreadProfile> profiles = ConcurrentHashMap.newKeySet();
+
+    Session(BhProfileClock clock) {
+      this.clock = clock;
+    }
+
+    /** このセッションの時計で, 現在の時刻を返す. */
+    long now() {
+      return (clock == BhProfileClock.CPU)
+          ? threadMx.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /** スレッド ID が {@code threadId} であるスレッドについて, このセッションの時計で現在の時刻を返す. */
+    long nowOf(long threadId) {
+      return (clock == BhProfileClock.CPU)
+          ? threadMx.getThreadCpuTime(threadId) : System.nanoTime();
+    }
+
+    /**
+     * 計測を停止して, 各スレッドが反映していない計測結果を集計に加える.
+     * I/O 待ちなどでステップを進めないスレッドの結果も, ここで反映する.
+     */
+    void stop() {
+      stopNanos = System.nanoTime();
+      running = false;
+      for (ThreadProfile profile : profiles) {
+        profile.close();
+      }
+      profiles.clear();
+    }
+
+    /** {@code profile} の計測結果を集計に加える. */
+    void merge(ThreadProfile profile) {
+      lock.lock();
+      try {
+        if (profile.maxStepIdx >= hits.length) {
+          int len = Math.max(hits.length * 2, profile.maxStepIdx + 1);
+          hits = Arrays.copyOf(hits, len);
+          nanos = Arrays.copyOf(nanos, len);
+        }
+        for (int i = 0; i <= profile.maxStepIdx; ++i) {
+          hits[i] += profile.hits[i];
+          nanos[i] += profile.nanos[i];
+        }
+        for (PathNode node : profile.dirtyNodes) {
+          long[] counts = callPaths.get(node.path);
+          if (counts == null) {
+            if (callPaths.size() >= maxCallPaths) {
+              truncated = true;
+              continue;
+            }
+            counts = new long[2];
+            callPaths.put(node.path, counts);
+          }
+          counts[0] += node.hits;
+          counts[1] += node.nanos;
+        }
+        truncated |= profile.truncated;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /** 集計結果から {@link BhProfile} を作成する. */
+    BhProfile toProfile(int maxEntries) {
+      var steps = new ArrayList<long[]>();
+      var paths = new ArrayList<Map.Entry<List<BhSymbolId>, long[]>>();
+      boolean isTruncated;
+      lock.lock();
+      try {
+        for (int i = 0; i < hits.length; ++i) {
+          if (hits[i] != 0 || nanos[i] != 0) {
+            steps.add(new long[] {hits[i], nanos[i], i});
+          }
+        }
+        for (var entry : callPaths.entrySet()) {
+          paths.add(Map.entry(entry.getKey(), entry.getValue().clone()));
+        }
+        isTruncated = truncated;
+      } finally {
+        lock.unlock();
+      }
+      steps.sort(byCost);
+      paths.sort(Map.Entry.comparingByValue(byCost));
+      isTruncated |= steps.size() > maxEntries || paths.size() > maxEntries;
+      List<BhStepProfile> stepProfiles = steps.stream()
+          .limit(maxEntries)
+          .map(counts -> new BhStepProfile(
+              symbols.symbolOf((int) counts[2]), counts[0], counts[1]))
+          .toList();
+      List<BhCallPathProfile> pathProfiles = paths.stream()
+          .limit(maxEntries)
+          .map(entry -> new BhCallPathProfile(
+              entry.getKey(), entry.getValue()[0], entry.getValue()[1]))
+          .toList();
+      boolean isRunning = running;
+      long elapsed = (isRunning ? System.nanoTime() : stopNanos) - startNanos;
+      return new BhProfile(
+          clock, elapsed, isRunning, stepProfiles, pathProfiles, isTruncated);
+    }
+  }
+
+  /**
+   * 1 つのスレッドの, 共有の集計に反映していない計測結果を格納するクラス.
+   *
+   * <p>値は計測するスレッドが更新する.  セッションを停止するスレッドも結果を反映するので, {@link #lock} で保護する.
+   */
+  private final class ThreadProfile {
+
+    final Session session;
+    /** 計測するスレッドの ID. */
+    final long threadId;
+    /** 以下のフィールドへのアクセスを排他的に行うためのロック. */
+    final ReentrantLock lock = new ReentrantLock();
+    /** 計測結果を反映し終えて, これ以上計測しない場合 true. */
+    boolean closed = false;
+    /** 計測するスレッドのコールスタック. */
+    final List<?> callStack;
+    /** ステップ ID の整数をインデックスとする実行回数. */
+    long[] hits = new long[64];
+    /** ステップ ID の整数をインデックスとする実行時間の合計. */
+    long[] nanos = new long[64];
+    /** {@link #hits} と {@link #nanos} に値を加えた最大のインデックス. */
+    int maxStepIdx = -1;
+    /** 空のコールスタックに対応するノード. */
+    final PathNode root = new PathNode(List.of());
+    /** 作成したノードの数. */
+    int numNodes = 1;
+    /** 共有の集計に反映していない値を持つノード. */
+    final List<PathNode> dirtyNodes = new ArrayList<>();
+    /** 集計できなかった結果がある場合 true. */
+    boolean truncated = false;
+    /** 前回のステップのコールスタックの要素. */
+    Object[] lastItems = new Object[16];
+    /** 前回のステップのコールスタックの各要素までに対応するノード. */
+    PathNode[] lastNodes = new PathNode[16];
+    /** {@link #lastItems} と {@link #lastNodes} の有効な要素数. */
+    int lastDepth = 0;
+    /** 実行中の処理の ID. */
+    int curStep = -1;
+    /** 実行中の処理のコールスタックに対応するノード. */
+    PathNode curNode = null;
+    /** 処理を実行中の場合 true. */
+    boolean inStep = false;
+    /** 実行中の処理を開始した時刻.  {@link #inStep} が true の場合に有効. */
+    long curStart = 0;
+    /** 前回共有の集計に反映してからのステップ数. */
+    int numSteps = 0;
+
+    ThreadProfile(Session session, long threadId, List<?> callStack) {
+      this.session = session;
+      this.threadId = threadId;
+      this.callStack = callStack;
+    }
+
+    /** 実行中の処理を終えて, {@code stepIdx} の処理を始める. */
+    void step(int stepIdx) {
+      lock.lock();
+      try {
+        if (!closed) {
+          beginStep(stepIdx);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private void beginStep(int stepIdx) {
+      long now = session.now();
+      endStep(now);
+      if (stepIdx >= 0) {
+        if (stepIdx >= hits.length) {
+          int len = Math.max(hits.length * 2, stepIdx + 1);
+          hits = Arrays.copyOf(hits, len);
+          nanos = Arrays.copyOf(nanos, len);
+        }
+        ++hits[stepIdx];
+        maxStepIdx = Math.max(maxStepIdx, stepIdx);
+      }
+      PathNode node = findNode();
+      if (node != null) {
+        ++node.hits;
+        markDirty(node);
+      }
+      curStep = stepIdx;
+      curNode = node;
+      curStart = now;
+      inStep = true;
+      if (++numSteps >= flushInterval) {
+        flush();
+      }
+    }
+
+    /** 実行中の処理にかかった時間を加算する. */
+    private void endStep(long now) {
+      // 計測するスレッドが終了していると, 他のスレッドから取得した CPU 時間は -1 になる.
+      if (!inStep || now < 0) {
+        return;
+      }
+      long elapsed = now - curStart;
+      if (curStep >= 0) {
+        nanos[curStep] += elapsed;
+      }
+      if (curNode != null) {
+        curNode.nanos += elapsed;
+        markDirty(curNode);
+      }
+    }
+
+    /** 実行中の処理の開始時刻を現在の時刻に置き換える. */
+    void restartClock() {
+      lock.lock();
+      try {
+        if (!closed && inStep) {
+          curStart = session.now();
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /** 計測するスレッドから呼び出して, 実行中の処理を終えて, 計測結果を共有の集計に反映する. */
+    void finish() {
+      lock.lock();
+      try {
+        if (!closed) {
+          closeWith(session.now());
+        }
+      } finally {
+        lock.unlock();
+      }
+      session.profiles.remove(this);
+    }
+
+    /** セッションを停止するスレッドから呼び出して, 実行中の処理を終えて, 計測結果を共有の集計に反映する. */
+    void close() {
+      lock.lock();
+      try {
+        if (!closed) {
+          closeWith(session.nowOf(threadId));
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /** 時刻 {@code now} に実行中の処理を終えて, 計測結果を共有の集計に反映する.  {@link #lock} を取得した状態で呼ぶこと. */
+    private void closeWith(long now) {
+      endStep(now);
+      inStep = false;
+      curStep = -1;
+      curNode = null;
+      flush();
+      closed = true;
+    }
+
+    /** 計測結果を共有の集計に反映して, カウンタを 0 に戻す. */
+    private void flush() {
+      session.merge(this);
+      Arrays.fill(hits, 0, maxStepIdx + 1, 0);
+      Arrays.fill(nanos, 0, maxStepIdx + 1, 0);
+      maxStepIdx = -1;
+      for (PathNode node : dirtyNodes) {
+        node.hits = 0;
+        node.nanos = 0;
+        node.dirty = false;
+      }
+      dirtyNodes.clear();
+      truncated = false;
+      numSteps = 0;
+    }
+
+    private void markDirty(PathNode node) {
+      if (!node.dirty) {
+        node.dirty = true;
+        dirtyNodes.add(node);
+      }
+    }
+
+    /**
+     * 現在のコールスタックに対応するノードを返す.
+     * 前回のステップとコールスタックの先頭部分が一致する場合, その部分の探索を省く.
+     *
+     * @return 現在のコールスタックに対応するノード.  ノード数が上限に達して作成できなかった場合は null.
+     */
+    private PathNode findNode() {
+      int depth = callStack.size();
+      int common = Math.min(depth, lastDepth);
+      PathNode node = root;
+      int i = 0;
+      for (; i < common; ++i) {
+        if (!Objects.equals(callStack.get(i), lastItems[i])) {
+          break;
+        }
+        node = lastNodes[i];
+      }
+      for (; i < depth; ++i) {
+        Object item = callStack.get(i);
+        BhSymbolId id = symbols.symbolOf(item);
+        PathNode child = node.children.get(id);
+        if (child == null) {
+          if (numNodes >= maxCallPaths) {
+            truncated = true;
+            lastDepth = i;
+            return null;
+          }
+          child = node.newChild(id);
+          ++numNodes;
+        }
+        if (i == lastItems.length) {
+          lastItems = Arrays.copyOf(lastItems, i * 2);
+          lastNodes = Arrays.copyOf(lastNodes, i * 2);
+        }
+        lastItems[i] = item;
+        lastNodes[i] = child;
+        node = child;
+      }
+      lastDepth = depth;
+      return node;
+    }
+  }
+
+  /** コールスタックを表す木のノード. */
+  private static final class PathNode {
+
+    /** 根からこのノードまでのシンボル ID のリスト. */
+    final List<BhSymbolId> path;
+    final Map<BhSymbolId, PathNode> children = new HashMap<>();
+    /** 共有の集計に反映していない実行回数. */
+    long hits = 0;
+    /** 共有の集計に反映していない実行時間の合計. */
+    long nanos = 0;
+    /** 共有の集計に反映していない値を持つ場合 true. */
+    boolean dirty = false;
+
+    PathNode(List<BhSymbolId> path) {
+      this.path = path;
+    }
+
+    /** {@code id} に対応する子ノードを作成して返す. */
+    PathNode newChild(BhSymbolId id) {
+      var childPath = new ArrayList<BhSymbolId>(path.size() + 1);
+      childPath.addAll(path);
+      childPath.add(id);
+      var child = new PathNode(List.copyOf(childPath));
+      children.put(id, child);
+      return child;
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.debug;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import net.seapanda.bunnyhop.bhprogram.common.BhSymbolId;
+import net.seapanda.bunnyhop.bhprogram.common.message.exception.NoSuchCursorException;
+import org.mozilla.javascript.NativeArray;
+
+/**
+ * リストの値をページ単位で取得するためのカーソルを管理するクラス.
+ *
+ * <p>保持するカーソルの数が上限に達した場合, 最も長く使われていないカーソルを破棄する.
+ *
+ * @author K.Koike
+ */
+class ListCursorTable {
+
+  /** 保持するカーソルの最大数. */
+  private final int maxCursors;
+  /** カーソルの ID とカーソルのマップ.  アクセス順に並ぶ. */
+  private final Map<String, Cursor> idToCursor;
+  /** {@link #idToCursor} を排他的に操作するためのロック. */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /**
+   * コンストラクタ.
+   *
+   * @param maxCursors 保持するカーソルの最大数
+   */
+  ListCursorTable(int maxCursors) {
+    this.maxCursors = maxCursors;
+    this.idToCursor = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Cursor> eldest) {
+        return size() > ListCursorTable.this.maxCursors;
+      }
+    };
+  }
+
+  /**
+   * カーソルを登録する.
+   *
+   * @param cursor 登録するカーソル
+   * @return {@code cursor} に割り当てた ID
+   */
+  String register(Cursor cursor) {
+    String id = UUID.randomUUID().toString();
+    lock.lock();
+    try {
+      idToCursor.put(id, cursor);
+    } finally {
+      lock.unlock();
+    }
+    return id;
+  }
+
+  /**
+   * {@code id} に対応するカーソルを返す.
+   *
+   * @throws NoSuchCursorException {@code id} に対応するカーソルが無い場合
+   */
+  Cursor get(String id) throws NoSuchCursorException {
+    lock.lock();
+    try {
+      Cursor cursor = idToCursor.get(id);
+      if (cursor == null) {
+        throw new NoSuchCursorException("Cursor : %s".formatted(id));
+      }
+      return cursor;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** {@code id} に対応するカーソルを破棄する.  存在しない場合は何もしない. */
+  void remove(String id) {
+    lock.lock();
+    try {
+      idToCursor.remove(id);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * リストの読み出し位置を保持するクラス.
+   *
+   * <p>スナップショットを取る場合は, 作成時にリストの要素への参照をコピーする.
+   * 要素自体はコピーしない.
+   */
+  static class Cursor {
+
+    /** カーソルが指すリストのシンボル ID. */
+    final BhSymbolId varId;
+    /** リストがローカル変数の場合, それを持つスレッドの ID.  グローバル変数の場合は負の値. */
+    final long threadId;
+    /** 1 ページあたりの要素数. */
+    final int pageSize;
+    /** カーソルを作成した時点のリストの長さ. */
+    final long length;
+    /** スナップショットを取らない場合に参照するリスト. */
+    private final NativeArray list;
+    /** スナップショットを取った場合のリストの要素. */
+    private final Object[] snapshot;
+    /** 次のページの先頭のインデックス. */
+    private final AtomicLong nextIdx = new AtomicLong(0);
+
+    /**
+     * コンストラクタ.
+     *
+     * @param varId カーソルが指すリストのシンボル ID
+     * @param threadId リストがローカル変数の場合, それを持つスレッドの ID.  グローバル変数の場合は負の値.
+     * @param list カーソルが指すリスト
+     * @param pageSize 1 ページあたりの要素数
+     * @param takeSnapshot リストの要素をコピーする場合 true
+     */
+    Cursor(BhSymbolId varId, long threadId, NativeArray list, int pageSize, boolean takeSnapshot) {
+      this.varId = varId;
+      this.threadId = threadId;
+      this.pageSize = pageSize;
+      this.snapshot = takeSnapshot ? list.toArray() : null;
+      this.list = takeSnapshot ? null : list;
+      this.length = takeSnapshot ? snapshot.length : list.getLength();
+    }
+
+    /** リストの要素をコピーしている場合 true. */
+    boolean isSnapshot() {
+      return snapshot != null;
+    }
+
+    /** 次のページの先頭のインデックスを返し, 読み出し位置を 1 ページ分進める. */
+    long claimPage() {
+      return nextIdx.getAndAdd(pageSize);
+    }
+
+    /**
+     * {@code idx} 番目の要素を返す.
+     *
+     * @throws IndexOutOfBoundsException スナップショットを取っていないリストの長さが縮んでいた場合
+     */
+    Object get(long idx) {
+      if (snapshot != null) {
+        return snapshot[(int) idx];
+      }
+      if (idx >= list.getLength()) {
+        throw new IndexOutOfBoundsException(idx);
+      }
+      return list.get(idx);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.debug;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * デバッガが一時停止させたスレッドに, 再開の許可を受け渡すクラス.
+ *
+ * <p>一時停止するスレッド (所有スレッド) は {@link #arm} を呼んでから停止を公開し, {@link #await} で待機する.
+ * 他のスレッドは {@link #release} で再開を許可する.
+ * {@link #release} の呼び出し前の書き込みは, {@link #await} から戻った所有スレッドから読み出せる.
+ *
+ * @author K.Koike
+ */
+class ThreadHandoff {
+
+  private static final VarHandle PERMIT;
+
+  static {
+    try {
+      PERMIT = MethodHandles.lookup().findVarHandle(ThreadHandoff.class, "permit", boolean.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  /** 一時停止と再開を行うスレッド. */
+  private final Thread owner;
+  /** 再開が許可されている場合 true.  {@link #PERMIT} を通してアクセスする. */
+  @SuppressWarnings("unused")
+  private boolean permit = false;
+
+  /**
+   * コンストラクタ.
+   *
+   * @param owner 一時停止と再開を行うスレッド
+   */
+  ThreadHandoff(Thread owner) {
+    this.owner = owner;
+  }
+
+  /**
+   * 以前の {@link #release} で残った許可を破棄する.
+   * 所有スレッドが, 一時停止したことを他のスレッドに公開する前に呼ぶこと.
+   */
+  void arm() {
+    PERMIT.setOpaque(this, false);
+  }
+
+  /**
+   * {@link #release} が呼ばれるまで所有スレッドを待機させる.
+   * 待機中に割り込まれた場合は, 割り込み状態を保ったまま戻る.
+   */
+  void await() {
+    while (!(boolean) PERMIT.getAndSetAcquire(this, false)) {
+      if (owner.isInterrupted()) {
+        return;
+      }
+      LockSupport.park(this);
+    }
+  }
+
+  /** 所有スレッドの再開を許可する. */
+  void release() {
+    PERMIT.setRelease(this, true);
+    LockSupport.unpark(owner);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.debug;
+
+import java.util.Collection;
+import net.seapanda.bunnyhop.runtime.script.Keywords;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.NativeObject;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+/**
+ * ブレークポイントの条件式を評価する際に, 変数をシンボル ID で参照できるようにするスコープ.
+ *
+ * <p>変数の値は参照されたときに初めて取得する.
+ * ローカル変数をグローバル変数より優先して探す.
+ * シンボル ID が識別子として使えない場合のために, {@code $} でこのスコープ自体を参照できる.
+ *
+ * @author K.Koike
+ */
+class VariableScope extends ScriptableObject {
+
+  /** このスコープ自体を参照するための名前. */
+  private static final String SELF = "$";
+
+  /** ローカル変数のアクセサ一覧. */
+  private final Collection<NativeObject> localVars;
+  /** グローバル変数のアクセサ一覧. */
+  private final Collection<?> globalVars;
+
+  /**
+   * コンストラクタ.
+   *
+   * @param parent 変数以外の名前の解決に使うスコープ (nullable)
+   * @param localVars ローカル変数のアクセサ一覧
+   * @param globalVars グローバル変数のアクセサ一覧
+   */
+  VariableScope(Scriptable parent, Collection<NativeObject> localVars, Collection<?> globalVars) {
+    this.localVars = localVars;
+    this.globalVars = globalVars;
+    setParentScope(parent);
+  }
+
+  @Override
+  public String getClassName() {
+    return "VariableScope";
+  }
+
+  @Override
+  public boolean has(String name, Scriptable start) {
+    return SELF.equals(name) || findAccessor(name) != null || super.has(name, start);
+  }
+
+  @Override
+  public Object get(String name, Scriptable start) {
+    if (SELF.equals(name)) {
+      return this;
+    }
+    NativeObject accessor = findAccessor(name);
+    if (accessor == null) {
+      return super.get(name, start);
+    }
+    Function getter = (Function) accessor.get(Keywords.Properties.GET);
+    Context cx = Context.getCurrentContext();
+    return getter.call(cx, getter.getParentScope(), getter, new Object[0]);
+  }
+
+  /** シンボル ID が {@code id} である変数のアクセサを探す.  見つからない場合は null. */
+  private NativeObject findAccessor(String id) {
+    for (NativeObject accessor : localVars) {
+      if (id.equals(String.valueOf(accessor.get(Keywords.Properties.ID)))) {
+        return accessor;
+      }
+    }
+    for (Object obj : globalVars) {
+      if (obj instanceof NativeObject accessor
+          && id.equals(String.valueOf(accessor.get(Keywords.Properties.ID)))) {
+        return accessor;
+      }
+    }
+    return null;
+  }
+}
@@ -16,6 +16,7 @@
 
 package net.seapanda.bunnyhop.runtime.script.hw;
 
+import java.util.ArrayList;
 import java.util.List;
 import net.seapanda.bunnyhop.runtime.script.AgencyFailedException;
 
@@ -36,4 +37,50 @@ public interface HwCmdDispatcher {
   public default List<String> sendCmd(String... cmd) throws AgencyFailedException {
     throw new AgencyFailedException("Hardware control is not supported.");
   }
+
+  /**
+   * HW を制御するコマンドを送信して, レスポンスを待たずに戻る.
+   *
+   * <p>デフォルト実装は {@link #sendCmd} でレスポンスを受け取ってから戻る.
+   *
+   * @param cmd 送信するコマンド
+   * @return {@code cmd} のレスポンスを受け取るためのハンドル
+   * @throws AgencyFailedException コマンドの送信に失敗した
+   */
+  public default HwCmdHandle sendCmdAsync(String... cmd) throws AgencyFailedException {
+    return HwCmdHandle.completed(sendCmd(cmd));
+  }
+
+  /**
+   * HW を制御する複数のコマンドをまとめて送信して, レスポンスを待たずに戻る.
+   *
+   * <p>デフォルト実装は {@link #sendCmdAsync} を {@code cmds} の要素ごとに呼ぶ.
+   *
+   * @param cmds 送信するコマンドの配列
+   * @return {@code cmds} の各コマンドのレスポンスを受け取るためのハンドル.  {@code cmds} と同じ順に並ぶ.
+   * @throws AgencyFailedException コマンドの送信に失敗した
+   */
+  public default HwCmdHandle[] sendCmdsAsync(String[]... cmds) throws AgencyFailedException {
+    var handles = new HwCmdHandle[cmds.length];
+    for (int i = 0; i < cmds.length; ++i) {
+      handles[i] = sendCmdAsync(cmds[i]);
+    }
+    return handles;
+  }
+
+  /**
+   * {@code handles} の全てのコマンドのレスポンスを受け取るまで待つ.
+   *
+   * @param handles レスポンスを待つコマンドのハンドル
+   * @return {@code handles} の各コマンドのレスポンス.  {@code handles} と同じ順に並ぶ.
+   * @throws AgencyFailedException いずれかのコマンドの送信もしくは, そのレスポンスの受信に失敗した
+   */
+  public default List<List<String>> awaitAll(HwCmdHandle... handles)
+      throws AgencyFailedException {
+    var resps = new ArrayList<List<String>>(handles.length);
+    for (HwCmdHandle handle : handles) {
+      resps.add(handle.get());
+    }
+    return resps;
+  }
 }
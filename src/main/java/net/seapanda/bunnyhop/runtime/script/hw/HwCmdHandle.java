@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.hw;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import net.seapanda.bunnyhop.runtime.script.AgencyFailedException;
+
+/**
+ * 送信した HW 制御コマンドのレスポンスを受け取るためのオブジェクト.
+ *
+ * <p>{@link #get} はどのスレッドから呼んでもよく, 何度呼んでも同じレスポンスを返す.
+ *
+ * @author K.Koike
+ */
+public class HwCmdHandle {
+
+  /** コマンドのレスポンス. */
+  private final CompletableFuture<List<String>> resp;
+
+  /**
+   * コンストラクタ.
+   *
+   * @param resp コマンドのレスポンスを格納する {@link CompletableFuture}
+   */
+  HwCmdHandle(CompletableFuture<List<String>> resp) {
+    this.resp = resp;
+  }
+
+  /**
+   * 既にレスポンスを受け取ったコマンドのハンドルを作成する.
+   *
+   * @param resp コマンドのレスポンス
+   * @return {@code resp} を返すハンドル
+   */
+  public static HwCmdHandle completed(List<String> resp) {
+    return new HwCmdHandle(CompletableFuture.completedFuture(resp));
+  }
+
+  /** コマンドのレスポンスを受け取っているか, コマンドが失敗している場合 true を返す. */
+  public boolean isDone() {
+    return resp.isDone();
+  }
+
+  /**
+   * コマンドのレスポンスを受け取るまで待つ.
+   *
+   * @return コマンドのレスポンス
+   * @throws AgencyFailedException コマンドの送信もしくは, そのレスポンスの受信に失敗した
+   */
+  public List<String> get() throws AgencyFailedException {
+    try {
+      return resp.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw new AgencyFailedException((cause instanceof AgencyFailedException)
+          ? cause.getMessage()
+          : "Failed to receive a HW ctrl response.\n" + cause);
+    } catch (InterruptedException e) {
+      throw new AgencyFailedException("Failed to receive a HW ctrl response.\n" + e);
+    }
+  }
+}
@@ -21,29 +21,38 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import net.seapanda.bunnyhop.runtime.BhConstants;
+import net.seapanda.bunnyhop.runtime.metrics.LatencyHistogram;
 import net.seapanda.bunnyhop.runtime.script.AgencyFailedException;
+import net.seapanda.bunnyhop.runtime.script.PendingRequestTable;
 import net.seapanda.bunnyhop.runtime.service.LogManager;
+import net.seapanda.bunnyhop.runtime.service.MetricsManager;
 
 /**
  * HW を制御するプログラムに対して, 標準入出力を用いてコマンドの送信とレスポンスの受信を行うクラス.
  *
+ * <p>コマンドとレスポンスは ID で対応付けるので, レスポンスを待たずに次のコマンドを送信できる.
+ * {@link #sendCmdsAsync} は複数のコマンドを 1 回の書き込みでまとめて送信する.
+ *
  * @author K.Koike
  */
 public class StdioHwCmdDispatcher implements HwCmdDispatcher {
   
   /** コマンドおよびレスポンス内で使用される区切り文字. */
   private static final String delimiter = ",";
+  /** HW を制御するプログラムの標準出力が閉じられたことを, {@link #sendCmd} で応答を待つスレッドに伝えるための応答. */
+  private static final List<String> respClosed = Collections.unmodifiableList(new ArrayList<>());
 
   /** HW を制御するプログラムの {@link Process} オブジェクト. */
   private Process process;
@@ -51,11 +60,17 @@ public class StdioHwCmdDispatcher implements HwCmdDispatcher {
   private final ExecutorService respReader = Executors.newSingleThreadExecutor();
   /** HW を制御するプログラムに送信するコマンドの ID. */
   private AtomicLong commandId = new AtomicLong();
-  /** コマンド ID とその ID のコマンドの完了を待つための同期用オブジェクトのマップ. */
-  private final Map<Long, CountDownLatch> cmdIdToBarrier = new ConcurrentHashMap<>();
-  /** コマンド ID とその ID のコマンドのレスポンスのマップ. */
-  private final Map<Long, List<String>> cmdIdToResp = new ConcurrentHashMap<>();
+  /** 応答を待っているコマンドとその応答を管理するテーブル. */
+  private final PendingRequestTable<List<String>> pendingCmds =
+      new PendingRequestTable<>(BhConstants.PENDING_REQUEST_TABLE_SIZE);
+  /** {@link #sendCmdsAsync} で送信したコマンドの ID とそのレスポンスを格納するオブジェクトのマップ. */
+  private final Map<Long, AsyncCmd> idToAsyncCmd = new ConcurrentHashMap<>();
+  /** HW を制御するプログラムの標準出力が閉じられた場合 true. */
+  private volatile boolean isRespClosed = false;
   private final ReentrantLock lock = new ReentrantLock();
+  /** コマンドを送信してからレスポンスを受信するまでの時間. */
+  private final LatencyHistogram roundTripTime =
+      MetricsManager.registry().histogram("hwctrl.roundTrip");
 
   /**
    * コンストラクタ.
@@ -81,16 +96,15 @@ public class StdioHwCmdDispatcher implements HwCmdDispatcher {
       try {
         if ((respStr = ir.readLine()) != null) {
           List<String> resp = new ArrayList<>(Arrays.asList(respStr.split(delimiter)));
-          long respId = Long.valueOf(resp.removeFirst());
-          CountDownLatch latch = cmdIdToBarrier.remove(respId);
-          if (latch != null) {
-            cmdIdToResp.put(respId, resp);
-            latch.countDown();
-          }  
+          long respId = Long.parseLong(resp.removeFirst());
+          if (!pendingCmds.complete(respId, resp)) {
+            completeAsyncCmd(respId, resp);
+          }
         } else {
-          Thread.sleep(1);
+          // HW を制御するプログラムが標準出力を閉じた.
+          break;
         }
-      } catch (IOException | InterruptedException e) {
+      } catch (IOException e) {
         break;
       } catch (Exception e) {
         LogManager.logger().error(
@@ -98,32 +112,108 @@ public class StdioHwCmdDispatcher implements HwCmdDispatcher {
       } catch (Throwable e) {
       }
     }
+    isRespClosed = true;
+    failPendingCmds();
+    failAsyncCmds();
+  }
+
+  /** {@link #sendCmd} で送信してレスポンスを待っているコマンドを全て失敗させる. */
+  private void failPendingCmds() {
+    pendingCmds.forEachPendingId(cmdId -> pendingCmds.complete(cmdId, respClosed));
+  }
+
+  /** {@link #sendCmdsAsync} で送信した ID が {@code respId} のコマンドに {@code resp} を渡す. */
+  private void completeAsyncCmd(long respId, List<String> resp) {
+    AsyncCmd cmd = idToAsyncCmd.remove(respId);
+    if (cmd != null) {
+      roundTripTime.recordSince(cmd.startTime);
+      cmd.complete(resp);
+    }
+  }
+
+  /** {@link #sendCmdsAsync} で送信してレスポンスを受け取っていないコマンドを全て失敗させる. */
+  private void failAsyncCmds() {
+    for (Long cmdId : idToAsyncCmd.keySet()) {
+      AsyncCmd cmd = idToAsyncCmd.remove(cmdId);
+      if (cmd != null) {
+        cmd.completeExceptionally(new AgencyFailedException("HW Ctrl Program has ended."));
+      }
+    }
   }
 
   @Override
-  public List<String> sendCmd(String... cmd) throws AgencyFailedException {    
+  public List<String> sendCmd(String... cmd) throws AgencyFailedException {
+    if (isRespClosed) {
+      throw new AgencyFailedException("HW Ctrl Program has ended.");
+    }
+    long startTime = System.nanoTime();
     long cmdId = commandId.getAndIncrement();
-    var latch = new CountDownLatch(1);
-    cmdIdToBarrier.put(cmdId, latch);
+    PendingRequestTable.Slot<List<String>> slot = pendingCmds.register(cmdId);
     try {
-      sendCmd(cmdId, cmd);
-      return waitForResp(cmdId, latch);
+      sendCmds(cmdId, new String[][] {cmd});
     } catch (AgencyFailedException e) {
-      cmdIdToBarrier.remove(cmdId);
+      slot.cancel();
       throw e;
     }
+    // レスポンスを読むスレッドが終了した後に登録したコマンドは, ここで失敗させる.
+    if (isRespClosed) {
+      pendingCmds.complete(cmdId, respClosed);
+    }
+    List<String> resp = waitForResp(slot);
+    if (resp == respClosed) {
+      throw new AgencyFailedException("HW Ctrl Program has ended.");
+    }
+    roundTripTime.recordSince(startTime);
+    return resp;
   }
 
-  /** HW を制御するプログラムにコマンドを送信する. */
-  private void sendCmd(long cmdId, String... cmd) throws AgencyFailedException {
+  @Override
+  public HwCmdHandle sendCmdAsync(String... cmd) throws AgencyFailedException {
+    return sendCmdsAsync(new String[][] {cmd})[0];
+  }
+
+  @Override
+  public HwCmdHandle[] sendCmdsAsync(String[]... cmds) throws AgencyFailedException {
+    long firstId = commandId.getAndAdd(cmds.length);
+    var handles = new HwCmdHandle[cmds.length];
+    for (int i = 0; i < cmds.length; ++i) {
+      var cmd = new AsyncCmd();
+      idToAsyncCmd.put(firstId + i, cmd);
+      handles[i] = new HwCmdHandle(cmd);
+    }
+    try {
+      sendCmds(firstId, cmds);
+    } catch (AgencyFailedException e) {
+      for (int i = 0; i < cmds.length; ++i) {
+        idToAsyncCmd.remove(firstId + i);
+      }
+      throw e;
+    }
+    // レスポンスを読むスレッドが終了した後に登録したコマンドは, ここで失敗させる.
+    if (isRespClosed) {
+      failAsyncCmds();
+    }
+    return handles;
+  }
+
+  /**
+   * HW を制御するプログラムにコマンドを送信する.
+   * 全てのコマンドを書き込んでから 1 回だけフラッシュする.
+   *
+   * @param firstId {@code cmds} の先頭のコマンドの ID.  後続のコマンドの ID は 1 ずつ増える.
+   * @param cmds 送信するコマンドの配列
+   */
+  private void sendCmds(long firstId, String[][] cmds) throws AgencyFailedException {
     boolean unlocked = false;
     try {
       lock.lock();
       if (process == null) {
         throw new AgencyFailedException("HW Ctrl Program has ended.");
       }
-      process.outputWriter().write(createCmd(cmdId, cmd));
-      process.outputWriter().newLine();
+      for (int i = 0; i < cmds.length; ++i) {
+        process.outputWriter().write(createCmd(firstId + i, cmds[i]));
+        process.outputWriter().newLine();
+      }
       process.outputWriter().flush();
       lock.unlock();
       unlocked = true;
@@ -140,13 +230,13 @@ public class StdioHwCmdDispatcher implements HwCmdDispatcher {
   }
 
   /** HW を制御するプログラムからコマンドのレスポンスが到着するのを待つ. */
-  private List<String> waitForResp(long cmdId, CountDownLatch latch) throws AgencyFailedException {
+  private List<String> waitForResp(PendingRequestTable.Slot<List<String>> slot)
+      throws AgencyFailedException {
     try {
-      latch.await();
+      return slot.await();
     } catch (InterruptedException e) {
       throw new AgencyFailedException("Failed to receive a HW ctrl response.\n" + e);
     }
-    return cmdIdToResp.remove(cmdId);
   }
 
   /** HW を制御するプログラムに送信するコマンドの文字列を作成する. */
@@ -167,6 +257,7 @@ public class StdioHwCmdDispatcher implements HwCmdDispatcher {
     try {
       lock.lock();
       process.getOutputStream().write("terminate\n".getBytes("UTF-8"));
+      process.getOutputStream().flush();
       process.waitFor(BhConstants.PROC_END_TIMEOUT, TimeUnit.SECONDS);
       closeStreams();
       respReader.close();
@@ -183,4 +274,11 @@ public class StdioHwCmdDispatcher implements HwCmdDispatcher {
     process.getErrorStream().close();
     process.getOutputStream().close();
   }
+
+  /** {@link #sendCmdsAsync} で送信したコマンドのレスポンスを格納するクラス. */
+  private static class AsyncCmd extends CompletableFuture<List<String>> {
+
+    /** コマンドを送信する前の時刻 ({@link System#nanoTime} の値). */
+    private final long startTime = System.nanoTime();
+  }
 }
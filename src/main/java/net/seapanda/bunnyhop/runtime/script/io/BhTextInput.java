@@ -33,4 +33,23 @@ public interface BhTextInput {
    * @throws Exception 文字列の読み出しに失敗した
    */
   public String scanln() throws Exception;
+
+  /**
+   * BunnyHop のテキスト I/O から 1 行読みだす.
+   *
+   * @param timeout 1 行分の文字列が入力されるのを待つ最大時間 (ms)
+   * @return 読み出された文字列.  時間内に 1 行分の文字列が入力されなかった場合は null.
+   * @throws Exception 文字列の読み出しに失敗した
+   */
+  public String scanln(long timeout) throws Exception;
+
+  /**
+   * BunnyHop のテキスト I/O から, 行の区切りに関係なく最大 {@code maxChars} 文字読みだす.
+   * 1 文字も入力されていない場合は, 入力されるまで待つ.
+   *
+   * @param maxChars 読み出す最大文字数
+   * @return 読み出された文字列
+   * @throws Exception 文字列の読み出しに失敗した
+   */
+  public String read(int maxChars) throws Exception;
 }
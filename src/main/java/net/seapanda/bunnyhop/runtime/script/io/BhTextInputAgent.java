@@ -18,6 +18,10 @@ package net.seapanda.bunnyhop.runtime.script.io;
 
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramResponse;
 import net.seapanda.bunnyhop.bhprogram.common.message.io.BhTextIoCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.io.InputTextCmd;
@@ -38,8 +42,12 @@ public class BhTextInputAgent implements BhTextInput, BhProgramMessageProcessor<
   /** 発行したレスポンスを格納する FIFO. */
   private final BlockingQueue<BhProgramResponse> sendRespList;
   /** BhProgram に入力された文字列のバッファ. */
-  private final BlockingQueue<String> inputTextList =
-      new ArrayBlockingQueue<>(BhConstants.MAX_INPUT_TEXT_QUEUE_SIZE);
+  private final CharPipe inputText;
+  /**
+   * 入力文字列をバッファに書き込むスレッド.
+   * BunnyHop からのメッセージを処理するスレッドが, バッファの空き待ちでブロックしないようにするために使う.
+   */
+  private final ExecutorService inputWriter;
 
   /**
    * コンストラクタ.
@@ -47,26 +55,105 @@ public class BhTextInputAgent implements BhTextInput, BhProgramMessageProcessor<
    * @param sendRespList 発行したレスポンスを格納する FIFO
    */
   public BhTextInputAgent(BlockingQueue<BhProgramResponse> sendRespList) {
+    this(sendRespList, BhConstants.TEXT_INPUT_BUFFER_SIZE, BhConstants.MAX_PENDING_TEXT_INPUTS);
+  }
+
+  /**
+   * コンストラクタ.
+   *
+   * @param sendRespList 発行したレスポンスを格納する FIFO
+   * @param bufferSize BhProgram が読み出す前の入力文字列を格納するバッファの最大文字数
+   * @param maxPendingInputs バッファへの書き込みを待つ {@link InputTextCmd} の最大数
+   */
+  public BhTextInputAgent(
+      BlockingQueue<BhProgramResponse> sendRespList, int bufferSize, int maxPendingInputs) {
     this.sendRespList = sendRespList;
+    this.inputText = new CharPipe(bufferSize);
+    this.inputWriter = new ThreadPoolExecutor(
+        1,
+        1,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(maxPendingInputs),
+        Thread.ofPlatform().name("BhTextInputWriter").daemon().factory());
   }
 
   @Override
   public String scanln() throws AgencyFailedException {
+    return scanln(Long.MAX_VALUE);
+  }
+
+  @Override
+  public String scanln(long timeout) throws AgencyFailedException {
     try {
-      String text = inputTextList.take();
-      return text;
+      return inputText.readLine(timeout, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw new AgencyFailedException(Utility.getCurrentMethodName() + " failed");
     }
   }
 
+  @Override
+  public String read(int maxChars) throws AgencyFailedException {
+    try {
+      return inputText.read(maxChars, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      throw new AgencyFailedException(Utility.getCurrentMethodName() + " failed");
+    }
+  }
+
+  /**
+   * BhProgram に文字列を入力する.
+   *
+   * <p>{@link InputTextCmd} のテキストは, 改行文字で区切られた 1 行以上の文字列として扱う.
+   * テキストの末尾が改行文字でない場合は, 末尾に改行文字を補う.
+   *
+   * <p>このメソッドはブロックしない.
+   * テキストは専用のスレッドがバッファに書き込み, 全て書き込んだ後で成功を示すレスポンスを返す.
+   * 書き込み待ちの {@link InputTextCmd} が上限に達している場合は, 直ちに失敗を示すレスポンスを返す.
+   * この場合, BunnyHop は同じテキストを再送すること.
+   * 再送する者がいない場合は, 代わりに {@link #write} を使うこと.
+   */
   @Override
   public void process(BhTextIoCmd cmd) {
+    if (!(cmd instanceof InputTextCmd inputTextCmd)) {
+      return;
+    }
+    try {
+      inputWriter.execute(() -> writeToBuffer(inputTextCmd));
+    } catch (RejectedExecutionException e) {
+      sendResp(new InputTextResp(cmd.getId(), false, inputTextCmd.text));
+    }
+  }
+
+  /**
+   * BhProgram に文字列を入力する.
+   * 入力文字列のバッファに空きがない場合は, テキストを全て書き込むまで待つ.
+   *
+   * <p>{@code text} は, 改行文字で区切られた 1 行以上の文字列として扱う.
+   * テキストの末尾が改行文字でない場合は, 末尾に改行文字を補う.
+   *
+   * @param text BhProgram に入力する文字列
+   * @throws InterruptedException 書き込みを待っている間に割り込まれた場合
+   */
+  public void write(String text) throws InterruptedException {
+    inputText.write(text.endsWith("\n") ? text : text + "\n");
+  }
+
+  /** {@code cmd} のテキストを入力文字列のバッファに書き込んで, レスポンスを返す. */
+  private void writeToBuffer(InputTextCmd cmd) {
+    String text = cmd.text;
+    try {
+      write(text);
+    } catch (InterruptedException e) {
+      sendResp(new InputTextResp(cmd.getId(), false, text));
+      return;
+    }
+    sendResp(new InputTextResp(cmd.getId(), true, text));
+  }
+
+  private void sendResp(InputTextResp resp) {
     try {
-      if (cmd instanceof InputTextCmd inputTextCmd) {
-        boolean success = inputTextList.offer(inputTextCmd.text);
-        sendRespList.put(new InputTextResp(cmd.getId(), success, inputTextCmd.text));
-      }
+      sendRespList.put(resp);
     } catch (InterruptedException e) {
       LogManager.logger().error(e.toString());
     }
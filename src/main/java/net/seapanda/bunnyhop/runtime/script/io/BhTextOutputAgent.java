@@ -16,21 +16,23 @@
 
 package net.seapanda.bunnyhop.runtime.script.io;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramNotification;
 import net.seapanda.bunnyhop.bhprogram.common.message.io.BhTextIoCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.io.BhTextIoResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.io.OutputTextCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.io.OutputTextResp;
+import net.seapanda.bunnyhop.runtime.BhConstants;
 import net.seapanda.bunnyhop.runtime.script.AgencyFailedException;
 import net.seapanda.bunnyhop.runtime.script.BhProgramMessageProcessor;
+import net.seapanda.bunnyhop.runtime.script.PendingRequestTable;
+import net.seapanda.bunnyhop.runtime.service.LogManager;
 import net.seapanda.bunnyhop.utility.Utility;
 
 /**
@@ -44,14 +46,30 @@ public class BhTextOutputAgent implements BhTextOutput, BhProgramMessageProcesso
   private final BlockingQueue<BhProgramNotification> sendNotifList;
   /** BunnyHop へのテキストデータの送信が有効な場合 true. */
   private boolean isTextOutputEnabled = false;
-  /** コマンド ID とその ID のコマンドの完了を待つための同期用オブジェクトのマップ. */
-  private final Map<Long, CountDownLatch> cmdIdToBarrier = new ConcurrentHashMap<>();
-  /** コマンド ID とその ID のコマンドのレスポンスのマップ. */
-  private final Map<Long, BhTextIoResp> cmdIdToResp = new ConcurrentHashMap<>();
+  /** 応答を待っているコマンドとその応答を管理するテーブル. */
+  private final PendingRequestTable<BhTextIoResp> pendingCmds =
+      new PendingRequestTable<>(BhConstants.PENDING_REQUEST_TABLE_SIZE);
   private final ReentrantLock lock = new ReentrantLock();
+  /** BunnyHop にテキストデータを送信する方法. */
+  private final TextOutputMode mode;
+  /** {@link TextOutputMode#BUFFERED} の場合に, BunnyHop への送信を待つテキストを溜めるバッファ. */
+  private final StringBuilder buffer = new StringBuilder();
+  /** {@link #buffer} に空きができたことを通知する. */
+  private final Condition bufferNotFull = lock.newCondition();
+  /** {@link #buffer} のテキストの送信が必要になったことを通知する. */
+  private final Condition flushRequested = lock.newCondition();
+  /** {@link TextOutputMode#WINDOWED} の場合に, 応答を待たずに送信できるコマンドの最大数. */
+  private final int windowSize;
+  /** 送信したが応答を受け取っていないコマンドの ID. */
+  private final SortedSet<Long> unackedCmdIds = new TreeSet<>();
+  /** {@link #unackedCmdIds} の数が {@link #windowSize} 未満になったことを通知する. */
+  private final Condition windowAvailable = lock.newCondition();
+  /** 応答を待たずに送信したコマンドの中に, 失敗したものがある場合 true. */
+  private boolean hasFailedCmd = false;
 
   /**
    * コンストラクタ.
+   * テキストデータは {@link TextOutputMode#SYNCHRONOUS} で送信する.
    *
    * @param sendNotifList 発行した通知を格納する FIFO
    * @param enableTextOutput 初期状態で, BunnyHop へのテキストデータの送信を有効化する場合 true
@@ -59,29 +77,70 @@ public class BhTextOutputAgent implements BhTextOutput, BhProgramMessageProcesso
   public BhTextOutputAgent(
       BlockingQueue<BhProgramNotification> sendNotifList,
       boolean enableTextOutput) {
+    this(sendNotifList, enableTextOutput, TextOutputMode.SYNCHRONOUS);
+  }
+
+  /**
+   * コンストラクタ.
+   *
+   * @param sendNotifList 発行した通知を格納する FIFO
+   * @param enableTextOutput 初期状態で, BunnyHop へのテキストデータの送信を有効化する場合 true
+   * @param mode BunnyHop にテキストデータを送信する方法
+   */
+  public BhTextOutputAgent(
+      BlockingQueue<BhProgramNotification> sendNotifList,
+      boolean enableTextOutput,
+      TextOutputMode mode) {
+    this(sendNotifList, enableTextOutput, mode, BhConstants.TEXT_OUTPUT_WINDOW_SIZE);
+  }
+
+  /**
+   * コンストラクタ.
+   *
+   * @param sendNotifList 発行した通知を格納する FIFO
+   * @param enableTextOutput 初期状態で, BunnyHop へのテキストデータの送信を有効化する場合 true
+   * @param mode BunnyHop にテキストデータを送信する方法
+   * @param windowSize {@link TextOutputMode#WINDOWED} の場合に, 応答を待たずに送信できるコマンドの最大数
+   */
+  public BhTextOutputAgent(
+      BlockingQueue<BhProgramNotification> sendNotifList,
+      boolean enableTextOutput,
+      TextOutputMode mode,
+      int windowSize) {
+    if (windowSize < 1) {
+      throw new IllegalArgumentException(
+          "The window size must be greater than 0.  (%s)".formatted(windowSize));
+    }
     this.sendNotifList = sendNotifList;
     this.isTextOutputEnabled = enableTextOutput;
+    this.mode = mode;
+    this.windowSize = windowSize;
+    if (mode == TextOutputMode.BUFFERED) {
+      Thread.ofPlatform().name("BhTextOutputFlusher").daemon().start(this::flushContinuously);
+    }
   }
   
   @Override
   public void print(String text) throws AgencyFailedException {
-    boolean unlocked = false;
+    if (mode == TextOutputMode.BUFFERED) {
+      printToBuffer(text);
+      return;
+    }
+    if (mode == TextOutputMode.WINDOWED) {
+      printInWindow(text);
+      return;
+    }
     try {
       lock.lock();
       if (!isTextOutputEnabled) {
         return;
       }
-      var cmd = new OutputTextCmd(text);
-      unlocked = sendCmdAndWait(cmd);
-      BhTextIoResp resp = cmdIdToResp.remove(cmd.getId());
+      BhTextIoResp resp = sendCmdAndWait(new OutputTextCmd(text));
       if (resp instanceof OutputTextResp && resp.success) {
         return;
       }
     } finally {
-      // unlock 前に StackOverflow していた場合, ここでスタックに空きがある状態で unlock 可能.
-      // finally 節でのみ unlock すると, ここで StackOverflow した場合 unlock できない可能性がある.
-      // try 節と finally 節の両方で StackOverflow することは想定しない.
-      if (!unlocked) {
+      if (lock.isHeldByCurrentThread()) {
         lock.unlock();
       }
     }
@@ -93,39 +152,159 @@ public class BhTextOutputAgent implements BhTextOutput, BhProgramMessageProcesso
     print(text + "\n");
   }
 
-  /** コマンドを送って応答を待つ. */
-  private boolean sendCmdAndWait(BhTextIoCmd cmd) {
-    var isAdded = false;
-    var latch = new CountDownLatch(1);
+  /** {@code text} を {@link #buffer} に追加する.  {@link #buffer} が一杯の場合は空きができるまで待つ. */
+  private void printToBuffer(String text) throws AgencyFailedException {
+    try {
+      lock.lock();
+      // 1 回の出力でバッファの容量を超える場合は, バッファが空になるのを待ってから追加する.
+      while (isTextOutputEnabled
+          && !buffer.isEmpty()
+          && buffer.length() + text.length() > BhConstants.TEXT_OUTPUT_BUFFER_SIZE) {
+        bufferNotFull.await();
+      }
+      if (!isTextOutputEnabled) {
+        return;
+      }
+      boolean wasEmpty = buffer.isEmpty();
+      buffer.append(text);
+      if (wasEmpty || buffer.length() >= BhConstants.TEXT_OUTPUT_FLUSH_SIZE) {
+        flushRequested.signal();
+      }
+    } catch (InterruptedException e) {
+      throw new AgencyFailedException(Utility.getCurrentMethodName() + " failed");
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * {@code text} を送信するコマンドを, その応答を待たずに送信する.
+   * 応答を受け取っていないコマンドが {@link #windowSize} 個ある場合は, 応答が来るまで待つ.
+   */
+  private void printInWindow(String text) throws AgencyFailedException {
+    try {
+      lock.lock();
+      while (isTextOutputEnabled && unackedCmdIds.size() >= windowSize) {
+        windowAvailable.await();
+      }
+      if (!isTextOutputEnabled) {
+        return;
+      }
+      // 以前に送信したコマンドの失敗は, その後の出力で報告する.
+      if (hasFailedCmd) {
+        hasFailedCmd = false;
+        throw new AgencyFailedException(Utility.getCurrentMethodName() + " failed");
+      }
+      var cmd = new OutputTextCmd(text);
+      unackedCmdIds.add(cmd.getId());
+      if (!sendNotifList.offer(cmd, Long.MAX_VALUE, TimeUnit.DAYS)) {
+        unackedCmdIds.remove(cmd.getId());
+        throw new AgencyFailedException(Utility.getCurrentMethodName() + " failed");
+      }
+    } catch (InterruptedException e) {
+      throw new AgencyFailedException(Utility.getCurrentMethodName() + " failed");
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * {@link #buffer} に溜まったテキストを BunnyHop に送信し続ける.
+   * テキストは, 一定量溜まるか, 最初のテキストが追加されてから一定時間経つとまとめて送信される.
+   */
+  private void flushContinuously() {
+    while (true) {
+      try {
+        lock.lock();
+        while (buffer.isEmpty()) {
+          flushRequested.await();
+        }
+        if (buffer.length() < BhConstants.TEXT_OUTPUT_FLUSH_SIZE) {
+          flushRequested.await(BhConstants.TEXT_OUTPUT_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+        // 待っている間にテキストの送信が無効化された場合
+        if (buffer.isEmpty()) {
+          continue;
+        }
+        var cmd = new OutputTextCmd(buffer.toString());
+        buffer.setLength(0);
+        bufferNotFull.signalAll();
+        BhTextIoResp resp = sendCmdAndWait(cmd);
+        if (!(resp instanceof OutputTextResp && resp.success)) {
+          LogManager.logger().error("Failed to send buffered text.  (%s)".formatted(cmd.getId()));
+        }
+      } catch (InterruptedException e) {
+        return;
+      } finally {
+        if (lock.isHeldByCurrentThread()) {
+          lock.unlock();
+        }
+      }
+    }
+  }
+
+  /**
+   * コマンドを送って応答を待つ.
+   * {@link #lock} を取得した状態で呼ぶこと.  {@link #lock} はこのメソッドの中で解放される.
+   *
+   * @return 受け取った応答.  応答を受け取れなかった場合は null.
+   */
+  private BhTextIoResp sendCmdAndWait(BhTextIoCmd cmd) {
     var unlocked = false;
-    cmdIdToBarrier.put(cmd.getId(), latch);
+    PendingRequestTable.Slot<BhTextIoResp> slot = pendingCmds.register(cmd.getId());
     try {
-      isAdded = sendNotifList.offer(cmd, Long.MAX_VALUE, TimeUnit.DAYS);
+      boolean isAdded = sendNotifList.offer(cmd, Long.MAX_VALUE, TimeUnit.DAYS);
       lock.unlock();
       unlocked = true;
       if (isAdded) {
-        latch.await();
+        return slot.await();
       }
+      slot.cancel();
     } catch (InterruptedException e) {
-      cmdIdToBarrier.remove(cmd.getId());
+      if (!unlocked) {
+        slot.cancel();
+      }
+    } finally {
+      // unlock 前に StackOverflow していた場合, ここでスタックに空きがある状態で unlock 可能.
+      // finally 節でのみ unlock すると, ここで StackOverflow した場合 unlock できない可能性がある.
+      // try 節と finally 節の両方で StackOverflow することは想定しない.
+      if (!unlocked) {
+        lock.unlock();
+      }
     }
-    return unlocked;
+    return null;
   }
 
   @Override
   public void process(BhTextIoResp resp) {
     try {
       lock.lock();
-      CountDownLatch latch = cmdIdToBarrier.remove(resp.getId());
-      if (latch != null) {
-        cmdIdToResp.put(resp.getId(), resp);
-        latch.countDown();
+      pendingCmds.complete(resp.getId(), resp);
+      if (resp instanceof OutputTextResp) {
+        ackCmds(resp);
       }
     } finally {
       lock.unlock();
     }
   }
 
+  /**
+   * 応答を待たずに送信したコマンドのうち, ID が {@code resp} の ID 以下のものを応答済みとする.
+   * コマンドは ID の順に送信され, BunnyHop はそれらを送信順に処理するので,
+   * 1 つの応答でそれ以前に送信したコマンドもまとめて応答済みとみなせる.
+   */
+  private void ackCmds(BhTextIoResp resp) {
+    SortedSet<Long> ackedCmdIds = unackedCmdIds.headSet(resp.getId() + 1);
+    if (ackedCmdIds.isEmpty()) {
+      return;
+    }
+    if (!resp.success) {
+      hasFailedCmd = true;
+    }
+    ackedCmdIds.clear();
+    windowAvailable.signalAll();
+  }
+
   /**
    * BunnyHop へのテキストデータの送信を無効化する.
    * 既にキューイングされているテキスト出力コマンドはキャンセルされる. 
@@ -134,7 +313,12 @@ public class BhTextOutputAgent implements BhTextOutput, BhProgramMessageProcesso
     try {
       lock.lock();
       isTextOutputEnabled = false;
+      buffer.setLength(0);
+      bufferNotFull.signalAll();
       cancelTextOutput();
+      unackedCmdIds.clear();
+      hasFailedCmd = false;
+      windowAvailable.signalAll();
     } finally {
       lock.unlock();
     }
@@ -159,8 +343,6 @@ public class BhTextOutputAgent implements BhTextOutput, BhProgramMessageProcesso
     outputTextCmdList.forEach(cmd -> process(
         new OutputTextResp(cmd.getId(), true, ((OutputTextCmd) cmd).text)));
 
-    for (long cmdId : new ArrayList<>(cmdIdToBarrier.keySet())) {
-      process(new OutputTextResp(cmdId, true, ""));
-    }
+    pendingCmds.forEachPendingId(cmdId -> process(new OutputTextResp(cmdId, true, "")));
   }
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.io;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 書き込むスレッドと読み出すスレッドの間で文字を受け渡す, 容量に上限のあるバッファ.
+ *
+ * <p>バッファが一杯の場合, 書き込むスレッドは空きができるまで待たされる.
+ * バッファに書き込まれた文字は捨てられない.
+ *
+ * @author K.Koike
+ */
+class CharPipe {
+
+  /** 文字を格納するリングバッファ. */
+  private final char[] buf;
+  /** 次に読み出す文字の {@link #buf} 内の位置. */
+  private int head = 0;
+  /** {@link #buf} に格納されている文字の数. */
+  private int size = 0;
+  /** {@link #buf} に格納されている改行文字の数. */
+  private int numNewlines = 0;
+  private final ReentrantLock lock = new ReentrantLock();
+  /** {@link #buf} に文字が書き込まれたことを通知する. */
+  private final Condition notEmpty = lock.newCondition();
+  /** {@link #buf} に空きができたことを通知する. */
+  private final Condition notFull = lock.newCondition();
+
+  /**
+   * コンストラクタ.
+   *
+   * @param capacity バッファに格納できる最大文字数
+   */
+  CharPipe(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException(
+          "The capacity must be greater than 0.  (%s)".formatted(capacity));
+    }
+    buf = new char[capacity];
+  }
+
+  /**
+   * {@code text} を書き込む.
+   * バッファに空きがない場合は, {@code text} を全て書き込み終わるまで空きができるのを待つ.
+   */
+  void write(CharSequence text) throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      int pos = 0;
+      while (pos < text.length()) {
+        while (size == buf.length) {
+          notFull.await();
+        }
+        int end = pos + Math.min(text.length() - pos, buf.length - size);
+        for (; pos < end; ++pos) {
+          char c = text.charAt(pos);
+          buf[(head + size) % buf.length] = c;
+          ++size;
+          if (c == '\n') {
+            ++numNewlines;
+          }
+        }
+        notEmpty.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 1 行読み出す.
+   * バッファの容量を超える長さの行は, バッファの容量ごとに区切って読み出す.
+   *
+   * @param timeout 1 行分の文字が書き込まれるのを待つ最大時間
+   * @param unit {@code timeout} の単位
+   * @return 読み出した行.  改行文字は含まない.  時間内に 1 行分の文字が書き込まれなかった場合は null.
+   */
+  String readLine(long timeout, TimeUnit unit) throws InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      while (numNewlines == 0 && size < buf.length) {
+        if (nanos <= 0) {
+          return null;
+        }
+        nanos = notEmpty.awaitNanos(nanos);
+      }
+      var line = new StringBuilder();
+      while (size > 0) {
+        char c = take();
+        if (c == '\n') {
+          break;
+        }
+        line.append(c);
+      }
+      return line.toString();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 最大 {@code maxChars} 文字読み出す.
+   *
+   * @param maxChars 読み出す最大文字数
+   * @param timeout 1 文字以上書き込まれるのを待つ最大時間
+   * @param unit {@code timeout} の単位
+   * @return 読み出した文字列.  時間内に文字が書き込まれなかった場合は null.
+   */
+  String read(int maxChars, long timeout, TimeUnit unit) throws InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      while (size == 0) {
+        if (nanos <= 0) {
+          return null;
+        }
+        nanos = notEmpty.awaitNanos(nanos);
+      }
+      var text = new StringBuilder();
+      while (size > 0 && text.length() < maxChars) {
+        text.append(take());
+      }
+      return text.toString();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** バッファの先頭から 1 文字取り出す. */
+  private char take() {
+    char c = buf[head];
+    head = (head + 1) % buf.length;
+    --size;
+    if (c == '\n') {
+      --numNewlines;
+    }
+    notFull.signalAll();
+    return c;
+  }
+}
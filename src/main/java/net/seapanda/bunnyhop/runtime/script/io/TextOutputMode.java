@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 K.Koike
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.seapanda.bunnyhop.runtime.script.io;
+
+/**
+ * BhProgram が出力したテキストを BunnyHop に送信する方法.
+ *
+ * @author K.Koike
+ */
+public enum TextOutputMode {
+  /** テキストを出力するたびに BunnyHop に送信し, その応答を待ってから出力元の処理に戻る. */
+  SYNCHRONOUS,
+  /**
+   * 出力されたテキストをバッファに溜めて, 即座に出力元の処理に戻る.
+   * バッファのテキストは, 一定量溜まるか一定時間経つとまとめて BunnyHop に送信される.
+   * バッファが一杯の場合は, 空きができるまで出力元の処理を待たせる.
+   */
+  BUFFERED,
+  /**
+   * テキストを出力するたびに BunnyHop に送信し, その応答を待たずに出力元の処理に戻る.
+   * 応答を受け取っていない送信済みのテキストが一定数ある場合は, 応答が来るまで出力元の処理を待たせる.
+   */
+  WINDOWED,
+}
@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.sound.sampled.AudioFileFormat;
@@ -61,6 +62,11 @@ public class AudioControllerImpl implements AudioController {
   private final Path root;
   /** パスごとにロックオブジェクトを保持するためのオブジェクト. */
   private final PerItemLock<Path> lock = new PerItemLock<>();
+  /**
+   * マイクを使用するスレッドを 1 つに制限するためのロック.
+   * 仮想スレッドがキャリアスレッドを占有しないように, synchronized ではなくこのロックを使う.
+   */
+  private final ReentrantLock micLock = new ReentrantLock();
 
   /**
    * コンストラクタ.
@@ -71,9 +77,19 @@ public class AudioControllerImpl implements AudioController {
     this.root = Paths.get(rootPath).toAbsolutePath().normalize();
   }
 
-  /** マイクは異なるスレッドから同時に使えないので synchronized メソッドにする. */
+  /** マイクは異なるスレッドから同時に使えないので {@link #micLock} で排他制御する. */
   @Override
-  public synchronized void record(String path, double time) throws Exception {
+  public void record(String path, double time) throws Exception {
+    micLock.lock();
+    try {
+      recordWithMic(path, time);
+    } finally {
+      micLock.unlock();
+    }
+  }
+
+  /** マイクから {@code time} 秒間録音して {@code path} に保存する. */
+  private void recordWithMic(String path, double time) throws Exception {
     checkRecordingTime(time);
     Path targetPath = toPath(path);
     try {
@@ -204,9 +220,9 @@ public class AudioControllerImpl implements AudioController {
     }
   }
 
-  /** マイクは異なるスレッドから同時に使えないので synchronized メソッドにする. */
+  /** マイクは異なるスレッドから同時に使えないので {@link #micLock} で排他制御する. */
   @Override
-  public synchronized double findSoundPressureAverage(double time) throws LineUnavailableException {
+  public double findSoundPressureAverage(double time) throws LineUnavailableException {
     MutableLong sum = new MutableLong(0);
     MutableInt numSamples = new MutableInt(0);
     TriConsumer<byte[], Integer, Boolean> calcSum =
@@ -221,9 +237,9 @@ public class AudioControllerImpl implements AudioController {
     return ((double) sum.getValue()) / numSamples.getValue();
   }
 
-  /** マイクは異なるスレッドから同時に使えないので synchronized メソッドにする. */
+  /** マイクは異なるスレッドから同時に使えないので {@link #micLock} で排他制御する. */
   @Override
-  public synchronized double findSoundPressurePeak(double time) throws LineUnavailableException {
+  public double findSoundPressurePeak(double time) throws LineUnavailableException {
     MutableInt peak = new MutableInt(0);
     TriConsumer<byte[], Integer, Boolean> calcPeak =
         (sampleBytes, length, littleEndian) -> {
@@ -237,33 +253,38 @@ public class AudioControllerImpl implements AudioController {
   /** マイクのデータを {@code time} 秒読み取り, 小分けにして callBack に渡す. */
   private void readMicrophoneData(double time, TriConsumer<byte[], Integer, Boolean> callback)
       throws LineUnavailableException {
-    checkRecordingTime(time);
-    var format = new AudioFormat(SAMPLE_RATE, SAMPLE_SIZE, CHANNELS, SIGNED, BIG_ENDIAN);
-    DataLine.Info info = new DataLine.Info(TargetDataLine.class, format);
-    if (!AudioSystem.isLineSupported(info)) {
-      throw new LineUnavailableException("The specified audio format is not supported");
-    }
-    TargetDataLine targetLine = (TargetDataLine) AudioSystem.getLine(info);
-    targetLine.open(format);
-    targetLine.start();
-
-    int bufferSize = 4096;
-    byte[] buffer = new byte[bufferSize];
-    int bytesPerSecond = (int) (SAMPLE_RATE * CHANNELS * (SAMPLE_SIZE / 8));
-    long totalBytesToRead = (long) (bytesPerSecond * time);
-    long totalBytesRead = 0;
+    micLock.lock();
     try {
-      while (totalBytesRead < totalBytesToRead) {
-        long bytesToRead = Math.min(bufferSize, totalBytesToRead - totalBytesRead);
-        int bytesRead = targetLine.read(buffer, 0, (int) bytesToRead);
-        if (bytesRead > 0) {
-          totalBytesRead += bytesRead;
+      checkRecordingTime(time);
+      var format = new AudioFormat(SAMPLE_RATE, SAMPLE_SIZE, CHANNELS, SIGNED, BIG_ENDIAN);
+      DataLine.Info info = new DataLine.Info(TargetDataLine.class, format);
+      if (!AudioSystem.isLineSupported(info)) {
+        throw new LineUnavailableException("The specified audio format is not supported");
+      }
+      TargetDataLine targetLine = (TargetDataLine) AudioSystem.getLine(info);
+      targetLine.open(format);
+      targetLine.start();
+
+      int bufferSize = 4096;
+      byte[] buffer = new byte[bufferSize];
+      int bytesPerSecond = (int) (SAMPLE_RATE * CHANNELS * (SAMPLE_SIZE / 8));
+      long totalBytesToRead = (long) (bytesPerSecond * time);
+      long totalBytesRead = 0;
+      try {
+        while (totalBytesRead < totalBytesToRead) {
+          long bytesToRead = Math.min(bufferSize, totalBytesToRead - totalBytesRead);
+          int bytesRead = targetLine.read(buffer, 0, (int) bytesToRead);
+          if (bytesRead > 0) {
+            totalBytesRead += bytesRead;
+          }
+          callback.accept(buffer, bytesRead, !BIG_ENDIAN);
         }
-        callback.accept(buffer, bytesRead, !BIG_ENDIAN);
+      } finally {
+        targetLine.stop();
+        targetLine.close();
       }
     } finally {
-      targetLine.stop();
-      targetLine.close();
+      micLock.unlock();
     }
   }
 
@@ -16,18 +16,19 @@
 
 package net.seapanda.bunnyhop.runtime.script.simulator;
 
-import java.util.Map;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import net.seapanda.bunnyhop.bhprogram.common.message.BhProgramNotification;
 import net.seapanda.bunnyhop.bhprogram.common.message.simulator.BhSimulatorCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.simulator.BhSimulatorResp;
 import net.seapanda.bunnyhop.bhprogram.common.message.simulator.StringBhSimulatorCmd;
 import net.seapanda.bunnyhop.bhprogram.common.message.simulator.StringBhSimulatorResp;
+import net.seapanda.bunnyhop.runtime.BhConstants;
+import net.seapanda.bunnyhop.runtime.metrics.LatencyHistogram;
 import net.seapanda.bunnyhop.runtime.script.AgencyFailedException;
 import net.seapanda.bunnyhop.runtime.script.BhProgramMessageProcessor;
+import net.seapanda.bunnyhop.runtime.script.PendingRequestTable;
+import net.seapanda.bunnyhop.runtime.service.MetricsManager;
 import net.seapanda.bunnyhop.utility.Utility;
 
 /**
@@ -39,10 +40,12 @@ public class BhSimulatorAgent implements
     BhSimulatorCtrl, BhProgramMessageProcessor<BhSimulatorResp> {
   /** コマンドを格納する FIFO. */
   private final BlockingQueue<BhProgramNotification> sendNotifList;
-  /** コマンド ID とその ID のコマンドの完了を待つための同期用オブジェクトのマップ. */
-  private final Map<Long, CountDownLatch> cmdIdToBarrier = new ConcurrentHashMap<>();
-  /** コマンド ID とその ID のコマンドのレスポンスのマップ. */
-  private final Map<Long, BhSimulatorResp> cmdIdToResp = new ConcurrentHashMap<>();
+  /** 応答を待っているコマンドとその応答を管理するテーブル. */
+  private final PendingRequestTable<BhSimulatorResp> pendingCmds =
+      new PendingRequestTable<>(BhConstants.PENDING_REQUEST_TABLE_SIZE);
+  /** コマンドを送信してから応答を受信するまでの時間. */
+  private final LatencyHistogram roundTripTime =
+      MetricsManager.registry().histogram("simulator.roundTrip");
 
   /**
    * コンストラクタ.
@@ -56,8 +59,7 @@ public class BhSimulatorAgent implements
   @Override
   public String[] sendCmd(String... cmd) throws AgencyFailedException {
     var command = new StringBhSimulatorCmd(cmd);
-    sendCmdAndWait(command);
-    BhSimulatorResp resp = cmdIdToResp.remove(command.getId());
+    BhSimulatorResp resp = sendCmdAndWait(command);
     if (resp instanceof StringBhSimulatorResp strResp && resp.isSuccessful()) {
       return strResp.getComponents();
     }
@@ -65,27 +67,33 @@ public class BhSimulatorAgent implements
         "%s failed.\n(%s)".formatted(Utility.getCurrentMethodName(), resp));
   }
 
-  /** コマンドを送って応答を待つ. */
-  private void sendCmdAndWait(BhSimulatorCmd cmd) {
-    var isAdded = false;
-    var latch = new CountDownLatch(1);
-    cmdIdToBarrier.put(cmd.getId(), latch);
+  /**
+   * コマンドを送って応答を待つ.
+   *
+   * @return 受け取った応答.  応答を受け取れなかった場合は null.
+   */
+  private BhSimulatorResp sendCmdAndWait(BhSimulatorCmd cmd) {
+    long startTime = System.nanoTime();
+    PendingRequestTable.Slot<BhSimulatorResp> slot = pendingCmds.register(cmd.getId());
+    boolean isAdded = false;
     try {
       isAdded = sendNotifList.offer(cmd, Long.MAX_VALUE, TimeUnit.DAYS);
       if (isAdded) {
-        latch.await();
+        BhSimulatorResp resp = slot.await();
+        roundTripTime.recordSince(startTime);
+        return resp;
       }
+      slot.cancel();
     } catch (InterruptedException e) {
-      cmdIdToBarrier.remove(cmd.getId());
+      if (!isAdded) {
+        slot.cancel();
+      }
     }
+    return null;
   }
 
   @Override
   public void process(BhSimulatorResp resp) {
-    CountDownLatch latch = cmdIdToBarrier.remove(resp.getId());
-    if (latch != null) {
-      cmdIdToResp.put(resp.getId(), resp);
-      latch.countDown();
-    }
+    pendingCmds.complete(resp.getId(), resp);
   }
 }